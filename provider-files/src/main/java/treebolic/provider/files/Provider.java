@@ -9,12 +9,20 @@
 package treebolic.provider.files;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.DateFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import treebolic.ILocator;
 import treebolic.annotations.NonNull;
@@ -23,6 +31,7 @@ import treebolic.glue.iface.Colors;
 import treebolic.model.*;
 import treebolic.provider.IProvider;
 import treebolic.provider.IProviderContext;
+import treebolic.provider.IUpdateContext;
 import treebolic.provider.LoadBalancer;
 
 /**
@@ -144,6 +153,26 @@ public class Provider implements IProvider, ImageDecorator
 	 */
 	static private final Integer ROOTFOLDER_FORECOLOR = Colors.WHITE; // Colors.WHITE;0xCCCCGREENCC
 
+	/**
+	 * Depth parameter: folders at this depth (root is 0) are not walked but made mount points, 0 or less for no limit
+	 */
+	static public final String PARAM_DEPTH = "depth";
+
+	/**
+	 * Default depth
+	 */
+	static private final int DEFAULT_DEPTH = 3;
+
+	/**
+	 * Number of threads walking folders
+	 */
+	static private final int THREADS = 8;
+
+	/**
+	 * Watch parameter: whether walked folders are watched and the displayed tree kept up to date with their changes
+	 */
+	static public final String PARAM_WATCH = "watch";
+
 	// L O A D B A L A N C I N G
 
 	/**
@@ -195,6 +224,12 @@ public class Provider implements IProvider, ImageDecorator
 	@SuppressWarnings("WeakerAccess")
 	protected final LoadBalancer loadBalancer;
 
+	/**
+	 * Folder watcher, null if not watching
+	 */
+	@Nullable
+	private volatile Watcher watcher;
+
 	/**
 	 * Constructor
 	 */
@@ -222,14 +257,41 @@ public class Provider implements IProvider, ImageDecorator
 		// do not need
 	}
 
+	@Override
+	public void dispose()
+	{
+		// watcher would otherwise keep its thread and registrations, and update a context that has moved on
+		stopWatching();
+	}
+
 	@Override
 	public Model makeModel(final String source, final URL base, final Properties parameters)
 	{
+		// watch walked folders if context can be updated
+		stopWatching();
+		if (parseWatch(parameters) && this.context instanceof IUpdateContext)
+		{
+			try
+			{
+				this.watcher = new Watcher(this, (IUpdateContext) this.context);
+			}
+			catch (IOException e)
+			{
+				this.context.warn("Can't watch : " + e.getMessage());
+			}
+		}
+
 		@Nullable final Tree tree = makeTree(source, base, parameters, false);
 		if (tree == null)
 		{
+			stopWatching();
 			return null;
 		}
+		@Nullable final Watcher watcher = this.watcher;
+		if (watcher != null)
+		{
+			watcher.start();
+		}
 
 		// settings
 		@Nullable final List<INode> children = tree.getRoot().getChildren();
@@ -316,10 +378,381 @@ public class Provider implements IProvider, ImageDecorator
 		}
 
 		// graph
-		@NonNull final INode rootNode = makeNode(dir, true);
+		@NonNull final INode rootNode = walk(dir.toPath(), parseDepth(parameters));
 		return new Tree(rootNode, null);
 	}
 
+	/**
+	 * Parse depth parameter
+	 *
+	 * @param parameters parameters
+	 * @return depth, 0 or less for no limit
+	 */
+	static private int parseDepth(@Nullable final Properties parameters)
+	{
+		@Nullable final String value = parameters == null ? null : parameters.getProperty(PARAM_DEPTH);
+		if (value != null)
+		{
+			try
+			{
+				return Integer.parseInt(value.trim());
+			}
+			catch (NumberFormatException e)
+			{
+				// do nothing
+			}
+		}
+		return DEFAULT_DEPTH;
+	}
+
+	/**
+	 * Parse watch parameter
+	 *
+	 * @param parameters parameters
+	 * @return whether to watch walked folders
+	 */
+	static private boolean parseWatch(@Nullable final Properties parameters)
+	{
+		@Nullable final String value = parameters == null ? null : parameters.getProperty(PARAM_WATCH);
+		return value != null && Boolean.parseBoolean(value.trim());
+	}
+
+	/**
+	 * Stop watching folders
+	 */
+	private void stopWatching()
+	{
+		@Nullable final Watcher watcher = this.watcher;
+		if (watcher != null)
+		{
+			watcher.stop();
+			this.watcher = null;
+		}
+	}
+
+	// W A L K
+
+	/**
+	 * Walk folder, subfolders being walked in parallel
+	 *
+	 * @param dir   folder
+	 * @param depth depth at which folders are made mount points instead of being walked, 0 or less for no limit
+	 * @return node
+	 */
+	@NonNull
+	public INode walk(@NonNull final Path dir, final int depth)
+	{
+		BasicFileAttributes attributes;
+		try
+		{
+			attributes = Files.readAttributes(dir, BasicFileAttributes.class);
+		}
+		catch (IOException e)
+		{
+			return makeNode(dir.toFile(), true);
+		}
+		@NonNull final ForkJoinPool pool = new ForkJoinPool(THREADS);
+		try
+		{
+			return pool.invoke(new WalkTask(dir, attributes, true, depth > 0 ? depth : -1));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Make nodes for folder entries, folders being walked in parallel
+	 *
+	 * @param paths      entry paths
+	 * @param attributes entry attributes
+	 * @param remaining  remaining levels to walk, 0 if folders are to be made mount points, negative if no limit
+	 * @return nodes, in entry order
+	 */
+	@NonNull
+	List<INode> makeNodes(@NonNull final List<Path> paths, @NonNull final List<BasicFileAttributes> attributes, final int remaining)
+	{
+		@NonNull final List<WalkTask> tasks = new ArrayList<>(paths.size());
+		for (int i = 0; i < paths.size(); i++)
+		{
+			tasks.add(new WalkTask(paths.get(i), attributes.get(i), false, remaining));
+		}
+		@NonNull final ForkJoinPool pool = new ForkJoinPool(THREADS);
+		try
+		{
+			return pool.invoke(ForkJoinTask.adapt(() -> walk(tasks)));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Walk entries, folders in forked tasks, files in calling one
+	 *
+	 * @param tasks tasks for entries
+	 * @return nodes, in entry order
+	 */
+	@NonNull
+	static private List<INode> walk(@NonNull final List<WalkTask> tasks)
+	{
+		for (@NonNull final WalkTask task : tasks)
+		{
+			if (task.attributes.isDirectory() && task.remaining != 0)
+			{
+				task.fork();
+			}
+		}
+		@NonNull final List<INode> childNodes = new ArrayList<>(tasks.size());
+		for (@NonNull final WalkTask task : tasks)
+		{
+			childNodes.add(task.attributes.isDirectory() && task.remaining != 0 ? task.join() : task.compute());
+		}
+		return childNodes;
+	}
+
+	/**
+	 * Walk task, makes the node for a file or folder. A folder is listed once with NIO, each entry's attributes being read in one call; subfolders are
+	 * walked by forked tasks.
+	 */
+	private class WalkTask extends RecursiveTask<INode>
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Path
+		 */
+		@NonNull
+		private final Path path;
+
+		/**
+		 * Attributes
+		 */
+		@NonNull
+		private final BasicFileAttributes attributes;
+
+		/**
+		 * Whether this file is root
+		 */
+		private final boolean isRoot;
+
+		/**
+		 * Remaining levels to walk, 0 if folder is to be made a mount point, negative if no limit
+		 */
+		private final int remaining;
+
+		/**
+		 * Constructor
+		 *
+		 * @param path       path
+		 * @param attributes attributes
+		 * @param isRoot     whether this file is root
+		 * @param remaining  remaining levels to walk, 0 if folder is to be made a mount point, negative if no limit
+		 */
+		WalkTask(@NonNull final Path path, @NonNull final BasicFileAttributes attributes, final boolean isRoot, final int remaining)
+		{
+			this.path = path;
+			this.attributes = attributes;
+			this.isRoot = isRoot;
+			this.remaining = remaining;
+		}
+
+		@NonNull
+		@Override
+		protected INode compute()
+		{
+			@NonNull final TreeMutableNode node = new TreeMutableNode(null, Provider.makeNodeId());
+
+			@Nullable final Path fileName = this.path.getFileName();
+			@NonNull final String name = fileName == null ? "" : fileName.toString();
+			node.setLabel(name);
+			node.setTarget(name);
+
+			if (this.attributes.isDirectory())
+			{
+				node.setLink("directory:" + this.path);
+				node.setBackColor(this.isRoot ? Provider.ROOTFOLDER_BACKCOLOR : Provider.FOLDER_BACKCOLOR);
+				node.setForeColor(this.isRoot ? Provider.ROOTFOLDER_FORECOLOR : Provider.FOLDER_FORECOLOR);
+				node.setEdgeStyle(Provider.FOLDER_EDGESTYLE);
+				node.setEdgeColor(Provider.FOLDER_EDGECOLOR);
+				setNodeImage(node, this.isRoot ? ImageIndex.ROOT.ordinal() : ImageIndex.FOLDER.ordinal());
+
+				int count = -1;
+				if (this.remaining == 0)
+				{
+					// mounted on demand
+					@NonNull final MountPoint.Mounting mountPoint = new MountPoint.Mounting();
+					mountPoint.url = makeMountSource(this.path);
+					node.setMountPoint(mountPoint);
+				}
+				else
+				{
+					// watch before listing so that no change is missed
+					@Nullable final Watcher watcher = Provider.this.watcher;
+					@Nullable final Watcher.Folder folder = watcher == null ? null : watcher.watch(this.path, node, this.remaining);
+
+					// recurse
+					@Nullable final List<WalkTask> tasks = list();
+					@NonNull final Map<Path, INode> entries = new LinkedHashMap<>();
+					@NonNull final Set<Path> subfolders = new HashSet<>();
+					if (tasks != null)
+					{
+						@NonNull final List<INode> childNodes = walk(tasks);
+						count = tasks.size();
+
+						// balance load
+						@Nullable final List<INode> balancedNodes = Provider.this.loadBalancer.buildHierarchy(childNodes, 0);
+						node.addChildren(balancedNodes);
+
+						// entries by name
+						if (folder != null)
+						{
+							for (int i = 0; i < count; i++)
+							{
+								@NonNull final WalkTask task = tasks.get(i);
+								entries.put(task.path.getFileName(), childNodes.get(i));
+								if (task.attributes.isDirectory())
+								{
+									subfolders.add(task.path.getFileName());
+								}
+							}
+						}
+					}
+					if (folder != null)
+					{
+						watcher.listed(folder, entries, subfolders);
+					}
+				}
+				node.setContent(makeFolderContent(this.path, this.attributes, count));
+			}
+			else
+			{
+				node.setLink(this.path.toFile().toURI().toString());
+				node.setEdgeStyle(Provider.FILE_EDGESTYLE);
+				node.setEdgeColor(Provider.FILE_EDGECOLOR);
+				setNodeImage(node, ImageIndex.FILE.ordinal());
+				node.setContent(makeFileContent(this.path, this.attributes));
+			}
+			return node;
+		}
+
+		/**
+		 * List folder entries
+		 *
+		 * @return tasks for entries, null if folder cannot be listed
+		 */
+		@Nullable
+		private List<WalkTask> list()
+		{
+			final int childRemaining = this.remaining > 0 ? this.remaining - 1 : this.remaining;
+			@NonNull final List<WalkTask> tasks = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.path))
+			{
+				for (final Path child : stream)
+				{
+					@Nullable final BasicFileAttributes childAttributes = readAttributes(child);
+					if (childAttributes != null)
+					{
+						tasks.add(new WalkTask(child, childAttributes, false, childRemaining));
+					}
+				}
+			}
+			catch (IOException | DirectoryIteratorException e)
+			{
+				return null;
+			}
+			return tasks;
+		}
+	}
+
+	/**
+	 * Make folder content
+	 *
+	 * @param path       folder path
+	 * @param attributes folder attributes
+	 * @param count      number of entries, negative if folder has not been listed
+	 * @return content
+	 */
+	@NonNull
+	static String makeFolderContent(@NonNull final Path path, @NonNull final BasicFileAttributes attributes, final int count)
+	{
+		@NonNull final StringBuilder sb = new StringBuilder();
+		if (count >= 0)
+		{
+			sb.append(count).append(" elements<br>"); //
+		}
+		sb.append("last modified ").append(DateFormat.getDateTimeInstance().format(new Date(attributes.lastModifiedTime().toMillis()))) //
+				.append("<br>").append("permissions ").append(Files.isReadable(path) ? 'r' : '-') //
+				.append(Files.isReadable(path) ? 'w' : '-') //
+				.append(Files.isExecutable(path) ? 'x' : '-');
+		return sb.toString();
+	}
+
+	/**
+	 * Make file content
+	 *
+	 * @param path       file path
+	 * @param attributes file attributes
+	 * @return content
+	 */
+	@NonNull
+	static private String makeFileContent(@NonNull final Path path, @NonNull final BasicFileAttributes attributes)
+	{
+		return attributes.size() + //
+				" bytes<br>" + "last modified " + DateFormat.getDateTimeInstance().format(new Date(attributes.lastModifiedTime().toMillis())) + //
+				"<br>" + "permissions " + (Files.isReadable(path) ? 'r' : '-') + //
+				(Files.isReadable(path) ? 'w' : '-') + //
+				(Files.isExecutable(path) ? 'x' : '-');
+	}
+
+	/**
+	 * Read attributes in one call, following links (those of the link itself if it is dangling)
+	 *
+	 * @param path path
+	 * @return attributes, null if they cannot be read
+	 */
+	@Nullable
+	static BasicFileAttributes readAttributes(@NonNull final Path path)
+	{
+		try
+		{
+			return Files.readAttributes(path, BasicFileAttributes.class);
+		}
+		catch (IOException e)
+		{
+			try
+			{
+				return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			}
+			catch (IOException e2)
+			{
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Make source that mounts folder
+	 *
+	 * @param dir folder
+	 * @return source (url-encoded as mount point urls are)
+	 */
+	@NonNull
+	static private String makeMountSource(@NonNull final Path dir)
+	{
+		@NonNull final String source = dir.toString();
+		try
+		{
+			return URLEncoder.encode(source, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			return source;
+		}
+	}
+
 	// N O D E . F A C T O R Y
 
 	/**
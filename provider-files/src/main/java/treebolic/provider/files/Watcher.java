@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.provider.files;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.model.INode;
+import treebolic.model.MountPoint;
+import treebolic.model.TreeMutableNode;
+import treebolic.provider.IUpdateContext;
+
+/**
+ * Folder watcher, keeps the nodes of walked folders up to date with file system changes. Events are gathered until the file system is quiet, changed
+ * folders are then listed again, and the context is updated once for the whole batch, only the changed folders being balanced again.
+ *
+ * @author Bernard Bou
+ */
+public class Watcher implements Runnable
+{
+	/**
+	 * Quiet delay (ms) that ends a batch of events
+	 */
+	static private final long QUIET_DELAY = 200;
+
+	/**
+	 * Maximum delay (ms) a batch of events is held
+	 */
+	static private final long MAX_DELAY = 1000;
+
+	/**
+	 * Watched folder
+	 */
+	static class Folder
+	{
+		/**
+		 * Folder path
+		 */
+		@NonNull
+		final Path path;
+
+		/**
+		 * Folder node
+		 */
+		@NonNull
+		final TreeMutableNode node;
+
+		/**
+		 * Remaining levels to walk, negative if no limit
+		 */
+		final int remaining;
+
+		/**
+		 * Entry nodes by name, null until folder has been listed
+		 */
+		@Nullable
+		volatile Map<Path, INode> entries;
+
+		/**
+		 * Names of entries that are folders
+		 */
+		@NonNull
+		Set<Path> subfolders = new HashSet<>();
+
+		/**
+		 * Names of entries reported as modified since folder was last listed
+		 */
+		@NonNull
+		final Set<Path> modified = new HashSet<>();
+
+		/**
+		 * Constructor
+		 *
+		 * @param path      folder path
+		 * @param node      folder node
+		 * @param remaining remaining levels to walk, negative if no limit
+		 */
+		Folder(@NonNull final Path path, @NonNull final TreeMutableNode node, final int remaining)
+		{
+			this.path = path;
+			this.node = node;
+			this.remaining = remaining;
+		}
+	}
+
+	/**
+	 * Provider that makes nodes
+	 */
+	@NonNull
+	private final Provider provider;
+
+	/**
+	 * Context to update
+	 */
+	@NonNull
+	private final IUpdateContext context;
+
+	/**
+	 * Watch service
+	 */
+	@NonNull
+	private final WatchService service;
+
+	/**
+	 * Watched folders by key
+	 */
+	@NonNull
+	private final Map<WatchKey, Folder> folders = new HashMap<>();
+
+	/**
+	 * Watching thread
+	 */
+	@Nullable
+	private Thread thread;
+
+	/**
+	 * Constructor
+	 *
+	 * @param provider provider that makes nodes
+	 * @param context  context to update
+	 * @throws IOException if watch service cannot be created
+	 */
+	Watcher(@NonNull final Provider provider, @NonNull final IUpdateContext context) throws IOException
+	{
+		this.provider = provider;
+		this.context = context;
+		this.service = FileSystems.getDefault().newWatchService();
+	}
+
+	// R E G I S T E R
+
+	/**
+	 * Start watching folder, to be called before folder is listed so that no change is missed
+	 *
+	 * @param path      folder path
+	 * @param node      folder node
+	 * @param remaining remaining levels to walk, negative if no limit
+	 * @return watched folder, null if folder cannot be watched
+	 */
+	@Nullable
+	synchronized Folder watch(@NonNull final Path path, @NonNull final TreeMutableNode node, final int remaining)
+	{
+		try
+		{
+			@NonNull final WatchKey key = path.register(this.service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+			@NonNull final Folder folder = new Folder(path, node, remaining);
+			this.folders.put(key, folder);
+			return folder;
+		}
+		catch (IOException | ClosedWatchServiceException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Set listed entries of watched folder
+	 *
+	 * @param folder     watched folder
+	 * @param entries    entry nodes by name, in listing order
+	 * @param subfolders names of entries that are folders
+	 */
+	void listed(@NonNull final Folder folder, @NonNull final Map<Path, INode> entries, @NonNull final Set<Path> subfolders)
+	{
+		folder.subfolders = subfolders;
+		folder.entries = entries;
+	}
+
+	/**
+	 * Stop watching folders at or under path
+	 *
+	 * @param path path
+	 */
+	private synchronized void unwatch(@NonNull final Path path)
+	{
+		@NonNull final Iterator<Map.Entry<WatchKey, Folder>> iterator = this.folders.entrySet().iterator();
+		while (iterator.hasNext())
+		{
+			@NonNull final Map.Entry<WatchKey, Folder> entry = iterator.next();
+			if (entry.getValue().path.startsWith(path))
+			{
+				entry.getKey().cancel();
+				iterator.remove();
+			}
+		}
+	}
+
+	// L I F E C Y C L E
+
+	/**
+	 * Start watching thread
+	 */
+	synchronized void start()
+	{
+		if (this.thread == null)
+		{
+			this.thread = new Thread(this, "treebolic-watcher");
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+	}
+
+	/**
+	 * Stop watching
+	 */
+	synchronized void stop()
+	{
+		try
+		{
+			this.service.close();
+		}
+		catch (IOException e)
+		{
+			// do nothing
+		}
+		if (this.thread != null)
+		{
+			this.thread.interrupt();
+			this.thread = null;
+		}
+		this.folders.clear();
+	}
+
+	// W A T C H
+
+	@Override
+	public void run()
+	{
+		@NonNull final Set<Folder> changed = new LinkedHashSet<>();
+		try
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				// wait for first event (or retry folders pending listing), then gather events until quiet
+				@Nullable WatchKey key = changed.isEmpty() ? this.service.take() : this.service.poll(QUIET_DELAY, TimeUnit.MILLISECONDS);
+				final long start = System.currentTimeMillis();
+				while (key != null)
+				{
+					collect(key, changed);
+					if (System.currentTimeMillis() - start >= MAX_DELAY)
+					{
+						break;
+					}
+					key = this.service.poll(QUIET_DELAY, TimeUnit.MILLISECONDS);
+				}
+
+				// apply batch
+				apply(changed);
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e)
+		{
+			// stopped
+		}
+	}
+
+	/**
+	 * Collect key's events
+	 *
+	 * @param key     signalled key
+	 * @param changed changed folders, to add to
+	 */
+	private void collect(@NonNull final WatchKey key, @NonNull final Set<Folder> changed)
+	{
+		@Nullable final Folder folder;
+		synchronized (this)
+		{
+			folder = this.folders.get(key);
+		}
+		for (@NonNull final WatchEvent<?> event : key.pollEvents())
+		{
+			if (folder != null && event.kind() == StandardWatchEventKinds.ENTRY_MODIFY)
+			{
+				folder.modified.add((Path) event.context());
+			}
+		}
+		if (!key.reset())
+		{
+			// folder is gone
+			synchronized (this)
+			{
+				this.folders.remove(key);
+			}
+			return;
+		}
+		if (folder != null)
+		{
+			changed.add(folder);
+		}
+	}
+
+	/**
+	 * Apply batch of changes : list changed folders again and update context once
+	 *
+	 * @param changed changed folders, those that have not been listed yet being kept for next batch
+	 */
+	private void apply(@NonNull final Set<Folder> changed)
+	{
+		@NonNull final List<INode> branches = new ArrayList<>();
+		@NonNull final List<Runnable> changes = new ArrayList<>();
+		@NonNull final Iterator<Folder> iterator = changed.iterator();
+		while (iterator.hasNext())
+		{
+			@NonNull final Folder folder = iterator.next();
+			if (folder.entries == null)
+			{
+				continue;
+			}
+			iterator.remove();
+
+			@Nullable final Runnable change = relist(folder);
+			if (change != null)
+			{
+				branches.add(folder.node);
+				changes.add(change);
+			}
+		}
+		if (!branches.isEmpty())
+		{
+			this.context.update(branches, () -> {
+				for (@NonNull final Runnable change : changes)
+				{
+					change.run();
+				}
+			});
+		}
+	}
+
+	/**
+	 * List folder again, making nodes for new and modified entries only
+	 *
+	 * @param folder watched folder
+	 * @return change to apply to folder node, null if there is none
+	 */
+	@Nullable
+	private Runnable relist(@NonNull final Folder folder)
+	{
+		@Nullable final Map<Path, INode> entries0 = folder.entries;
+		assert entries0 != null;
+
+		// list
+		@NonNull final List<Path> names = new ArrayList<>();
+		@NonNull final List<Path> paths = new ArrayList<>();
+		@NonNull final List<BasicFileAttributes> attributes = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.path))
+		{
+			for (final Path child : stream)
+			{
+				@Nullable final BasicFileAttributes childAttributes = Provider.readAttributes(child);
+				if (childAttributes != null)
+				{
+					names.add(child.getFileName());
+					paths.add(child);
+					attributes.add(childAttributes);
+				}
+			}
+		}
+		catch (IOException | DirectoryIteratorException e)
+		{
+			// folder is gone, its parent is notified
+			folder.modified.clear();
+			return null;
+		}
+
+		// new, replaced or modified entries
+		@NonNull final List<Integer> made = new ArrayList<>();
+		@NonNull final List<Path> madePaths = new ArrayList<>();
+		@NonNull final List<BasicFileAttributes> madeAttributes = new ArrayList<>();
+		@NonNull final Set<Path> subfolders = new HashSet<>();
+		for (int i = 0; i < names.size(); i++)
+		{
+			@NonNull final Path name = names.get(i);
+			final boolean isFolder = attributes.get(i).isDirectory();
+			if (isFolder)
+			{
+				subfolders.add(name);
+			}
+			final boolean isKept = entries0.containsKey(name) && (isFolder ? folder.subfolders.contains(name) : !folder.subfolders.contains(name) && !folder.modified.contains(name));
+			if (!isKept)
+			{
+				made.add(i);
+				madePaths.add(paths.get(i));
+				madeAttributes.add(attributes.get(i));
+			}
+		}
+		folder.modified.clear();
+
+		// removed entries
+		boolean isChanged = !made.isEmpty();
+		@NonNull final Set<Path> nameSet = new HashSet<>(names);
+		for (@NonNull final Path name : entries0.keySet())
+		{
+			if (!nameSet.contains(name))
+			{
+				isChanged = true;
+				if (folder.subfolders.contains(name))
+				{
+					unwatch(folder.path.resolve(name));
+				}
+			}
+		}
+		if (!isChanged)
+		{
+			return null;
+		}
+
+		// make nodes, walking new folders
+		final int childRemaining = folder.remaining > 0 ? folder.remaining - 1 : folder.remaining;
+		@NonNull final List<INode> madeNodes = this.provider.makeNodes(madePaths, madeAttributes, childRemaining);
+		@NonNull final INode[] nodes = new INode[names.size()];
+		for (int j = 0; j < made.size(); j++)
+		{
+			nodes[made.get(j)] = madeNodes.get(j);
+		}
+		@NonNull final Map<Path, INode> entries = new LinkedHashMap<>();
+		for (int i = 0; i < names.size(); i++)
+		{
+			@NonNull final Path name = names.get(i);
+			entries.put(name, nodes[i] != null ? nodes[i] : entries0.get(name));
+		}
+		folder.subfolders = subfolders;
+		folder.entries = entries;
+
+		// change, applied by context
+		@NonNull final List<INode> childNodes = new ArrayList<>(entries.values());
+		@Nullable final BasicFileAttributes folderAttributes = Provider.readAttributes(folder.path);
+		@Nullable final String content = folderAttributes == null ? null : Provider.makeFolderContent(folder.path, folderAttributes, childNodes.size());
+		return () -> {
+			// mounted subfolders stay mounted
+			@NonNull final List<INode> displayedNodes = new ArrayList<>(childNodes.size());
+			for (@NonNull final INode childNode : childNodes)
+			{
+				displayedNodes.add(MountPoint.follow(childNode, false, true));
+			}
+
+			// balance load
+			folder.node.getChildren().clear();
+			folder.node.addChildren(this.provider.loadBalancer.buildHierarchy(displayedNodes, 0));
+			if (content != null)
+			{
+				folder.node.setContent(content);
+			}
+		};
+	}
+}
@@ -9,10 +9,17 @@
 package treebolic.provider.sql;
 
 import java.io.File;
+import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -136,6 +143,16 @@ public abstract class AbstractProvider< //
          */
         C query(String sql) throws E;
 
+        /**
+         * Reset before database is kept idle for next queries, ending any transaction left open
+         *
+         * @return true if database can be kept
+         */
+        default boolean reset()
+        {
+            return true;
+        }
+
         /**
          * Close
          */
@@ -192,6 +209,21 @@ public abstract class AbstractProvider< //
      */
     private static final String MOUNT_SCHEME = "mount:";
 
+    /**
+     * Subtree root prefix in source
+     */
+    private static final String ROOT_PREFIX = "root:";
+
+    /**
+     * Default subtree depth
+     */
+    static private final int DEFAULT_SUBTREE_DEPTH = 3;
+
+    /**
+     * Connection pool size (pipelined mode): nodes, tree edges, edges, settings
+     */
+    static private final int POOL_SIZE = 4;
+
     /**
      * LoadBalancer : Edge style
      */
@@ -211,6 +243,23 @@ public abstract class AbstractProvider< //
     @NonNull
     private final Hashtable<String, TreeMutableNode> nodesById;
 
+    /**
+     * Idle databases, kept open across queries in pipelined mode, also pool lock (not the provider, which callers may hold while querying)
+     */
+    @NonNull
+    private final Deque<B> idleDatabases;
+
+    /**
+     * Properties idle databases were opened with
+     */
+    @Nullable
+    private Properties idleDatabasesProperties;
+
+    /**
+     * Whether provider has been disposed, released databases being then closed instead of kept idle
+     */
+    private boolean isDisposed;
+
     /**
      * Base
      */
@@ -232,6 +281,7 @@ public abstract class AbstractProvider< //
         this.context = null;
         this.properties = null;
         this.nodesById = new Hashtable<>();
+        this.idleDatabases = new ArrayDeque<>();
     }
 
     /**
@@ -304,6 +354,7 @@ public abstract class AbstractProvider< //
         }
 
         // 2nd part of source
+        this.properties.remove(SqlProperties.SUBTREE_ROOT);
         if (fields.length > 1)
         {
             String path = fields[1];
@@ -314,6 +365,11 @@ public abstract class AbstractProvider< //
                 this.properties.put(SqlProperties.TRUNCATE_NODES, where);
                 this.properties.put(SqlProperties.TRUNCATE_TREEEDGES, where);
             }
+            else if (path.startsWith(ROOT_PREFIX))
+            {
+                // root is subtree root
+                this.properties.put(SqlProperties.SUBTREE_ROOT, path.substring(ROOT_PREFIX.length()));
+            }
         }
 
         // 3rd (empty) part of source stops pruning
@@ -349,6 +405,10 @@ public abstract class AbstractProvider< //
     @Override
     public Model makeModel(final String source, final URL base, @Nullable final Properties parameters)
     {
+        synchronized (this.idleDatabases)
+        {
+            this.isDisposed = false;
+        }
         if (initialize(source, base, parameters))
         {
             return queryModel();
@@ -367,6 +427,88 @@ public abstract class AbstractProvider< //
         return null;
     }
 
+    @Override
+    public void dispose()
+    {
+        synchronized (this.idleDatabases)
+        {
+            this.isDisposed = true;
+            closeIdleDatabases();
+        }
+    }
+
+    // P O O L
+
+    /**
+     * Whether queries are pipelined
+     *
+     * @return true if pipeline property is set
+     */
+    private boolean isPipelined()
+    {
+        assert this.properties != null;
+        return "true".equals(this.properties.getProperty(SqlProperties.PIPELINE));
+    }
+
+    /**
+     * Take database from idle databases, opening one if none is idle. Idle databases opened with other properties are closed.
+     *
+     * @param dbs databases taken so far, to add to
+     * @return database
+     */
+    @NonNull
+    private B takeDatabase(@NonNull final List<B> dbs)
+    {
+        synchronized (this.idleDatabases)
+        {
+            if (this.idleDatabasesProperties != this.properties)
+            {
+                closeIdleDatabases();
+                this.idleDatabasesProperties = this.properties;
+            }
+            B db = this.idleDatabases.poll();
+            if (db == null)
+            {
+                db = openDatabase(this.properties);
+            }
+            dbs.add(db);
+            return db;
+        }
+    }
+
+    /**
+     * Release database, keeping it open for next queries if it is healthy and can be reset, the pool is not full and the provider has not been disposed
+     *
+     * @param db        database
+     * @param isHealthy whether database was used without error
+     */
+    private void releaseDatabase(@NonNull final B db, final boolean isHealthy)
+    {
+        if (isHealthy && db.reset())
+        {
+            synchronized (this.idleDatabases)
+            {
+                if (!this.isDisposed && this.idleDatabasesProperties == this.properties && this.idleDatabases.size() < POOL_SIZE)
+                {
+                    this.idleDatabases.push(db);
+                    return;
+                }
+            }
+        }
+        db.close();
+    }
+
+    /**
+     * Close idle databases, pool lock being held
+     */
+    private void closeIdleDatabases()
+    {
+        for (B db = this.idleDatabases.poll(); db != null; db = this.idleDatabases.poll())
+        {
+            db.close();
+        }
+    }
+
     // H E L P E R
 
     /**
@@ -424,6 +566,15 @@ public abstract class AbstractProvider< //
         this.properties.put("database", makeDatabasePath(this.properties));
         try
         {
+            // pipelined
+            if (isPipelined())
+            {
+                @NonNull final Model model = queryPipelined(true);
+                assert model.settings != null;
+                adjustSettings(model.settings, model.tree);
+                return model;
+            }
+
             // connect
             final B db = openDatabase(this.properties);
 
@@ -432,16 +583,7 @@ public abstract class AbstractProvider< //
 
             // settings
             @NonNull final Settings settings = querySettings(db);
-            final INode root = tree.getRoot();
-            if (root != null)
-            {
-                @Nullable final List<INode> children = root.getChildren();
-                if (children != null && children.size() == 1)
-                {
-                    settings.orientation = "south";
-                    settings.yMoveTo = -0.4F;
-                }
-            }
+            adjustSettings(settings, tree);
 
             // close connection
             db.close();
@@ -457,6 +599,26 @@ public abstract class AbstractProvider< //
         return null;
     }
 
+    /**
+     * Adjust settings to tree
+     *
+     * @param settings settings
+     * @param tree     tree
+     */
+    private void adjustSettings(@NonNull final Settings settings, @NonNull final Tree tree)
+    {
+        final INode root = tree.getRoot();
+        if (root != null)
+        {
+            @Nullable final List<INode> children = root.getChildren();
+            if (children != null && children.size() == 1)
+            {
+                settings.orientation = "south";
+                settings.yMoveTo = -0.4F;
+            }
+        }
+    }
+
     /**
      * Query tree
      *
@@ -467,6 +629,12 @@ public abstract class AbstractProvider< //
     {
         try
         {
+            // pipelined
+            if (isPipelined())
+            {
+                return queryPipelined(false).tree;
+            }
+
             // connect
             final B db = openDatabase(this.properties);
 
@@ -499,37 +667,186 @@ public abstract class AbstractProvider< //
     {
         @NonNull final INode root = queryNodesAndEdges(db);
         @Nullable final List<IEdge> edges = queryEdges(db);
-        return new Tree(root, edges);
+        @NonNull final Tree tree = new Tree(root, edges);
+        tree.setIdIndex(this.nodesById);
+        return tree;
     }
 
     /**
-     * Query nodes
+     * Query tree and, if requested, settings, running independent queries concurrently on pooled connections. Queries that do not depend on nodes are
+     * started first so that the server runs them while nodes are materialized; edges are then read while tree edges are linked. On failure, queries not yet
+     * run are cancelled and cursors left open by the others are closed before databases are released.
+     *
+     * @param withSettings whether to query settings and menu
+     * @return model, with null settings if not requested
+     * @throws Exception exception
+     */
+    @NonNull
+    private Model queryPipelined(final boolean withSettings) throws Exception
+    {
+        @NonNull final ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE - 1, r -> {
+            @NonNull final Thread thread = new Thread(r, "treebolic-sql");
+            thread.setDaemon(true);
+            return thread;
+        });
+        @NonNull final List<B> dbs = new ArrayList<>();
+        @NonNull final List<Future<?>> futures = new ArrayList<>();
+        @NonNull final List<C> cursors = new ArrayList<>();
+        boolean isHealthy = false;
+        try
+        {
+            // independent queries
+            final B treeEdgesDb = takeDatabase(dbs);
+            @NonNull final String treeEdgesSql = makeTreeEdgesQuery();
+            @NonNull final Future<C> treeEdgesCursorFuture = executor.submit(() -> openCursor(treeEdgesDb, treeEdgesSql, cursors));
+            futures.add(treeEdgesCursorFuture);
+            final B edgesDb = takeDatabase(dbs);
+            @NonNull final String edgesSql = makeEdgesQuery();
+            @NonNull final Future<C> edgesCursorFuture = executor.submit(() -> openCursor(edgesDb, edgesSql, cursors));
+            futures.add(edgesCursorFuture);
+            @Nullable Future<Settings> settingsFuture = null;
+            if (withSettings)
+            {
+                final B settingsDb = takeDatabase(dbs);
+                settingsFuture = executor.submit(() -> querySettings(settingsDb));
+                futures.add(settingsFuture);
+            }
+
+            // nodes
+            final B nodesDb = takeDatabase(dbs);
+            final C nodesCursor = openCursor(nodesDb, makeNodesQuery(), cursors);
+            readNodes(nodesCursor);
+            closeCursor(nodesCursor, cursors);
+
+            // edges, while tree edges are linked
+            @NonNull final Future<List<IEdge>> edgesFuture = executor.submit(() -> {
+                final C edgesCursor = edgesCursorFuture.get();
+                try
+                {
+                    return readEdges(edgesCursor);
+                }
+                finally
+                {
+                    closeCursor(edgesCursor, cursors);
+                }
+            });
+            futures.add(edgesFuture);
+
+            // tree edges
+            final C treeEdgesCursor = treeEdgesCursorFuture.get();
+            @NonNull final Set<TreeMutableNode> frontierNodes = readTreeEdges(treeEdgesCursor);
+            closeCursor(treeEdgesCursor, cursors);
+            @NonNull final INode root = makeRoot(frontierNodes);
+
+            // join
+            @NonNull final Tree tree = new Tree(root, edgesFuture.get());
+            tree.setIdIndex(this.nodesById);
+            @Nullable final Settings settings = settingsFuture == null ? null : settingsFuture.get();
+            isHealthy = true;
+            return new Model(tree, settings);
+        }
+        catch (ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+        finally
+        {
+            // cancel queries not yet run, wait for running ones to return their cursor, then close cursors left open
+            for (@NonNull final Future<?> future : futures)
+            {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            try
+            {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (cursors)
+            {
+                for (@NonNull final C cursor : cursors)
+                {
+                    cursor.close();
+                }
+                cursors.clear();
+            }
+            for (final B db : dbs)
+            {
+                releaseDatabase(db, isHealthy);
+            }
+        }
+    }
+
+    /**
+     * Open cursor, recording it as open
+     *
+     * @param db      database
+     * @param sql     sql statement
+     * @param cursors open cursors, to add to
+     * @return cursor
+     * @throws E exception
+     */
+    private C openCursor(@NonNull final B db, @NonNull final String sql, @NonNull final List<C> cursors) throws E
+    {
+        final C cursor = db.query(sql);
+        synchronized (cursors)
+        {
+            cursors.add(cursor);
+        }
+        return cursor;
+    }
+
+    /**
+     * Close cursor recorded as open
+     *
+     * @param cursor  cursor
+     * @param cursors open cursors, to remove from
+     */
+    private void closeCursor(@NonNull final C cursor, @NonNull final List<C> cursors)
+    {
+        synchronized (cursors)
+        {
+            cursors.remove(cursor);
+        }
+        cursor.close();
+    }
+
+    /**
+     * Query nodes and tree edges
      *
      * @param db connection
      * @return tree root node
      * @throws E exception
      */
     @NonNull
-    @SuppressWarnings("boxing")
     private MutableNode queryNodesAndEdges(@NonNull final B db) throws E
     {
-        assert this.properties != null;
-
-        // request type
-        boolean prune = (Boolean) this.properties.get(SqlProperties.PRUNE);
-        boolean balanceLoad = !this.properties.containsKey(SqlProperties.BALANCE_LOAD) || "true".equals(this.properties.get(SqlProperties.BALANCE_LOAD));
+        // nodes
+        final C nodesCursor = db.query(makeNodesQuery());
+        readNodes(nodesCursor);
+        nodesCursor.close();
 
-        // sql
-        String nodesSql = this.properties.getProperty("nodesSql", AbstractProvider.DEFAULT_NODES_SQL);
-        nodesSql = narrowNodeSql(nodesSql, prune);
-        nodesSql = macroExpand(nodesSql);
-        System.out.println(nodesSql);
+        // tree edges
+        final C treeEdgesCursor = db.query(makeTreeEdgesQuery());
+        @NonNull final Set<TreeMutableNode> frontierNodes = readTreeEdges(treeEdgesCursor);
+        treeEdgesCursor.close();
 
-        String treeEdgesSql = this.properties.getProperty("treeEdgesSql", AbstractProvider.DEFAULT_TREEEDGES_SQL);
-        treeEdgesSql = narrowTreeEdgeSql(treeEdgesSql, prune);
-        treeEdgesSql = macroExpand(treeEdgesSql);
-        System.out.println(treeEdgesSql);
+        return makeRoot(frontierNodes);
+    }
 
+    /**
+     * Read nodes
+     *
+     * @param nodesCursor nodes cursor
+     * @throws E exception
+     */
+    @SuppressWarnings("boxing")
+    private void readNodes(@NonNull final C nodesCursor) throws E
+    {
         // field names
         @NonNull final String idName = getName("nodes.id");
         @NonNull final String labelName = getName("nodes.label");
@@ -542,23 +859,21 @@ public abstract class AbstractProvider< //
         @NonNull final String weightName = getName("nodes.weight");
         @NonNull final String mountpointName = getName("nodes.mountpoint");
 
-        @NonNull final String fromName = getName("edges.from");
-        @NonNull final String toName = getName("edges.to");
-        @NonNull final String edgeLabelName = getName("edges.label");
-        @NonNull final String edgeImageName = getName("edges.image");
-        @NonNull final String edgeColorName = getName("edges.color");
-        @NonNull final String edgeLineName = getName("edges.line");
-        @NonNull final String edgeHiddenName = getName("edges.hidden");
-        @NonNull final String edgeStrokeName = getName("edges.stroke");
-        @NonNull final String edgeFromTerminatorName = getName("edges.fromterminator");
-        @NonNull final String edgeToTerminatorName = getName("edges.toterminator");
-
         // id to node map
         this.nodesById.clear();
 
         // N O D E S
-        final C nodesCursor = db.query(nodesSql);
         final int idIndex = nodesCursor.getColumnIndex(idName);
+        final int labelIndex = bind(nodesCursor, labelName);
+        final int contentIndex = bind(nodesCursor, contentName);
+        final int backcolorIndex = bind(nodesCursor, backcolorName);
+        final int forecolorIndex = bind(nodesCursor, forecolorName);
+        final int imageIndex = bind(nodesCursor, imageName);
+        final int linkIndex = bind(nodesCursor, linkName);
+        final int targetIndex = bind(nodesCursor, targetName);
+        final int weightIndex = bind(nodesCursor, weightName);
+        final int mountpointIndex = bind(nodesCursor, mountpointName);
+        final int nowIndex = bind(nodesCursor, "now");
         while (nodesCursor.moveToNext())
         {
             // read id
@@ -574,39 +889,70 @@ public abstract class AbstractProvider< //
             this.nodesById.put(id, node);
 
             // data
-            node.setLabel(readString(nodesCursor, labelName));
-            node.setContent(readString(nodesCursor, contentName));
-            node.setBackColor(readColor(nodesCursor, backcolorName));
-            node.setForeColor(readColor(nodesCursor, forecolorName));
-            node.setImageFile(readString(nodesCursor, imageName));
-            node.setLink(readString(nodesCursor, linkName));
-            node.setTarget(readString(nodesCursor, targetName));
-            @Nullable final Double weight = readDouble(nodesCursor, weightName);
+            node.setLabel(readString(nodesCursor, labelIndex));
+            node.setContent(readString(nodesCursor, contentIndex));
+            node.setBackColor(readColor(nodesCursor, backcolorIndex));
+            node.setForeColor(readColor(nodesCursor, forecolorIndex));
+            node.setImageFile(readString(nodesCursor, imageIndex));
+            node.setLink(readString(nodesCursor, linkIndex));
+            node.setTarget(readString(nodesCursor, targetIndex));
+            @Nullable final Double weight = readDouble(nodesCursor, weightIndex);
             if (weight != null)
             {
                 node.setWeight(-weight);
             }
 
             // mountpoint
-            @Nullable final String value = readString(nodesCursor, mountpointName);
+            @Nullable final String value = readString(nodesCursor, mountpointIndex);
             if (value != null)
             {
                 @NonNull final MountPoint.Mounting mountPoint = new MountPoint.Mounting();
                 mountPoint.url = value;
                 node.setMountPoint(mountPoint);
-                @Nullable final Boolean now = readBoolean(nodesCursor, "now");
+                @Nullable final Boolean now = readBoolean(nodesCursor, nowIndex);
                 if (now != null && now)
                 {
                     System.err.println("Sql queryNodes: Recursive mounting not implemented");
                 }
             }
         }
-        nodesCursor.close();
+    }
+
+    /**
+     * Read tree edges and link nodes
+     *
+     * @param treeEdgesCursor tree edges cursor
+     * @return nodes whose children were not fetched (subtree frontier)
+     * @throws E exception
+     */
+    @NonNull
+    private Set<TreeMutableNode> readTreeEdges(@NonNull final C treeEdgesCursor) throws E
+    {
+        // field names
+        @NonNull final String fromName = getName("edges.from");
+        @NonNull final String toName = getName("edges.to");
+        @NonNull final String edgeLabelName = getName("edges.label");
+        @NonNull final String edgeImageName = getName("edges.image");
+        @NonNull final String edgeColorName = getName("edges.color");
+        @NonNull final String edgeLineName = getName("edges.line");
+        @NonNull final String edgeHiddenName = getName("edges.hidden");
+        @NonNull final String edgeStrokeName = getName("edges.stroke");
+        @NonNull final String edgeFromTerminatorName = getName("edges.fromterminator");
+        @NonNull final String edgeToTerminatorName = getName("edges.toterminator");
+        final boolean isSubtree = isSubtree();
 
         // T R E E . E D G E S
-        final C treeEdgesCursor = db.query(treeEdgesSql);
+        @NonNull final Set<TreeMutableNode> frontierNodes = new HashSet<>();
         final int fromIndex = treeEdgesCursor.getColumnIndex(fromName);
         final int toIndex = treeEdgesCursor.getColumnIndex(toName);
+        final int edgeLabelIndex = bind(treeEdgesCursor, edgeLabelName);
+        final int edgeImageIndex = bind(treeEdgesCursor, edgeImageName);
+        final int edgeColorIndex = bind(treeEdgesCursor, edgeColorName);
+        final int edgeLineIndex = bind(treeEdgesCursor, edgeLineName);
+        final int edgeHiddenIndex = bind(treeEdgesCursor, edgeHiddenName);
+        final int edgeStrokeIndex = bind(treeEdgesCursor, edgeStrokeName);
+        final int edgeFromTerminatorIndex = bind(treeEdgesCursor, edgeFromTerminatorName);
+        final int edgeToTerminatorIndex = bind(treeEdgesCursor, edgeToTerminatorName);
         while (treeEdgesCursor.moveToNext())
         {
             // from/to ids
@@ -631,6 +977,20 @@ public abstract class AbstractProvider< //
                 continue;
             }
 
+            // child not fetched
+            if (toNode == null)
+            {
+                if (isSubtree)
+                {
+                    frontierNodes.add(fromNode);
+                }
+                else
+                {
+                    System.err.println("Sql queryNodes: " + treeEdgesCursor.getPosition() + "th tree edge record with not found to-node : to-id=<" + toId + ">");
+                }
+                continue;
+            }
+
             // make tree
             if (fromNode != null)
             {
@@ -640,16 +1000,42 @@ public abstract class AbstractProvider< //
             toNode.setParent(fromNode);
 
             // data
-            toNode.setEdgeLabel(readString(treeEdgesCursor, edgeLabelName));
-            toNode.setEdgeImageFile(readString(treeEdgesCursor, edgeImageName));
-            toNode.setEdgeColor(readColor(treeEdgesCursor, edgeColorName));
-            @Nullable final Boolean lineFlag = readBoolean(treeEdgesCursor, edgeLineName);
-            @Nullable final Boolean hiddenFlag = readBoolean(treeEdgesCursor, edgeHiddenName);
-            toNode.setEdgeStyle(Utils.parseStyle(readString(treeEdgesCursor, edgeStrokeName), readString(treeEdgesCursor, edgeFromTerminatorName), readString(treeEdgesCursor, edgeToTerminatorName), lineFlag == null ?
+            toNode.setEdgeLabel(readString(treeEdgesCursor, edgeLabelIndex));
+            toNode.setEdgeImageFile(readString(treeEdgesCursor, edgeImageIndex));
+            toNode.setEdgeColor(readColor(treeEdgesCursor, edgeColorIndex));
+            @Nullable final Boolean lineFlag = readBoolean(treeEdgesCursor, edgeLineIndex);
+            @Nullable final Boolean hiddenFlag = readBoolean(treeEdgesCursor, edgeHiddenIndex);
+            toNode.setEdgeStyle(Utils.parseStyle(readString(treeEdgesCursor, edgeStrokeIndex), readString(treeEdgesCursor, edgeFromTerminatorIndex), readString(treeEdgesCursor, edgeToTerminatorIndex), lineFlag == null ?
                     null :
                     lineFlag.toString(), hiddenFlag == null ? null : hiddenFlag.toString()));
         }
-        treeEdgesCursor.close();
+        return frontierNodes;
+    }
+
+    /**
+     * Make root, once nodes are linked
+     *
+     * @param frontierNodes nodes whose children were not fetched
+     * @return tree root node
+     */
+    @NonNull
+    private MutableNode makeRoot(@NonNull final Set<TreeMutableNode> frontierNodes)
+    {
+        assert this.properties != null;
+
+        // request type
+        boolean balanceLoad = !this.properties.containsKey(SqlProperties.BALANCE_LOAD) || "true".equals(this.properties.get(SqlProperties.BALANCE_LOAD));
+
+        // nodes whose children lie below subtree depth are mounted on demand
+        for (@NonNull final TreeMutableNode frontierNode : frontierNodes)
+        {
+            if (frontierNode.getChildren().isEmpty() && frontierNode.getMountPoint() == null)
+            {
+                @NonNull final MountPoint.Mounting mountPoint = new MountPoint.Mounting();
+                mountPoint.url = makeSubtreeSource(frontierNode.getId());
+                frontierNode.setMountPoint(mountPoint);
+            }
+        }
 
         // scan nodes for orphans
         @NonNull final List<TreeMutableNode> parentLessNodes = new ArrayList<>();
@@ -732,17 +1118,22 @@ public abstract class AbstractProvider< //
     @Nullable
     private List<IEdge> queryEdges(@NonNull final B db) throws E
     {
-        assert this.properties != null;
-
-        // request type
-        boolean prune = (Boolean) this.properties.get(SqlProperties.PRUNE);
-
-        // sql
-        String edgesSql = this.properties.getProperty("edgesSql", AbstractProvider.DEFAULT_EDGES_SQL);
-        edgesSql = narrowEdgeSql(edgesSql, prune);
-        edgesSql = macroExpand(edgesSql);
-        System.out.println(edgesSql);
+        final C edgesCursor = db.query(makeEdgesQuery());
+        @Nullable final List<IEdge> edgeList = readEdges(edgesCursor);
+        edgesCursor.close();
+        return edgeList;
+    }
 
+    /**
+     * Read edges
+     *
+     * @param edgesCursor edges cursor
+     * @return edge list
+     * @throws E exception
+     */
+    @Nullable
+    private List<IEdge> readEdges(@NonNull final C edgesCursor) throws E
+    {
         // field names
         @NonNull final String fromIdName = getName("edges.from");
         @NonNull final String toIdName = getName("edges.to");
@@ -758,12 +1149,17 @@ public abstract class AbstractProvider< //
         @Nullable List<IEdge> edgeList = null;
 
         // EDGES
-        final C edgesCursor = db.query(edgesSql);
         final int fromIdIndex = edgesCursor.getColumnIndex(fromIdName);
         final int toIdIndex = edgesCursor.getColumnIndex(toIdName);
-        final int edgeStrokeIndex = edgesCursor.getColumnIndex(edgeStrokeName);
-        final int edgeFromTerminatorIndex = edgesCursor.getColumnIndex(edgeFromTerminatorName);
-        final int edgeToTerminatorIndex = edgesCursor.getColumnIndex(edgeToTerminatorName);
+        final int colorIndex = bind(edgesCursor, "color");
+        final int edgeLabelIndex = bind(edgesCursor, edgeLabelName);
+        final int edgeImageIndex = bind(edgesCursor, edgeImageName);
+        final int edgeColorIndex = bind(edgesCursor, edgeColorName);
+        final int edgeLineIndex = bind(edgesCursor, edgeLineName);
+        final int edgeHiddenIndex = bind(edgesCursor, edgeHiddenName);
+        final int edgeStrokeIndex = bind(edgesCursor, edgeStrokeName);
+        final int edgeFromTerminatorIndex = bind(edgesCursor, edgeFromTerminatorName);
+        final int edgeToTerminatorIndex = bind(edgesCursor, edgeToTerminatorName);
         while (edgesCursor.moveToNext())
         {
             // read from/to ids
@@ -786,7 +1182,7 @@ public abstract class AbstractProvider< //
 
             // make edge
             @NonNull final MutableEdge edge = new MutableEdge(fromNode, toNode);
-            edge.setColor(readColor(edgesCursor, "color"));
+            edge.setColor(readColor(edgesCursor, colorIndex));
             if (edgeList == null)
             {
                 edgeList = new ArrayList<>();
@@ -794,16 +1190,15 @@ public abstract class AbstractProvider< //
             edgeList.add(edge);
 
             // attributes
-            edge.setLabel(readString(edgesCursor, edgeLabelName));
-            edge.setImageFile(readString(edgesCursor, edgeImageName));
-            edge.setColor(readColor(edgesCursor, edgeColorName));
-            @Nullable final Boolean lineFlag = readBoolean(edgesCursor, edgeLineName);
-            @Nullable final Boolean hiddenFlag = readBoolean(edgesCursor, edgeHiddenName);
-            edge.setStyle(Utils.parseStyle(edgesCursor.getString(edgeStrokeIndex), edgesCursor.getString(edgeFromTerminatorIndex), edgesCursor.getString(edgeToTerminatorIndex), lineFlag == null ? null : lineFlag.toString(), hiddenFlag == null ?
+            edge.setLabel(readString(edgesCursor, edgeLabelIndex));
+            edge.setImageFile(readString(edgesCursor, edgeImageIndex));
+            edge.setColor(readColor(edgesCursor, edgeColorIndex));
+            @Nullable final Boolean lineFlag = readBoolean(edgesCursor, edgeLineIndex);
+            @Nullable final Boolean hiddenFlag = readBoolean(edgesCursor, edgeHiddenIndex);
+            edge.setStyle(Utils.parseStyle(readString(edgesCursor, edgeStrokeIndex), readString(edgesCursor, edgeFromTerminatorIndex), readString(edgesCursor, edgeToTerminatorIndex), lineFlag == null ? null : lineFlag.toString(), hiddenFlag == null ?
                     null :
                     hiddenFlag.toString()));
         }
-        edgesCursor.close();
         return edgeList;
     }
 
@@ -1002,6 +1397,25 @@ public abstract class AbstractProvider< //
 
     // R E S U L T S E T . H E L P E R S
 
+    /**
+     * Bind column: resolve column index once per cursor so that rows are read by index
+     *
+     * @param cursor record set
+     * @param name   field name
+     * @return column index, -1 if there is no such column
+     */
+    private int bind(@NonNull final C cursor, final String name)
+    {
+        try
+        {
+            return cursor.getColumnIndex(name);
+        }
+        catch (final Exception e)
+        {
+            return -1;
+        }
+    }
+
     /**
      * Read string
      *
@@ -1011,10 +1425,22 @@ public abstract class AbstractProvider< //
      */
     @Nullable
     private String readString(@NonNull final C cursor, final String name)
+    {
+        return readString(cursor, bind(cursor, name));
+    }
+
+    /**
+     * Read string
+     *
+     * @param cursor record set
+     * @param index  bound column index
+     * @return String value
+     */
+    @Nullable
+    private String readString(@NonNull final C cursor, final int index)
     {
         try
         {
-            final int index = cursor.getColumnIndex(name);
             if (index != -1)
             {
                 return cursor.getString(index);
@@ -1039,7 +1465,7 @@ public abstract class AbstractProvider< //
     {
         try
         {
-            final int index = cursor.getColumnIndex(name);
+            final int index = bind(cursor, name);
             if (index != -1 && !cursor.isNull(index))
             {
                 return cursor.getInt(index);
@@ -1061,38 +1487,27 @@ public abstract class AbstractProvider< //
      */
     private float[] readFloats(@NonNull final C cursor, final String name)
     {
-        try
+        @Nullable final String value = readString(cursor, name);
+        if (value != null)
         {
-            final int index = cursor.getColumnIndex(name);
-            if (index != -1)
-            {
-                final String value = cursor.getString(index);
-                if (value != null)
-                {
-                    return Utils.stringToFloats(value);
-                }
-            }
-        }
-        catch (final Exception e)
-        {
-            // do nothing
+            return Utils.stringToFloats(value);
         }
         return null;
     }
 
     /**
-     * Read double
+     * Read float
      *
      * @param cursor record set
      * @param name   field name
-     * @return Double value
+     * @return Float value
      */
     @Nullable
     private Float readFloat(@NonNull final C cursor, final String name)
     {
         try
         {
-            final int index = cursor.getColumnIndex(name);
+            final int index = bind(cursor, name);
             if (index != -1 && !cursor.isNull(index))
             {
                 return cursor.getFloat(index);
@@ -1109,15 +1524,14 @@ public abstract class AbstractProvider< //
      * Read double
      *
      * @param cursor record set
-     * @param name   field name
+     * @param index  bound column index
      * @return Double value
      */
     @Nullable
-    private Double readDouble(@NonNull final C cursor, final String name)
+    private Double readDouble(@NonNull final C cursor, final int index)
     {
         try
         {
-            final int index = cursor.getColumnIndex(name);
             if (index != -1 && !cursor.isNull(index))
             {
                 return cursor.getDouble(index);
@@ -1138,12 +1552,24 @@ public abstract class AbstractProvider< //
      * @return Boolean value
      */
     @Nullable
-    @SuppressWarnings("boxing")
     private Boolean readBoolean(@NonNull final C cursor, final String name)
+    {
+        return readBoolean(cursor, bind(cursor, name));
+    }
+
+    /**
+     * Read boolean
+     *
+     * @param cursor record set
+     * @param index  bound column index
+     * @return Boolean value
+     */
+    @Nullable
+    @SuppressWarnings("boxing")
+    private Boolean readBoolean(@NonNull final C cursor, final int index)
     {
         try
         {
-            final int index = cursor.getColumnIndex(name);
             if (index != -1 && !cursor.isNull(index))
             {
                 return cursor.getInt(index) != 0;
@@ -1160,27 +1586,29 @@ public abstract class AbstractProvider< //
      * Read color
      *
      * @param cursor record set
-     * @param came   field name
+     * @param name   field name
      * @return Color value
      */
     @Nullable
-    private Integer readColor(@NonNull final C cursor, final String came)
+    private Integer readColor(@NonNull final C cursor, final String name)
     {
-        try
-        {
-            final int index = cursor.getColumnIndex(came);
-            if (index != -1)
-            {
-                final String value = cursor.getString(index);
-                if (value != null)
-                {
-                    return Utils.parseColor(value);
-                }
-            }
-        }
-        catch (final Exception e)
+        return readColor(cursor, bind(cursor, name));
+    }
+
+    /**
+     * Read color
+     *
+     * @param cursor record set
+     * @param index  bound column index
+     * @return Color value
+     */
+    @Nullable
+    private Integer readColor(@NonNull final C cursor, final int index)
+    {
+        @Nullable final String value = readString(cursor, index);
+        if (value != null)
         {
-            // do nothing
+            return Utils.parseColor(value);
         }
         return null;
     }
@@ -1284,6 +1712,191 @@ public abstract class AbstractProvider< //
         return narrowSql(sql0, SqlProperties.TRUNCATE_EDGES, prune ? null : SqlProperties.PRUNE_EDGES);
     }
 
+    // S Q L
+
+    /**
+     * Make nodes query
+     *
+     * @return nodes sql statement, narrowed to subtree if any
+     */
+    @NonNull
+    private String makeNodesQuery()
+    {
+        assert this.properties != null;
+        boolean prune = (Boolean) this.properties.get(SqlProperties.PRUNE);
+        String nodesSql = makeNodesSql(prune);
+        @Nullable final String subtreeSql = makeSubtreeSql(nodesSql, makeTreeEdgesSql(prune));
+        if (subtreeSql != null)
+        {
+            nodesSql = subtreeSql + "SELECT n.* FROM (" + nodesSql + ") AS n WHERE n." + quote(getName("nodes.id")) + " IN (SELECT subtree_id FROM subtree)";
+        }
+        System.out.println(nodesSql);
+        return nodesSql;
+    }
+
+    /**
+     * Make tree edges query
+     *
+     * @return tree edges sql statement, narrowed to subtree if any
+     */
+    @NonNull
+    private String makeTreeEdgesQuery()
+    {
+        assert this.properties != null;
+        boolean prune = (Boolean) this.properties.get(SqlProperties.PRUNE);
+        String treeEdgesSql = makeTreeEdgesSql(prune);
+        @Nullable final String subtreeSql = makeSubtreeSql(makeNodesSql(prune), treeEdgesSql);
+        if (subtreeSql != null)
+        {
+            treeEdgesSql = subtreeSql + "SELECT e.* FROM (" + treeEdgesSql + ") AS e WHERE e." + quote(getName("edges.from")) + " IN (SELECT subtree_id FROM subtree)";
+        }
+        System.out.println(treeEdgesSql);
+        return treeEdgesSql;
+    }
+
+    /**
+     * Make edges query
+     *
+     * @return edges sql statement, narrowed to subtree if any
+     */
+    @NonNull
+    private String makeEdgesQuery()
+    {
+        assert this.properties != null;
+        boolean prune = (Boolean) this.properties.get(SqlProperties.PRUNE);
+        String edgesSql = this.properties.getProperty("edgesSql", AbstractProvider.DEFAULT_EDGES_SQL);
+        edgesSql = narrowEdgeSql(edgesSql, prune);
+        edgesSql = macroExpand(edgesSql);
+        @Nullable final String subtreeSql = makeSubtreeSql(makeNodesSql(prune), makeTreeEdgesSql(prune));
+        if (subtreeSql != null)
+        {
+            edgesSql = subtreeSql + "SELECT e.* FROM (" + edgesSql + ") AS e WHERE e." + quote(getName("edges.from")) + " IN (SELECT subtree_id FROM subtree) AND e." + quote(getName("edges.to")) + " IN (SELECT subtree_id FROM subtree)";
+        }
+        System.out.println(edgesSql);
+        return edgesSql;
+    }
+
+    // S U B T R E E
+
+    /**
+     * Whether a subtree is queried
+     *
+     * @return true if a subtree root is set
+     */
+    private boolean isSubtree()
+    {
+        assert this.properties != null;
+        final String rootId = this.properties.getProperty(SqlProperties.SUBTREE_ROOT);
+        return rootId != null && !rootId.isEmpty();
+    }
+
+    /**
+     * Make nodes SQL statement
+     *
+     * @param prune whether to prune
+     * @return nodes sql statement
+     */
+    @NonNull
+    private String makeNodesSql(boolean prune)
+    {
+        assert this.properties != null;
+        final String nodesSql = this.properties.getProperty("nodesSql", AbstractProvider.DEFAULT_NODES_SQL);
+        return macroExpand(narrowNodeSql(nodesSql, prune));
+    }
+
+    /**
+     * Make tree edges SQL statement
+     *
+     * @param prune whether to prune
+     * @return tree edges sql statement
+     */
+    @NonNull
+    private String makeTreeEdgesSql(boolean prune)
+    {
+        assert this.properties != null;
+        final String treeEdgesSql = this.properties.getProperty("treeEdgesSql", AbstractProvider.DEFAULT_TREEEDGES_SQL);
+        return macroExpand(narrowTreeEdgeSql(treeEdgesSql, prune));
+    }
+
+    /**
+     * Make recursive common table expression that yields the ids of the nodes in the subtree under the subtree root, down to subtree depth, as table
+     * subtree(subtree_id, subtree_depth). Nodes and edges statements are used as derived tables so that any statement (and narrowing) applies.
+     *
+     * @param nodesSql     nodes sql statement
+     * @param treeEdgesSql tree edges sql statement
+     * @return WITH clause to prefix statements with, null if no subtree root
+     */
+    @Nullable
+    private String makeSubtreeSql(@NonNull final String nodesSql, @NonNull final String treeEdgesSql)
+    {
+        assert this.properties != null;
+        final String rootId = this.properties.getProperty(SqlProperties.SUBTREE_ROOT);
+        if (rootId == null || rootId.isEmpty())
+        {
+            return null;
+        }
+        int depth = AbstractProvider.DEFAULT_SUBTREE_DEPTH;
+        final String depthValue = this.properties.getProperty(SqlProperties.SUBTREE_DEPTH);
+        if (depthValue != null)
+        {
+            try
+            {
+                depth = Integer.parseInt(depthValue.trim());
+            }
+            catch (NumberFormatException e)
+            {
+                System.err.println("Sql subtree depth: " + depthValue);
+            }
+        }
+
+        return "WITH RECURSIVE subtree(subtree_id, subtree_depth) AS (" + //
+                "SELECT n." + quote(getName("nodes.id")) + ", 0 FROM (" + nodesSql + ") AS n WHERE n." + quote(getName("nodes.id")) + " = '" + rootId.replace("'", "''") + "' " + //
+                "UNION ALL " + //
+                "SELECT e." + quote(getName("edges.to")) + ", s.subtree_depth + 1 FROM (" + treeEdgesSql + ") AS e JOIN subtree AS s ON e." + quote(getName("edges.from")) + " = s.subtree_id WHERE s.subtree_depth < " + depth + //
+                ") ";
+    }
+
+    /**
+     * Make source that mounts the subtree under node
+     *
+     * @param id node id
+     * @return source (url-encoded as mount point urls are)
+     */
+    @NonNull
+    private String makeSubtreeSource(@NonNull final String id)
+    {
+        @NonNull final String source = MOUNT_SCHEME + "," + ROOT_PREFIX + id;
+        try
+        {
+            return URLEncoder.encode(source, "UTF8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            return source;
+        }
+    }
+
+    /**
+     * Reserved words that are likely to be used as column names
+     */
+    static private final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList("from", "to", "order", "group", "key", "level", "user", "value", "table"));
+
+    /**
+     * Quote identifier if it is a reserved word, other identifiers being left as given so that they are case-folded as in user statements
+     *
+     * @param name identifier
+     * @return identifier, quoted if it is a reserved word
+     */
+    @NonNull
+    private static String quote(@NonNull final String name)
+    {
+        if (!RESERVED_WORDS.contains(name.toLowerCase(Locale.ROOT)))
+        {
+            return name;
+        }
+        return '"' + name + '"';
+    }
+
     // C O L U M N S
 
     /**
@@ -69,6 +69,26 @@ public class SqlProperties
 	 */
 	public static final String BALANCE_LOAD = "balance"; 
 
+	/**
+	 * Fetch size (number of rows fetched from the database at a time, 0 for driver default)
+	 */
+	public static final String FETCH_SIZE = "fetchsize";
+
+	/**
+	 * Subtree root id (subtree is extracted server-side with a recursive query)
+	 */
+	public static final String SUBTREE_ROOT = "subtree.root";
+
+	/**
+	 * Subtree depth (nodes below are made mount points)
+	 */
+	public static final String SUBTREE_DEPTH = "subtree.depth";
+
+	/**
+	 * Pipeline (independent queries run concurrently on pooled connections)
+	 */
+	public static final String PIPELINE = "pipeline";
+
 	/**
 	 * Load properties
 	 *
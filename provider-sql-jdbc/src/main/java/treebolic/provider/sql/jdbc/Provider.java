@@ -15,6 +15,7 @@ import java.util.regex.Matcher;
 import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.provider.sql.AbstractProvider;
+import treebolic.provider.sql.SqlProperties;
 
 /**
  * Provider for SQL, JDBC implementation
@@ -60,7 +61,13 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
             }
             try
             {
+                // end read transaction so that a connection kept open for next queries is not left idle in transaction
+                final Connection connection = this.statement.getConnection();
                 this.statement.close();
+                if (!connection.getAutoCommit())
+                {
+                    connection.rollback();
+                }
             }
             catch (SQLException exception)
             {
@@ -127,9 +134,19 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
      */
     static public class JdbcDatabase implements AbstractProvider.Database<JdbcCursor, SQLException>
     {
+        /**
+         * Default fetch size
+         */
+        static private final int DEFAULT_FETCH_SIZE = 1000;
+
         @Nullable
         private Connection connection;
 
+        /**
+         * Fetch size, 0 for driver default
+         */
+        private final int fetchSize;
+
         /**
          * Constructor
          *
@@ -142,6 +159,7 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
             System.out.println("Sql provider URL: " + url);
             final String user = properties.getProperty("user");
             final String passwd = properties.getProperty("passwd");
+            this.fetchSize = parseFetchSize(properties.getProperty(SqlProperties.FETCH_SIZE));
 
             try
             {
@@ -154,6 +172,19 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
                 this.connection = null;
                 System.err.println("Sql exception : " + exception.getMessage());
             }
+
+            // some drivers (PostgreSQL) only fetch rows by batches, instead of buffering the whole result set, outside auto-commit mode
+            if (this.connection != null && this.fetchSize != 0)
+            {
+                try
+                {
+                    this.connection.setAutoCommit(false);
+                }
+                catch (final SQLException exception)
+                {
+                    System.err.println("Sql exception : " + exception.getMessage());
+                }
+            }
         }
 
         @Override
@@ -161,6 +192,17 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
         {
             if (this.connection != null)
             {
+                try
+                {
+                    if (!this.connection.getAutoCommit())
+                    {
+                        this.connection.rollback();
+                    }
+                }
+                catch (SQLException exception)
+                {
+                    exception.printStackTrace();
+                }
                 try
                 {
                     this.connection.close();
@@ -172,6 +214,29 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
             }
         }
 
+        @Override
+        public boolean reset()
+        {
+            if (this.connection == null)
+            {
+                return false;
+            }
+            try
+            {
+                // end read transaction so that an idle connection holds no snapshot or lock (PostgreSQL 'idle in transaction', SQLite read lock)
+                if (!this.connection.getAutoCommit())
+                {
+                    this.connection.rollback();
+                }
+                return true;
+            }
+            catch (SQLException exception)
+            {
+                exception.printStackTrace();
+                return false;
+            }
+        }
+
         @NonNull
         @Override
         public JdbcCursor query(@NonNull final String nodesSql) throws SQLException
@@ -179,8 +244,12 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
             assert this.connection != null;
             try
             {
-                final Statement statement = this.connection.createStatement();
-                final ResultSet resultSet = statement.executeQuery(nodesSql);
+                final PreparedStatement statement = this.connection.prepareStatement(nodesSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                if (this.fetchSize != 0)
+                {
+                    statement.setFetchSize(this.fetchSize);
+                }
+                final ResultSet resultSet = statement.executeQuery();
                 return new JdbcCursor(statement, resultSet);
             }
             catch (SQLException se)
@@ -201,6 +270,29 @@ public class Provider extends AbstractProvider<Provider.JdbcDatabase, Provider.J
 
         // H E L P E R
 
+        /**
+         * Parse fetch size
+         *
+         * @param value property value
+         * @return fetch size, default if not set or not parsable (negative values are passed on as some drivers use them, e.g. MySQL streams rows with
+         * Integer.MIN_VALUE)
+         */
+        static private int parseFetchSize(@Nullable final String value)
+        {
+            if (value != null && !value.isEmpty())
+            {
+                try
+                {
+                    return Integer.parseInt(value.trim());
+                }
+                catch (NumberFormatException exception)
+                {
+                    System.err.println("Sql fetch size : " + value);
+                }
+            }
+            return DEFAULT_FETCH_SIZE;
+        }
+
         /**
          * Make URL
          *
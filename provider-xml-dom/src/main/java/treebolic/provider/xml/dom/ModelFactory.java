@@ -141,7 +141,9 @@ public class ModelFactory
 		// edges
 		@Nullable final List<IEdge> edges = toEdges(document);
 
-		return new Tree(root, edges, mountTasks);
+		@NonNull final Tree tree = new Tree(root, edges, mountTasks);
+		tree.setIdIndex(this.idToNodeMap);
+		return tree;
 	}
 
 	/**
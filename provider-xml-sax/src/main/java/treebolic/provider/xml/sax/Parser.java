@@ -467,7 +467,12 @@ public class Parser
 		@NonNull
 		public Model getResult()
 		{
-			return new Model(new Tree(root, edges, mountTasks), settings, null);
+			@NonNull final Tree tree = new Tree(root, edges, mountTasks);
+			if (nodes != null)
+			{
+				tree.setIdIndex(nodes);
+			}
+			return new Model(tree, settings, null);
 		}
 	}
 
@@ -382,7 +382,12 @@ public class Parser
 				throw new RuntimeException("[" + event.asCharacters().getData() + "] caught: setup filter");
 			}
 		}
-		return new Model(new Tree(root, edges, mountTasks), settings, null);
+		@NonNull final Tree tree = new Tree(root, edges, mountTasks);
+		if (nodes != null)
+		{
+			tree.setIdIndex(nodes);
+		}
+		return new Model(tree, settings, null);
 	}
 
 	/**
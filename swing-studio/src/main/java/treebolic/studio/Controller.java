@@ -1064,7 +1064,7 @@ public class Controller implements IContext, IProviderContext, SelectListener, C
         {
             this.propertyView.setImageRepository(null);
 
-            @NonNull final Model model = new ModelReader(file.getCanonicalPath()).deserialize();
+            @NonNull final Model model = new ModelReader(file.getCanonicalPath()).deserialize(TreeMutableNode::new, TreeMutableEdge::new);
             setModel(model, ModelUtils.makeIdToNodeMap(model));
             update(Mode.DESERIALIZE);
         }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark runner, runs the benchmarks with the GC profiler so that allocation rates are reported. Standard JMH command-line options apply, e.g. {@code -p
+ * shape=BALANCED -p size=10000 PipelineBenchmark.paint}.
+ *
+ * @author Bernard Bou
+ */
+public class Benchmarks
+{
+	/**
+	 * Main
+	 *
+	 * @param args JMH command-line options
+	 * @throws RunnerException            runner exception
+	 * @throws CommandLineOptionException command-line option exception
+	 */
+	public static void main(final String[] args) throws RunnerException, CommandLineOptionException
+	{
+		final Options options = new OptionsBuilder() //
+				.parent(new CommandLineOptions(args)) //
+				.addProfiler(GCProfiler.class) //
+				.jvmArgsAppend("-Djava.awt.headless=true") //
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import treebolic.control.Finder;
+import treebolic.core.LayerOut;
+import treebolic.core.SpatialIndex;
+import treebolic.core.Transformer;
+import treebolic.core.Weigher;
+import treebolic.core.location.Complex;
+import treebolic.core.math.MapperToEuclidean;
+import treebolic.core.transform.HyperTransform;
+import treebolic.core.transform.HyperTranslation;
+import treebolic.glue.Graphics;
+import treebolic.model.INode;
+import treebolic.view.Painter;
+
+/**
+ * Benchmarks of the layout, transform and paint pipeline
+ *
+ * @author Bernard Bou
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark
+{
+	/**
+	 * Width of offscreen image
+	 */
+	static private final int WIDTH = 1280;
+
+	/**
+	 * Height of offscreen image
+	 */
+	static private final int HEIGHT = 1024;
+
+	/**
+	 * Number of probes per hit-test invocation
+	 */
+	static private final int PROBES = 100;
+
+	/**
+	 * Number of frames in transform cycle
+	 */
+	static private final int FRAMES = 100;
+
+	/**
+	 * Tree shape
+	 */
+	@Param({"BALANCED", "CHAIN", "STAR"})
+	public Trees.Shape shape;
+
+	/**
+	 * Tree size
+	 */
+	@Param({"1000", "10000", "100000"})
+	public int size;
+
+	/**
+	 * Nodes, root first
+	 */
+	private List<INode> nodes;
+
+	/**
+	 * Root
+	 */
+	private INode root;
+
+	/**
+	 * Weigher
+	 */
+	private Weigher weigher;
+
+	/**
+	 * Layout agent
+	 */
+	private LayerOut layerOut;
+
+	/**
+	 * Transformer
+	 */
+	private Transformer transformer;
+
+	/**
+	 * Spatial index
+	 */
+	private SpatialIndex index;
+
+	/**
+	 * Transforms of a back-and-forth move, one per frame
+	 */
+	private HyperTransform[] frames;
+
+	/**
+	 * Current frame
+	 */
+	private int frame;
+
+	/**
+	 * Hit-test probes
+	 */
+	private Complex[] probes;
+
+	/**
+	 * Painter
+	 */
+	private Painter painter;
+
+	/**
+	 * Offscreen image
+	 */
+	private BufferedImage image;
+
+	/**
+	 * Build tree, weigh it, lay it out and map it
+	 */
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		System.setProperty("java.awt.headless", "true");
+
+		this.nodes = Trees.make(this.shape, this.size);
+		this.root = this.nodes.get(0);
+		this.weigher = new Weigher();
+		this.layerOut = new LayerOut();
+		this.transformer = new Transformer();
+		this.index = new SpatialIndex();
+		this.transformer.connect(this.index);
+
+		this.weigher.weigh(this.root);
+		this.layerOut.layout(this.root);
+		this.transformer.transform(this.root);
+		this.frames = new HyperTransform[PipelineBenchmark.FRAMES];
+		for (int i = 0; i < PipelineBenchmark.FRAMES; i++)
+		{
+			final double t = .5 * Math.sin(2 * Math.PI * i / PipelineBenchmark.FRAMES);
+			this.frames[i] = new HyperTransform(new HyperTranslation(t, t / 2));
+		}
+
+		final Random random = new Random(0);
+		this.probes = new Complex[PipelineBenchmark.PROBES];
+		for (int i = 0; i < PipelineBenchmark.PROBES; i++)
+		{
+			final double r = Math.sqrt(random.nextDouble()) * .99;
+			final double theta = random.nextDouble() * 2 * Math.PI;
+			this.probes[i] = new Complex(r * Math.cos(theta), r * Math.sin(theta));
+		}
+
+		this.painter = new Painter();
+		this.painter.resetColors();
+		this.image = new BufferedImage(PipelineBenchmark.WIDTH, PipelineBenchmark.HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+
+	/**
+	 * Weigh tree
+	 */
+	@Benchmark
+	public void weigh()
+	{
+		this.weigher.weigh(this.root);
+	}
+
+	/**
+	 * Lay out tree
+	 */
+	@Benchmark
+	public void layout()
+	{
+		this.layerOut.layout(this.root);
+	}
+
+	/**
+	 * Set next frame's transform and transform (and map) the whole tree
+	 */
+	@Benchmark
+	public void transform()
+	{
+		this.frame = (this.frame + 1) % PipelineBenchmark.FRAMES;
+		this.transformer.setTransform(this.frames[this.frame]);
+		this.transformer.transform(this.root);
+	}
+
+	/**
+	 * Map all hyperbolic circles to euclidean circles
+	 *
+	 * @param blackhole blackhole
+	 */
+	@Benchmark
+	public void mapToEuclidean(final Blackhole blackhole)
+	{
+		for (final INode node : this.nodes)
+		{
+			MapperToEuclidean.mapToEuclidean(node.getLocation());
+		}
+		blackhole.consume(this.nodes);
+	}
+
+	/**
+	 * Hit-test by tree traversal
+	 *
+	 * @param blackhole blackhole
+	 */
+	@Benchmark
+	public void hitTestFinder(final Blackhole blackhole)
+	{
+		for (final Complex probe : this.probes)
+		{
+			blackhole.consume(Finder.findNodeAt(this.root, probe, 1F));
+		}
+	}
+
+	/**
+	 * Hit-test by spatial index
+	 *
+	 * @param blackhole blackhole
+	 */
+	@Benchmark
+	public void hitTestIndex(final Blackhole blackhole)
+	{
+		for (final Complex probe : this.probes)
+		{
+			blackhole.consume(this.index.findNodeAt(this.root, probe, 1F));
+		}
+	}
+
+	/**
+	 * Paint tree into offscreen image
+	 */
+	@Benchmark
+	public void paint()
+	{
+		final java.awt.Graphics2D g2 = this.image.createGraphics();
+		try
+		{
+			this.painter.setup(new Graphics(g2), PipelineBenchmark.WIDTH, PipelineBenchmark.HEIGHT);
+			this.painter.paintBackground();
+			this.painter.paint(this.root, null);
+		}
+		finally
+		{
+			g2.dispose();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import treebolic.annotations.NonNull;
+import treebolic.model.INode;
+import treebolic.model.TreeMutableNode;
+
+/**
+ * Synthetic tree factory
+ *
+ * @author Bernard Bou
+ */
+public class Trees
+{
+	/**
+	 * Tree shapes
+	 */
+	public enum Shape
+	{
+		/**
+		 * Balanced tree, each node has the same number of children
+		 */
+		BALANCED,
+
+		/**
+		 * Deep chains hanging from root, at least CHAIN_COUNT of them, more if needed to keep depth within CHAIN_DEPTH
+		 */
+		CHAIN,
+
+		/**
+		 * Root with all other nodes as children
+		 */
+		STAR
+	}
+
+	/**
+	 * Fan-out of balanced trees
+	 */
+	static public final int BALANCED_FANOUT = 4;
+
+	/**
+	 * Minimum number of chains in chain trees
+	 */
+	static public final int CHAIN_COUNT = 8;
+
+	/**
+	 * Maximum depth of chains, weighing and layout recursing once per level, so that the default thread stack suffices
+	 */
+	static public final int CHAIN_DEPTH = 1250;
+
+	/**
+	 * Make tree
+	 *
+	 * @param shape shape
+	 * @param size  number of nodes
+	 * @return nodes, root first
+	 */
+	@NonNull
+	static public List<INode> make(@NonNull final Shape shape, final int size)
+	{
+		@NonNull final List<INode> nodes = new ArrayList<>(size);
+		@NonNull final TreeMutableNode root = makeNode(null, 0);
+		nodes.add(root);
+		final int chainCount = Math.max(Trees.CHAIN_COUNT, (size - 1 + Trees.CHAIN_DEPTH - 1) / Trees.CHAIN_DEPTH);
+		for (int i = 1; i < size; i++)
+		{
+			final INode parent;
+			switch (shape)
+			{
+				case BALANCED:
+					parent = nodes.get((i - 1) / Trees.BALANCED_FANOUT);
+					break;
+				case CHAIN:
+					parent = i <= chainCount ? root : nodes.get(i - chainCount);
+					break;
+				case STAR:
+				default:
+					parent = root;
+					break;
+			}
+			nodes.add(makeNode(parent, i));
+		}
+		return nodes;
+	}
+
+	/**
+	 * Make node
+	 *
+	 * @param parent parent
+	 * @param i      node number
+	 * @return node
+	 */
+	@NonNull
+	static private TreeMutableNode makeNode(final INode parent, final int i)
+	{
+		@NonNull final TreeMutableNode node = new TreeMutableNode(parent, Integer.toString(i));
+		node.setLabel("node " + i);
+		node.setContent("content of node " + i);
+		return node;
+	}
+}
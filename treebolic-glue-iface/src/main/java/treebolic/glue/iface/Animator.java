@@ -23,6 +23,21 @@ public interface Animator<A>
 	@SuppressWarnings("SameReturnValue")
 	boolean run(A animation, @SuppressWarnings("unused") int steps, int startDelay);
 
+	/**
+	 * Run animation with given time slice between ticks. Platforms with no control over time slice ignore it.
+	 *
+	 * @param animation  animation
+	 * @param steps      number of steps
+	 * @param startDelay start delay
+	 * @param timeSlice  time slice between ticks in milliseconds
+	 * @return true if successful
+	 */
+	@SuppressWarnings("SameReturnValue")
+	default boolean run(A animation, int steps, int startDelay, @SuppressWarnings("unused") int timeSlice)
+	{
+		return run(animation, steps, startDelay);
+	}
+
 	/**
 	 * Running status
 	 *
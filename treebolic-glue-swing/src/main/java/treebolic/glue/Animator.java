@@ -45,10 +45,26 @@ public class Animator extends javax.swing.Timer implements java.awt.event.Action
 	 */
 	@Override
 	public boolean run(final ActionListener animation, final int steps, final int startDelay)
+	{
+		return run(animation, steps, startDelay, Animator.ANIMATIONTIMESLICE);
+	}
+
+	/**
+	 * Run animation with given time slice
+	 *
+	 * @param animation  animation callback
+	 * @param steps      number of steps
+	 * @param startDelay start delay
+	 * @param timeSlice  time slice between ticks
+	 * @return true if successful
+	 */
+	@Override
+	public boolean run(final ActionListener animation, final int steps, final int startDelay, final int timeSlice)
 	{
 		this.animation = animation;
 		super.addActionListener(this);
 
+		super.setDelay(timeSlice);
 		super.setInitialDelay(startDelay);
 		super.start();
 		return true;
@@ -192,7 +192,16 @@ public class Graphics implements treebolic.glue.iface.Graphics
 		{
 			return;
 		}
-		final java.awt.Image awtImage = image.image.getScaledInstance(w, h, java.awt.Image.SCALE_FAST);
+		if (w <= 0 || h <= 0)
+		{
+			return;
+		}
+		if (w == image.image.getWidth(null) && h == image.image.getHeight(null))
+		{
+			this.g.drawImage(image.image, x, y, null);
+			return;
+		}
+		final java.awt.Image awtImage = ImageCache.get(image.image, w, h);
 		this.g.drawImage(awtImage, x, y, null);
 	}
 
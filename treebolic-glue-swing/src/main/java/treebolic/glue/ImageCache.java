@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.glue;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+
+/**
+ * Cache of scaled images, least recently used images are evicted when cache size exceeds capacity (in bytes). Scaled images are screen-compatible so that
+ * drawing them is a straight blit.
+ *
+ * @author Bernard Bou
+ */
+public class ImageCache
+{
+	/**
+	 * Default capacity in bytes
+	 */
+	static public final long DEFAULT_CAPACITY = 32L * 1024 * 1024;
+
+	/**
+	 * Cache key (source image identity and target dimensions)
+	 */
+	static private class Key
+	{
+		/**
+		 * Source image
+		 */
+		@NonNull
+		private final java.awt.Image image;
+
+		/**
+		 * Target width
+		 */
+		private final int width;
+
+		/**
+		 * Target height
+		 */
+		private final int height;
+
+		/**
+		 * Constructor
+		 *
+		 * @param image  source image
+		 * @param width  target width
+		 * @param height target height
+		 */
+		Key(@NonNull final java.awt.Image image, final int width, final int height)
+		{
+			this.image = image;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public boolean equals(final Object o)
+		{
+			if (this == o)
+			{
+				return true;
+			}
+			if (o == null || getClass() != o.getClass())
+			{
+				return false;
+			}
+			final Key that = (Key) o;
+			return this.image == that.image && this.width == that.width && this.height == that.height;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (System.identityHashCode(this.image) * 31 + this.width) * 31 + this.height;
+		}
+	}
+
+	/**
+	 * Scaled images, in access order
+	 */
+	@NonNull
+	static private final Map<Key, BufferedImage> cache = new LinkedHashMap<>(64, .75F, true);
+
+	/**
+	 * Capacity in bytes
+	 */
+	static private long capacity = ImageCache.DEFAULT_CAPACITY;
+
+	/**
+	 * Size in bytes
+	 */
+	static private long size = 0;
+
+	/**
+	 * Hit count
+	 */
+	static private long hits = 0;
+
+	/**
+	 * Miss count
+	 */
+	static private long misses = 0;
+
+	/**
+	 * Eviction count
+	 */
+	static private long evictions = 0;
+
+	// A C C E S S
+
+	/**
+	 * Get scaled image
+	 *
+	 * @param image  source image
+	 * @param width  width
+	 * @param height height
+	 * @return scaled image
+	 */
+	@NonNull
+	static public synchronized java.awt.Image get(@NonNull final java.awt.Image image, final int width, final int height)
+	{
+		@NonNull final Key key = new Key(image, width, height);
+		@Nullable BufferedImage scaledImage = ImageCache.cache.get(key);
+		if (scaledImage != null)
+		{
+			ImageCache.hits++;
+			return scaledImage;
+		}
+		ImageCache.misses++;
+
+		// scale
+		scaledImage = ImageCache.scale(image, width, height);
+
+		// uncacheable
+		final long bytes = ImageCache.bytes(scaledImage);
+		if (bytes > ImageCache.capacity)
+		{
+			return scaledImage;
+		}
+
+		// cache
+		ImageCache.cache.put(key, scaledImage);
+		ImageCache.size += bytes;
+		ImageCache.evict();
+		return scaledImage;
+	}
+
+	/**
+	 * Set capacity
+	 *
+	 * @param capacity capacity in bytes
+	 */
+	static public synchronized void setCapacity(final long capacity)
+	{
+		ImageCache.capacity = capacity;
+		ImageCache.evict();
+	}
+
+	/**
+	 * Clear cache
+	 */
+	static public synchronized void clear()
+	{
+		ImageCache.cache.clear();
+		ImageCache.size = 0;
+	}
+
+	// S T A T I S T I C S
+
+	/**
+	 * Get size
+	 *
+	 * @return size in bytes
+	 */
+	static public synchronized long getSize()
+	{
+		return ImageCache.size;
+	}
+
+	/**
+	 * Get hit count
+	 *
+	 * @return hit count
+	 */
+	static public synchronized long getHits()
+	{
+		return ImageCache.hits;
+	}
+
+	/**
+	 * Get miss count
+	 *
+	 * @return miss count
+	 */
+	static public synchronized long getMisses()
+	{
+		return ImageCache.misses;
+	}
+
+	/**
+	 * Get eviction count
+	 *
+	 * @return eviction count
+	 */
+	static public synchronized long getEvictions()
+	{
+		return ImageCache.evictions;
+	}
+
+	// H E L P E R S
+
+	/**
+	 * Evict least recently used images until size fits capacity
+	 */
+	static private void evict()
+	{
+		final Iterator<BufferedImage> it = ImageCache.cache.values().iterator();
+		while (ImageCache.size > ImageCache.capacity && it.hasNext())
+		{
+			ImageCache.size -= ImageCache.bytes(it.next());
+			it.remove();
+			ImageCache.evictions++;
+		}
+	}
+
+	/**
+	 * Scale image to screen-compatible image
+	 *
+	 * @param image  source image
+	 * @param width  width
+	 * @param height height
+	 * @return scaled image
+	 */
+	@NonNull
+	static private BufferedImage scale(@NonNull final java.awt.Image image, final int width, final int height)
+	{
+		@NonNull final BufferedImage scaledImage = GraphicsEnvironment.isHeadless() ? //
+				new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE) : //
+				GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		final Graphics2D g = scaledImage.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return scaledImage;
+	}
+
+	/**
+	 * Size of image in bytes
+	 *
+	 * @param image image
+	 * @return size in bytes
+	 */
+	static private long bytes(@NonNull final BufferedImage image)
+	{
+		return 4L * image.getWidth() * image.getHeight();
+	}
+}
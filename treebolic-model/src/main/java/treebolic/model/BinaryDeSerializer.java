@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.glue.iface.Image;
+
+/**
+ * Binary model deserializer. Nodes and edges are built as they are read, using the given factories, so that the model can be loaded directly into mutable
+ * nodes. See {@link BinarySerializer} for the format.
+ *
+ * @author Bernard Bou
+ */
+@SuppressWarnings("WeakerAccess")
+public class BinaryDeSerializer
+{
+	/**
+	 * Input
+	 */
+	@NonNull
+	private final DataInputStream in;
+
+	/**
+	 * Node factory
+	 */
+	@NonNull
+	private final BiFunction<INode, String, ? extends Node> nodeFactory;
+
+	/**
+	 * Edge factory
+	 */
+	@NonNull
+	private final BiFunction<INode, INode, ? extends Edge> edgeFactory;
+
+	/**
+	 * String table
+	 */
+	@NonNull
+	private final List<String> strings;
+
+	/**
+	 * Image table
+	 */
+	@Nullable
+	private Image[] images;
+
+	/**
+	 * Constructor
+	 *
+	 * @param in input stream
+	 */
+	public BinaryDeSerializer(@NonNull final InputStream in)
+	{
+		this(in, Node::new, Edge::new);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param in          input stream
+	 * @param nodeFactory node factory, called with parent and id
+	 * @param edgeFactory edge factory, called with from-node and to-node
+	 */
+	public BinaryDeSerializer(@NonNull final InputStream in, @NonNull final BiFunction<INode, String, ? extends Node> nodeFactory, @NonNull final BiFunction<INode, INode, ? extends Edge> edgeFactory)
+	{
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		this.nodeFactory = nodeFactory;
+		this.edgeFactory = edgeFactory;
+		this.strings = new ArrayList<>();
+	}
+
+	/**
+	 * Deserialize model
+	 *
+	 * @return model
+	 * @throws IOException            io exception
+	 * @throws ClassNotFoundException class not found exception
+	 */
+	@NonNull
+	public Model deserialize() throws IOException, ClassNotFoundException
+	{
+		// header
+		if (this.in.readInt() != BinarySerializer.MAGIC)
+		{
+			throw new IOException("Not a binary model");
+		}
+		final int version = readVarInt();
+		if (version > BinarySerializer.VERSION)
+		{
+			throw new IOException("Unsupported binary model version " + version);
+		}
+
+		// settings
+		@Nullable final Settings settings = (Settings) readObject();
+
+		// images
+		final int imageCount = readVarInt();
+		this.images = new Image[imageCount];
+		for (int i = 0; i < imageCount; i++)
+		{
+			@NonNull final byte[] bytes = new byte[readVarInt()];
+			this.in.readFully(bytes);
+			try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes)))
+			{
+				this.images[i] = (Image) ois.readObject();
+			}
+		}
+		@Nullable Image[] modelImages = null;
+		final int modelImageCount = readVarInt();
+		if (modelImageCount > 0)
+		{
+			modelImages = new Image[modelImageCount - 1];
+			for (int i = 0; i < modelImages.length; i++)
+			{
+				modelImages[i] = readImageRef();
+			}
+		}
+
+		// nodes
+		final int nodeCount = readVarInt();
+		@NonNull final Node[] nodes = new Node[nodeCount];
+		@NonNull final List<MountTask> mountTasks = new ArrayList<>();
+		for (int i = 0; i < nodeCount; i++)
+		{
+			nodes[i] = readNode(nodes, i, mountTasks);
+		}
+
+		// edges
+		final int edgeCount = readVarInt();
+		@NonNull final List<IEdge> edges = new ArrayList<>(edgeCount);
+		for (int i = 0; i < edgeCount; i++)
+		{
+			edges.add(readEdge(nodes));
+		}
+
+		@NonNull final Tree tree = new Tree(nodeCount == 0 ? null : nodes[0], edges.isEmpty() ? null : edges, mountTasks.isEmpty() ? null : mountTasks);
+		return new Model(tree, settings, modelImages);
+	}
+
+	// N O D E S
+
+	/**
+	 * Read node
+	 *
+	 * @param nodes      nodes read so far
+	 * @param index      node index
+	 * @param mountTasks mount tasks to add to
+	 * @return node
+	 * @throws IOException io exception
+	 */
+	@NonNull
+	private Node readNode(@NonNull final Node[] nodes, final int index, @NonNull final List<MountTask> mountTasks) throws IOException
+	{
+		final int parentDelta = readVarInt();
+		@Nullable final INode parent = parentDelta == 0 ? null : nodes[index - parentDelta];
+		final int fields = readVarInt();
+
+		@Nullable final String id = (fields & BinarySerializer.NODE_ID) != 0 ? readString() : null;
+		@NonNull final Node node = this.nodeFactory.apply(parent, id);
+		if ((fields & BinarySerializer.NODE_LABEL) != 0)
+		{
+			node.label = readString();
+		}
+		if ((fields & BinarySerializer.NODE_CONTENT) != 0)
+		{
+			node.content = readString();
+		}
+		if ((fields & BinarySerializer.NODE_LINK) != 0)
+		{
+			node.link = readString();
+		}
+		if ((fields & BinarySerializer.NODE_TARGET) != 0)
+		{
+			node.target = readString();
+		}
+		if ((fields & BinarySerializer.NODE_BACKCOLOR) != 0)
+		{
+			node.backColor = this.in.readInt();
+		}
+		if ((fields & BinarySerializer.NODE_FORECOLOR) != 0)
+		{
+			node.foreColor = this.in.readInt();
+		}
+		if ((fields & BinarySerializer.NODE_IMAGEFILE) != 0)
+		{
+			node.imageFile = readString();
+		}
+		if ((fields & BinarySerializer.NODE_IMAGEINDEX) != 0)
+		{
+			node.imageIndex = readVarInt();
+		}
+		if ((fields & BinarySerializer.NODE_IMAGE) != 0)
+		{
+			node.setImage(readImageRef());
+		}
+		if ((fields & BinarySerializer.NODE_EDGELABEL) != 0)
+		{
+			node.edgeLabel = readString();
+		}
+		if ((fields & BinarySerializer.NODE_EDGECOLOR) != 0)
+		{
+			node.edgeColor = this.in.readInt();
+		}
+		if ((fields & BinarySerializer.NODE_EDGESTYLE) != 0)
+		{
+			node.edgeStyle = this.in.readInt();
+		}
+		if ((fields & BinarySerializer.NODE_EDGEIMAGEFILE) != 0)
+		{
+			node.edgeImageFile = readString();
+		}
+		if ((fields & BinarySerializer.NODE_EDGEIMAGEINDEX) != 0)
+		{
+			node.edgeImageIndex = readVarInt();
+		}
+		if ((fields & BinarySerializer.NODE_EDGEIMAGE) != 0)
+		{
+			node.setEdgeImage(readImageRef());
+		}
+		if ((fields & BinarySerializer.NODE_WEIGHT) != 0)
+		{
+			node.setWeight(this.in.readDouble());
+		}
+		if ((fields & BinarySerializer.NODE_MOUNTPOINT) != 0)
+		{
+			@NonNull final MountPoint.Mounting mountPoint = new MountPoint.Mounting();
+			mountPoint.url = readOptionalString();
+			final byte now = this.in.readByte();
+			mountPoint.now = now == 0 ? null : now == 2;
+			node.setMountPoint(mountPoint);
+			if (Boolean.TRUE.equals(mountPoint.now))
+			{
+				mountTasks.add(new MountTask(mountPoint, node));
+			}
+		}
+		return node;
+	}
+
+	// E D G E S
+
+	/**
+	 * Read edge
+	 *
+	 * @param nodes nodes
+	 * @return edge
+	 * @throws IOException io exception
+	 */
+	@NonNull
+	private Edge readEdge(@NonNull final Node[] nodes) throws IOException
+	{
+		@NonNull final Node from = nodes[readVarInt()];
+		@NonNull final Node to = nodes[readVarInt()];
+		@NonNull final Edge edge = this.edgeFactory.apply(from, to);
+
+		final int fields = readVarInt();
+		if ((fields & BinarySerializer.EDGE_LABEL) != 0)
+		{
+			edge.label = readString();
+		}
+		if ((fields & BinarySerializer.EDGE_COLOR) != 0)
+		{
+			edge.color = this.in.readInt();
+		}
+		if ((fields & BinarySerializer.EDGE_STYLE) != 0)
+		{
+			edge.style = this.in.readInt();
+		}
+		if ((fields & BinarySerializer.EDGE_IMAGEFILE) != 0)
+		{
+			edge.imageFile = readString();
+		}
+		if ((fields & BinarySerializer.EDGE_IMAGEINDEX) != 0)
+		{
+			edge.imageIndex = readVarInt();
+		}
+		if ((fields & BinarySerializer.EDGE_IMAGE) != 0)
+		{
+			edge.setImage(readImageRef());
+		}
+		return edge;
+	}
+
+	// P R I M I T I V E S
+
+	/**
+	 * Read reference to image table
+	 *
+	 * @return image
+	 * @throws IOException io exception
+	 */
+	@Nullable
+	private Image readImageRef() throws IOException
+	{
+		final int ref = readVarInt();
+		return ref == 0 ? null : this.images[ref - 1];
+	}
+
+	/**
+	 * Read length-prefixed serialized object
+	 *
+	 * @return object
+	 * @throws IOException            io exception
+	 * @throws ClassNotFoundException class not found exception
+	 */
+	@Nullable
+	private Object readObject() throws IOException, ClassNotFoundException
+	{
+		@NonNull final byte[] bytes = new byte[readVarInt()];
+		this.in.readFully(bytes);
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes)))
+		{
+			return ois.readObject();
+		}
+	}
+
+	/**
+	 * Read interned string
+	 *
+	 * @return string
+	 * @throws IOException io exception
+	 */
+	@NonNull
+	private String readString() throws IOException
+	{
+		final int ref = readVarInt();
+		if (ref != 0)
+		{
+			return this.strings.get(ref - 1);
+		}
+		@NonNull final byte[] bytes = new byte[readVarInt()];
+		this.in.readFully(bytes);
+		@NonNull final String string = new String(bytes, StandardCharsets.UTF_8);
+		this.strings.add(string);
+		return string;
+	}
+
+	/**
+	 * Read optional string
+	 *
+	 * @return string or null
+	 * @throws IOException io exception
+	 */
+	@Nullable
+	private String readOptionalString() throws IOException
+	{
+		return this.in.readBoolean() ? readString() : null;
+	}
+
+	/**
+	 * Read unsigned varint
+	 *
+	 * @return value
+	 * @throws IOException io exception
+	 */
+	private int readVarInt() throws IOException
+	{
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			final int b = this.in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+}
@@ -0,0 +1,540 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.glue.iface.Image;
+
+/**
+ * Binary model serializer. The format is compact and streamable:
+ * <ul>
+ * <li>header: magic number, version</li>
+ * <li>settings</li>
+ * <li>image table: each distinct image is stored once (images are deduplicated by identity then by encoded content)</li>
+ * <li>model images, as references to image table</li>
+ * <li>nodes, in depth-first order so that parents come before their children, parent references being varint-encoded backward deltas</li>
+ * <li>edges, endpoints being node indexes</li>
+ * </ul>
+ * Strings (ids, labels, ...) are interned: first occurrence is stored inline, subsequent ones as references to it. Integers are varint-encoded, colors are
+ * stored as packed ARGB ints. Each node and edge record starts with a bit set of the fields it holds, absent fields are not stored.
+ *
+ * @author Bernard Bou
+ */
+@SuppressWarnings("WeakerAccess")
+public class BinarySerializer
+{
+	// F O R M A T
+
+	/**
+	 * Magic number
+	 */
+	static public final int MAGIC = 0x54424D44; // TBMD
+
+	/**
+	 * Format version
+	 */
+	static public final int VERSION = 1;
+
+	// node fields
+	static final int NODE_ID = 0x1;
+	static final int NODE_LABEL = 0x2;
+	static final int NODE_CONTENT = 0x4;
+	static final int NODE_LINK = 0x8;
+	static final int NODE_TARGET = 0x10;
+	static final int NODE_BACKCOLOR = 0x20;
+	static final int NODE_FORECOLOR = 0x40;
+	static final int NODE_IMAGEFILE = 0x80;
+	static final int NODE_IMAGEINDEX = 0x100;
+	static final int NODE_IMAGE = 0x200;
+	static final int NODE_EDGELABEL = 0x400;
+	static final int NODE_EDGECOLOR = 0x800;
+	static final int NODE_EDGESTYLE = 0x1000;
+	static final int NODE_EDGEIMAGEFILE = 0x2000;
+	static final int NODE_EDGEIMAGEINDEX = 0x4000;
+	static final int NODE_EDGEIMAGE = 0x8000;
+	static final int NODE_WEIGHT = 0x10000;
+	static final int NODE_MOUNTPOINT = 0x20000;
+
+	// edge fields
+	static final int EDGE_LABEL = 0x1;
+	static final int EDGE_COLOR = 0x2;
+	static final int EDGE_STYLE = 0x4;
+	static final int EDGE_IMAGEFILE = 0x8;
+	static final int EDGE_IMAGEINDEX = 0x10;
+	static final int EDGE_IMAGE = 0x20;
+
+	// D A T A
+
+	/**
+	 * Output
+	 */
+	@NonNull
+	private final DataOutputStream out;
+
+	/**
+	 * String table
+	 */
+	@NonNull
+	private final Map<String, Integer> strings;
+
+	/**
+	 * Image table, by identity
+	 */
+	@NonNull
+	private final Map<Image, Integer> imagesByIdentity;
+
+	/**
+	 * Node indexes
+	 */
+	@NonNull
+	private final Map<INode, Integer> nodeIndexes;
+
+	/**
+	 * Constructor
+	 *
+	 * @param out output stream
+	 */
+	public BinarySerializer(@NonNull final OutputStream out)
+	{
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.strings = new HashMap<>();
+		this.imagesByIdentity = new IdentityHashMap<>();
+		this.nodeIndexes = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Serialize model
+	 *
+	 * @param model model
+	 * @throws IOException io exception
+	 */
+	public void serialize(@NonNull final Model model) throws IOException
+	{
+		// collect nodes
+		@NonNull final List<INode> nodes = new ArrayList<>();
+		BinarySerializer.collect(model.tree.getRoot(), nodes);
+		@Nullable final List<IEdge> edges = model.tree.getEdges();
+
+		// header
+		this.out.writeInt(BinarySerializer.MAGIC);
+		writeVarInt(BinarySerializer.VERSION);
+
+		// settings
+		writeObject(model.settings);
+
+		// images
+		writeImages(model, nodes, edges);
+		if (model.images == null)
+		{
+			writeVarInt(0);
+		}
+		else
+		{
+			writeVarInt(model.images.length + 1);
+			for (final Image image : model.images)
+			{
+				writeImageRef(image);
+			}
+		}
+
+		// nodes
+		writeVarInt(nodes.size());
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			final INode node = nodes.get(i);
+			this.nodeIndexes.put(node, i);
+			writeNode(node, i);
+		}
+
+		// edges (those whose ends are not in the tree are dropped)
+		@NonNull final List<IEdge> writableEdges = new ArrayList<>();
+		if (edges != null)
+		{
+			for (final IEdge edge : edges)
+			{
+				if (this.nodeIndexes.containsKey(edge.getFrom()) && this.nodeIndexes.containsKey(edge.getTo()))
+				{
+					writableEdges.add(edge);
+				}
+			}
+		}
+		writeVarInt(writableEdges.size());
+		for (final IEdge edge : writableEdges)
+		{
+			writeEdge(edge);
+		}
+		this.out.flush();
+	}
+
+	// N O D E S
+
+	/**
+	 * Collect nodes in depth-first order
+	 *
+	 * @param node  starting node
+	 * @param nodes collected nodes
+	 */
+	static private void collect(@Nullable final INode node, @NonNull final List<INode> nodes)
+	{
+		if (node == null)
+		{
+			return;
+		}
+		nodes.add(node);
+		@Nullable final List<INode> children = node.getChildren();
+		if (children != null)
+		{
+			for (final INode child : children)
+			{
+				BinarySerializer.collect(child, nodes);
+			}
+		}
+	}
+
+	/**
+	 * Write node
+	 *
+	 * @param node  node
+	 * @param index node index
+	 * @throws IOException io exception
+	 */
+	private void writeNode(@NonNull final INode node, final int index) throws IOException
+	{
+		// parent
+		@Nullable final INode parent = node.getParent();
+		@Nullable final Integer parentIndex = parent == null ? null : this.nodeIndexes.get(parent);
+		writeVarInt(parentIndex == null ? 0 : index - parentIndex);
+
+		// mountpoint (mounted subtrees are stored as plain subtrees)
+		@Nullable final MountPoint mountPoint = node.getMountPoint();
+		//noinspection InstanceofConcreteClass
+		@Nullable final MountPoint.Mounting mountingPoint = mountPoint instanceof MountPoint.Mounting ? (MountPoint.Mounting) mountPoint : null;
+
+		// fields
+		int fields = 0;
+		fields |= node.getId() != null ? BinarySerializer.NODE_ID : 0;
+		fields |= node.getLabel() != null ? BinarySerializer.NODE_LABEL : 0;
+		fields |= node.getContent() != null ? BinarySerializer.NODE_CONTENT : 0;
+		fields |= node.getLink() != null ? BinarySerializer.NODE_LINK : 0;
+		fields |= node.getTarget() != null ? BinarySerializer.NODE_TARGET : 0;
+		fields |= node.getBackColor() != null ? BinarySerializer.NODE_BACKCOLOR : 0;
+		fields |= node.getForeColor() != null ? BinarySerializer.NODE_FORECOLOR : 0;
+		fields |= node.getImageFile() != null ? BinarySerializer.NODE_IMAGEFILE : 0;
+		fields |= node.getImageIndex() != -1 ? BinarySerializer.NODE_IMAGEINDEX : 0;
+		fields |= node.getImage() != null ? BinarySerializer.NODE_IMAGE : 0;
+		fields |= node.getEdgeLabel() != null ? BinarySerializer.NODE_EDGELABEL : 0;
+		fields |= node.getEdgeColor() != null ? BinarySerializer.NODE_EDGECOLOR : 0;
+		fields |= node.getEdgeStyle() != null ? BinarySerializer.NODE_EDGESTYLE : 0;
+		fields |= node.getEdgeImageFile() != null ? BinarySerializer.NODE_EDGEIMAGEFILE : 0;
+		fields |= node.getEdgeImageIndex() != -1 ? BinarySerializer.NODE_EDGEIMAGEINDEX : 0;
+		fields |= node.getEdgeImage() != null ? BinarySerializer.NODE_EDGEIMAGE : 0;
+		fields |= node.getWeight() != 0. ? BinarySerializer.NODE_WEIGHT : 0;
+		fields |= mountingPoint != null ? BinarySerializer.NODE_MOUNTPOINT : 0;
+		writeVarInt(fields);
+
+		if ((fields & BinarySerializer.NODE_ID) != 0)
+		{
+			writeString(node.getId());
+		}
+		if ((fields & BinarySerializer.NODE_LABEL) != 0)
+		{
+			writeString(node.getLabel());
+		}
+		if ((fields & BinarySerializer.NODE_CONTENT) != 0)
+		{
+			writeString(node.getContent());
+		}
+		if ((fields & BinarySerializer.NODE_LINK) != 0)
+		{
+			writeString(node.getLink());
+		}
+		if ((fields & BinarySerializer.NODE_TARGET) != 0)
+		{
+			writeString(node.getTarget());
+		}
+		if ((fields & BinarySerializer.NODE_BACKCOLOR) != 0)
+		{
+			this.out.writeInt(node.getBackColor());
+		}
+		if ((fields & BinarySerializer.NODE_FORECOLOR) != 0)
+		{
+			this.out.writeInt(node.getForeColor());
+		}
+		if ((fields & BinarySerializer.NODE_IMAGEFILE) != 0)
+		{
+			writeString(node.getImageFile());
+		}
+		if ((fields & BinarySerializer.NODE_IMAGEINDEX) != 0)
+		{
+			writeVarInt(node.getImageIndex());
+		}
+		if ((fields & BinarySerializer.NODE_IMAGE) != 0)
+		{
+			writeImageRef(node.getImage());
+		}
+		if ((fields & BinarySerializer.NODE_EDGELABEL) != 0)
+		{
+			writeString(node.getEdgeLabel());
+		}
+		if ((fields & BinarySerializer.NODE_EDGECOLOR) != 0)
+		{
+			this.out.writeInt(node.getEdgeColor());
+		}
+		if ((fields & BinarySerializer.NODE_EDGESTYLE) != 0)
+		{
+			this.out.writeInt(node.getEdgeStyle());
+		}
+		if ((fields & BinarySerializer.NODE_EDGEIMAGEFILE) != 0)
+		{
+			writeString(node.getEdgeImageFile());
+		}
+		if ((fields & BinarySerializer.NODE_EDGEIMAGEINDEX) != 0)
+		{
+			writeVarInt(node.getEdgeImageIndex());
+		}
+		if ((fields & BinarySerializer.NODE_EDGEIMAGE) != 0)
+		{
+			writeImageRef(node.getEdgeImage());
+		}
+		if ((fields & BinarySerializer.NODE_WEIGHT) != 0)
+		{
+			this.out.writeDouble(node.getWeight());
+		}
+		if ((fields & BinarySerializer.NODE_MOUNTPOINT) != 0)
+		{
+			writeOptionalString(mountingPoint.url);
+			this.out.writeByte(mountingPoint.now == null ? 0 : mountingPoint.now ? 2 : 1);
+		}
+	}
+
+	// E D G E S
+
+	/**
+	 * Write edge
+	 *
+	 * @param edge edge
+	 * @throws IOException io exception
+	 */
+	private void writeEdge(@NonNull final IEdge edge) throws IOException
+	{
+		writeVarInt(this.nodeIndexes.get(edge.getFrom()));
+		writeVarInt(this.nodeIndexes.get(edge.getTo()));
+
+		int fields = 0;
+		fields |= edge.getLabel() != null ? BinarySerializer.EDGE_LABEL : 0;
+		fields |= edge.getColor() != null ? BinarySerializer.EDGE_COLOR : 0;
+		fields |= edge.getStyle() != null ? BinarySerializer.EDGE_STYLE : 0;
+		fields |= edge.getImageFile() != null ? BinarySerializer.EDGE_IMAGEFILE : 0;
+		fields |= edge.getImageIndex() != -1 ? BinarySerializer.EDGE_IMAGEINDEX : 0;
+		fields |= edge.getImage() != null ? BinarySerializer.EDGE_IMAGE : 0;
+		writeVarInt(fields);
+
+		if ((fields & BinarySerializer.EDGE_LABEL) != 0)
+		{
+			writeString(edge.getLabel());
+		}
+		if ((fields & BinarySerializer.EDGE_COLOR) != 0)
+		{
+			this.out.writeInt(edge.getColor());
+		}
+		if ((fields & BinarySerializer.EDGE_STYLE) != 0)
+		{
+			this.out.writeInt(edge.getStyle());
+		}
+		if ((fields & BinarySerializer.EDGE_IMAGEFILE) != 0)
+		{
+			writeString(edge.getImageFile());
+		}
+		if ((fields & BinarySerializer.EDGE_IMAGEINDEX) != 0)
+		{
+			writeVarInt(edge.getImageIndex());
+		}
+		if ((fields & BinarySerializer.EDGE_IMAGE) != 0)
+		{
+			writeImageRef(edge.getImage());
+		}
+	}
+
+	// I M A G E S
+
+	/**
+	 * Write image table
+	 *
+	 * @param model model
+	 * @param nodes nodes
+	 * @param edges edges
+	 * @throws IOException io exception
+	 */
+	private void writeImages(@NonNull final Model model, @NonNull final List<INode> nodes, @Nullable final List<IEdge> edges) throws IOException
+	{
+		// collect distinct images
+		@NonNull final List<Image> images = new ArrayList<>();
+		if (model.images != null)
+		{
+			for (final Image image : model.images)
+			{
+				addImage(image, images);
+			}
+		}
+		for (final INode node : nodes)
+		{
+			addImage(node.getImage(), images);
+			addImage(node.getEdgeImage(), images);
+		}
+		if (edges != null)
+		{
+			for (final IEdge edge : edges)
+			{
+				addImage(edge.getImage(), images);
+			}
+		}
+
+		// encode, mapping images with the same content to the same entry
+		@NonNull final Map<ByteBuffer, Integer> indexesByContent = new HashMap<>();
+		@NonNull final List<byte[]> table = new ArrayList<>();
+		for (final Image image : images)
+		{
+			@NonNull final byte[] bytes = BinarySerializer.toBytes(image);
+			@NonNull final ByteBuffer key = ByteBuffer.wrap(bytes);
+			@Nullable Integer index = indexesByContent.get(key);
+			if (index == null)
+			{
+				index = table.size();
+				table.add(bytes);
+				indexesByContent.put(key, index);
+			}
+			this.imagesByIdentity.put(image, index);
+		}
+
+		// write
+		writeVarInt(table.size());
+		for (final byte[] bytes : table)
+		{
+			writeVarInt(bytes.length);
+			this.out.write(bytes);
+		}
+	}
+
+	/**
+	 * Add image if not already there
+	 *
+	 * @param image  image
+	 * @param images images
+	 */
+	private void addImage(@Nullable final Image image, @NonNull final List<Image> images)
+	{
+		if (image != null && !this.imagesByIdentity.containsKey(image))
+		{
+			this.imagesByIdentity.put(image, -1);
+			images.add(image);
+		}
+	}
+
+	/**
+	 * Write reference to image table
+	 *
+	 * @param image image
+	 * @throws IOException io exception
+	 */
+	private void writeImageRef(@Nullable final Image image) throws IOException
+	{
+		writeVarInt(image == null ? 0 : this.imagesByIdentity.get(image) + 1);
+	}
+
+	/**
+	 * Encode image as its platform serialization
+	 *
+	 * @param image image
+	 * @return bytes
+	 * @throws IOException io exception
+	 */
+	@NonNull
+	static private byte[] toBytes(@NonNull final Image image) throws IOException
+	{
+		@NonNull final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos))
+		{
+			oos.writeObject(image);
+		}
+		return baos.toByteArray();
+	}
+
+	// P R I M I T I V E S
+
+	/**
+	 * Write object as length-prefixed serialization
+	 *
+	 * @param object object
+	 * @throws IOException io exception
+	 */
+	private void writeObject(@Nullable final Object object) throws IOException
+	{
+		@NonNull final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos))
+		{
+			oos.writeObject(object);
+		}
+		writeVarInt(baos.size());
+		baos.writeTo(this.out);
+	}
+
+	/**
+	 * Write interned string: reference to string table if already written, 0 followed by string otherwise
+	 *
+	 * @param string string
+	 * @throws IOException io exception
+	 */
+	private void writeString(@NonNull final String string) throws IOException
+	{
+		@Nullable final Integer index = this.strings.get(string);
+		if (index != null)
+		{
+			writeVarInt(index + 1);
+			return;
+		}
+		this.strings.put(string, this.strings.size());
+		writeVarInt(0);
+		@NonNull final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		this.out.write(bytes);
+	}
+
+	/**
+	 * Write optional string
+	 *
+	 * @param string string or null
+	 * @throws IOException io exception
+	 */
+	private void writeOptionalString(@Nullable final String string) throws IOException
+	{
+		this.out.writeBoolean(string != null);
+		if (string != null)
+		{
+			writeString(string);
+		}
+	}
+
+	/**
+	 * Write unsigned varint
+	 *
+	 * @param value non-negative value
+	 * @throws IOException io exception
+	 */
+	private void writeVarInt(int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			this.out.writeByte(value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		this.out.writeByte(value);
+	}
+}
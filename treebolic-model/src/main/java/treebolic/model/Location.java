@@ -38,6 +38,13 @@ public class Location implements Serializable
 	@NonNull
 	public final EuclideanCircle euclidean;
 
+	// S U B T R E E
+
+	/**
+	 * Number of nodes in subtree rooted at this node, as of last weighing (0 if not weighed)
+	 */
+	public transient int subtreeSize;
+
 	// V I E W D A T A
 
 	/**
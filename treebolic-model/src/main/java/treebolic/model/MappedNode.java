@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.List;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.glue.iface.Image;
+
+/**
+ * Node backed by a memory-mapped store record. Fixed-width fields are read from the record, strings are decoded when asked for (the id and label are kept
+ * once decoded as they are needed at each lookup and repaint). Parent, children, location and mountpoint are resolved when first reached and then held on
+ * heap, as is mutable state (layout, images, mounting, edge attributes), so a reached node weighs about as much as a {@link Node}. It is serialized as a
+ * {@link Node} holding the same data.
+ *
+ * @author Bernard Bou
+ */
+@SuppressWarnings("WeakerAccess")
+public class MappedNode implements INode
+{
+	private static final long serialVersionUID = 1L;
+
+	// resolved flags
+	static private final int PARENT = 0x1;
+	static private final int CHILDREN = 0x2;
+	static private final int MOUNTPOINT = 0x4;
+	static private final int LABEL = 0x8;
+	static private final int ID = 0x10;
+
+	// overridden flags
+	static private final int EDGELABEL = 0x1;
+	static private final int EDGECOLOR = 0x2;
+	static private final int EDGESTYLE = 0x4;
+	static private final int EDGEIMAGEINDEX = 0x8;
+
+	// D A T A
+
+	/**
+	 * Store
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	private final transient MappedStore store;
+
+	/**
+	 * Record index
+	 */
+	private final int index;
+
+	/**
+	 * Resolved fields
+	 */
+	private int resolved;
+
+	/**
+	 * Overridden edge fields
+	 */
+	private int overridden;
+
+	/**
+	 * Parent node
+	 */
+	@Nullable
+	private INode parent;
+
+	/**
+	 * Node children
+	 */
+	@Nullable
+	private List<INode> children;
+
+	/**
+	 * Node location
+	 */
+	@Nullable
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	private transient Location location;
+
+	/**
+	 * Id
+	 */
+	@Nullable
+	private String id;
+
+	/**
+	 * Label
+	 */
+	@Nullable
+	private String label;
+
+	/**
+	 * Node weight
+	 */
+	private double weight;
+
+	/**
+	 * Children weight
+	 */
+	private double childrenWeight;
+
+	/**
+	 * Least weight
+	 */
+	private double minWeight;
+
+	/**
+	 * Node image
+	 */
+	@Nullable
+	private Image image;
+
+	/**
+	 * Tree edge image
+	 */
+	@Nullable
+	private Image edgeImage;
+
+	/**
+	 * MountPoint
+	 */
+	@Nullable
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	private MountPoint mountPoint;
+
+	/**
+	 * Tree edge label override
+	 */
+	@Nullable
+	private String edgeLabel;
+
+	/**
+	 * Tree edge color override
+	 */
+	@Nullable
+	private Integer edgeColor;
+
+	/**
+	 * Tree edge style override
+	 */
+	@Nullable
+	private Integer edgeStyle;
+
+	/**
+	 * Tree edge image index override
+	 */
+	private int edgeImageIndex;
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Constructor
+	 *
+	 * @param store store
+	 * @param index record index
+	 */
+	MappedNode(@NonNull final MappedStore store, final int index)
+	{
+		this.store = store;
+		this.index = index;
+		this.weight = store.getDouble(index, MappedStore.NODE_WEIGHT);
+	}
+
+	// T R E E
+
+	@Nullable
+	@Override
+	public INode getParent()
+	{
+		if ((this.resolved & MappedNode.PARENT) == 0)
+		{
+			final int parentIndex = this.store.getInt(this.index, MappedStore.NODE_PARENT);
+			this.parent = parentIndex == MappedStore.NONE ? null : this.store.getNode(parentIndex);
+			this.resolved |= MappedNode.PARENT;
+		}
+		return this.parent;
+	}
+
+	@Override
+	public void setParent(@Nullable final INode parent)
+	{
+		this.parent = parent;
+		this.resolved |= MappedNode.PARENT;
+	}
+
+	@NonNull
+	@Override
+	public List<INode> getChildren()
+	{
+		if ((this.resolved & MappedNode.CHILDREN) == 0)
+		{
+			final int firstChild = this.store.getInt(this.index, MappedStore.NODE_FIRSTCHILD);
+			final int childCount = this.store.getInt(this.index, MappedStore.NODE_CHILDCOUNT);
+			this.children = new ArrayList<>(childCount);
+			for (int i = 0; i < childCount; i++)
+			{
+				this.children.add(this.store.getNode(firstChild + i));
+			}
+			this.resolved |= MappedNode.CHILDREN;
+		}
+		assert this.children != null;
+		return this.children;
+	}
+
+	@Nullable
+	@Override
+	public MountPoint getMountPoint()
+	{
+		if ((this.resolved & MappedNode.MOUNTPOINT) == 0)
+		{
+			final int flags = this.store.getInt(this.index, MappedStore.NODE_FLAGS);
+			if ((flags & MappedStore.HAS_MOUNTPOINT) != 0)
+			{
+				@NonNull final MountPoint.Mounting mountingPoint = new MountPoint.Mounting();
+				mountingPoint.url = this.store.getString(this.index, MappedStore.NODE_MOUNTURL);
+				mountingPoint.now = (flags & MappedStore.MOUNT_NOW_TRUE) != 0 ? Boolean.TRUE : (flags & MappedStore.MOUNT_NOW_FALSE) != 0 ? Boolean.FALSE : null;
+				this.mountPoint = mountingPoint;
+			}
+			this.resolved |= MappedNode.MOUNTPOINT;
+		}
+		return this.mountPoint;
+	}
+
+	@Override
+	public void setMountPoint(@Nullable final MountPoint mountPoint)
+	{
+		this.mountPoint = mountPoint;
+		this.resolved |= MappedNode.MOUNTPOINT;
+	}
+
+	// L A Y O U T
+
+	@Override
+	public double getWeight()
+	{
+		return this.weight;
+	}
+
+	@Override
+	public void setWeight(final double weight)
+	{
+		this.weight = weight;
+	}
+
+	@Override
+	public double getChildrenWeight()
+	{
+		return this.childrenWeight;
+	}
+
+	@Override
+	public void setChildrenWeight(final double weight)
+	{
+		this.childrenWeight = weight;
+	}
+
+	@Override
+	public double getMinWeight()
+	{
+		return this.minWeight;
+	}
+
+	@Override
+	public void setMinWeight(final double weight)
+	{
+		this.minWeight = weight;
+	}
+
+	@NonNull
+	@Override
+	public Location getLocation()
+	{
+		if (this.location == null)
+		{
+			this.location = new Location();
+		}
+		return this.location;
+	}
+
+	// D A T A
+
+	@Nullable
+	@Override
+	public String getId()
+	{
+		if ((this.resolved & MappedNode.ID) == 0)
+		{
+			this.id = this.store.getString(this.index, MappedStore.NODE_ID);
+			this.resolved |= MappedNode.ID;
+		}
+		return this.id;
+	}
+
+	@Nullable
+	@Override
+	public String getLabel()
+	{
+		if ((this.resolved & MappedNode.LABEL) == 0)
+		{
+			this.label = this.store.getString(this.index, MappedStore.NODE_LABEL);
+			this.resolved |= MappedNode.LABEL;
+		}
+		return this.label;
+	}
+
+	@Nullable
+	@Override
+	public String getContent()
+	{
+		return this.store.getString(this.index, MappedStore.NODE_CONTENT);
+	}
+
+	@Nullable
+	@Override
+	public String getLink()
+	{
+		return this.store.getString(this.index, MappedStore.NODE_LINK);
+	}
+
+	@Nullable
+	@Override
+	public String getTarget()
+	{
+		return this.store.getString(this.index, MappedStore.NODE_TARGET);
+	}
+
+	@Nullable
+	@Override
+	public Integer getBackColor()
+	{
+		return getInteger(MappedStore.HAS_BACKCOLOR, MappedStore.NODE_BACKCOLOR);
+	}
+
+	@Nullable
+	@Override
+	public Integer getForeColor()
+	{
+		return getInteger(MappedStore.HAS_FORECOLOR, MappedStore.NODE_FORECOLOR);
+	}
+
+	@Nullable
+	@Override
+	public String getImageFile()
+	{
+		return this.store.getString(this.index, MappedStore.NODE_IMAGEFILE);
+	}
+
+	@Override
+	public int getImageIndex()
+	{
+		return this.store.getInt(this.index, MappedStore.NODE_IMAGEINDEX);
+	}
+
+	@Nullable
+	@Override
+	public Image getImage()
+	{
+		return this.image;
+	}
+
+	@Override
+	public void setImage(@Nullable final Image image)
+	{
+		this.image = image;
+	}
+
+	// E D G E
+
+	@Nullable
+	@Override
+	public String getEdgeLabel()
+	{
+		return (this.overridden & MappedNode.EDGELABEL) != 0 ? this.edgeLabel : this.store.getString(this.index, MappedStore.NODE_EDGELABEL);
+	}
+
+	@Override
+	public void setEdgeLabel(@Nullable final String label)
+	{
+		this.edgeLabel = label;
+		this.overridden |= MappedNode.EDGELABEL;
+	}
+
+	@Nullable
+	@Override
+	public Integer getEdgeColor()
+	{
+		return (this.overridden & MappedNode.EDGECOLOR) != 0 ? this.edgeColor : getInteger(MappedStore.HAS_EDGECOLOR, MappedStore.NODE_EDGECOLOR);
+	}
+
+	@Override
+	public void setEdgeColor(@Nullable final Integer color)
+	{
+		this.edgeColor = color;
+		this.overridden |= MappedNode.EDGECOLOR;
+	}
+
+	@Nullable
+	@Override
+	public Integer getEdgeStyle()
+	{
+		return (this.overridden & MappedNode.EDGESTYLE) != 0 ? this.edgeStyle : getInteger(MappedStore.HAS_EDGESTYLE, MappedStore.NODE_EDGESTYLE);
+	}
+
+	@Override
+	public void setEdgeStyle(@Nullable final Integer style)
+	{
+		this.edgeStyle = style;
+		this.overridden |= MappedNode.EDGESTYLE;
+	}
+
+	@Nullable
+	@Override
+	public String getEdgeImageFile()
+	{
+		return this.store.getString(this.index, MappedStore.NODE_EDGEIMAGEFILE);
+	}
+
+	@Override
+	public int getEdgeImageIndex()
+	{
+		return (this.overridden & MappedNode.EDGEIMAGEINDEX) != 0 ? this.edgeImageIndex : this.store.getInt(this.index, MappedStore.NODE_EDGEIMAGEINDEX);
+	}
+
+	@Override
+	public void setEdgeImageIndex(final int imageIndex)
+	{
+		this.edgeImageIndex = imageIndex;
+		this.overridden |= MappedNode.EDGEIMAGEINDEX;
+	}
+
+	@Nullable
+	@Override
+	public Image getEdgeImage()
+	{
+		return this.edgeImage;
+	}
+
+	@Override
+	public void setEdgeImage(@Nullable final Image image)
+	{
+		this.edgeImage = image;
+	}
+
+	// H E L P E R
+
+	/**
+	 * Get optional int field
+	 *
+	 * @param flag   presence flag
+	 * @param offset field offset
+	 * @return value or null if absent
+	 */
+	@Nullable
+	private Integer getInteger(final int flag, final int offset)
+	{
+		return (this.store.getInt(this.index, MappedStore.NODE_FLAGS) & flag) != 0 ? this.store.getInt(this.index, offset) : null;
+	}
+
+	// S E R I A L I Z A T I O N
+
+	/**
+	 * Replace with node holding the same data, as the store is not serializable
+	 *
+	 * @return node
+	 * @throws ObjectStreamException object stream exception
+	 */
+	@NonNull
+	private Object writeReplace() throws ObjectStreamException
+	{
+		@NonNull final Node node = new Node(null, getId());
+		node.parent = getParent();
+		node.children = new ArrayList<>(getChildren());
+		node.label = getLabel();
+		node.content = getContent();
+		node.link = getLink();
+		node.target = getTarget();
+		node.backColor = getBackColor();
+		node.foreColor = getForeColor();
+		node.imageFile = getImageFile();
+		node.imageIndex = getImageIndex();
+		node.image = this.image;
+		node.edgeLabel = getEdgeLabel();
+		node.edgeColor = getEdgeColor();
+		node.edgeStyle = getEdgeStyle();
+		node.edgeImageFile = getEdgeImageFile();
+		node.edgeImageIndex = getEdgeImageIndex();
+		node.edgeImage = this.edgeImage;
+		node.mountPoint = getMountPoint();
+		node.setWeight(this.weight);
+		node.setChildrenWeight(this.childrenWeight);
+		node.setMinWeight(this.minWeight);
+		return node;
+	}
+
+	// display
+	@NonNull
+	@Override
+	public String toString()
+	{
+		@Nullable final String label = getLabel();
+		return label != null ? label : "";
+	}
+}
@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import java.io.*;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+
+/**
+ * Memory-mapped node store for very large trees. The file holds:
+ * <ul>
+ * <li>a header</li>
+ * <li>fixed-width node records, in breadth-first order so that siblings are contiguous, holding topology and layout-critical fields (parent, children,
+ * colors, style, image indexes, weight) and offsets to variable-length strings</li>
+ * <li>fixed-width edge records</li>
+ * <li>a string region of interned, length-prefixed UTF-8 strings</li>
+ * <li>serialized settings</li>
+ * </ul>
+ * This is a lazy loader, not a bounded-heap store. Nodes ({@link MappedNode}) are created when first reached and strings are decoded when asked for, which
+ * spares parsing and allocating the part of the tree that is never visited. A reached node is held on heap like any other node (children, parent, id, label,
+ * location, weights) and keeps its reached children, so once layout has walked the whole tree, heap use is that of a regular tree. Nodes are cached by soft
+ * reference : a node that is still referenced (by its parent's children, by an edge, by the view) is always the same instance, one that is no longer
+ * referenced may be reclaimed and made again. Images are not stored, nodes refer to image files.
+ * The store is read by {@link ModelReader} and written by {@link ModelWriter#serializeMapped(Model)}.
+ *
+ * @author Bernard Bou
+ */
+@SuppressWarnings("WeakerAccess")
+public class MappedStore
+{
+	// F O R M A T
+
+	/**
+	 * Magic number
+	 */
+	static public final int MAGIC = 0x54424D53; // TBMS
+
+	/**
+	 * Format version
+	 */
+	static public final int VERSION = 2;
+
+	/**
+	 * Header size
+	 */
+	static final int HEADER_SIZE = 32;
+
+	/**
+	 * Null reference
+	 */
+	static final int NONE = -1;
+
+	// node record
+	static final int NODE_PARENT = 0;
+	static final int NODE_FIRSTCHILD = 4;
+	static final int NODE_CHILDCOUNT = 8;
+	static final int NODE_FLAGS = 12;
+	static final int NODE_BACKCOLOR = 16;
+	static final int NODE_FORECOLOR = 20;
+	static final int NODE_EDGECOLOR = 24;
+	static final int NODE_EDGESTYLE = 28;
+	static final int NODE_IMAGEINDEX = 32;
+	static final int NODE_EDGEIMAGEINDEX = 36;
+	static final int NODE_WEIGHT = 40;
+	static final int NODE_ID = 48;
+	static final int NODE_LABEL = 52;
+	static final int NODE_CONTENT = 56;
+	static final int NODE_LINK = 60;
+	static final int NODE_TARGET = 64;
+	static final int NODE_IMAGEFILE = 68;
+	static final int NODE_EDGELABEL = 72;
+	static final int NODE_EDGEIMAGEFILE = 76;
+	static final int NODE_MOUNTURL = 80;
+	static final int NODE_RECORD_SIZE = 84;
+
+	// node flags
+	static final int HAS_BACKCOLOR = 0x1;
+	static final int HAS_FORECOLOR = 0x2;
+	static final int HAS_EDGECOLOR = 0x4;
+	static final int HAS_EDGESTYLE = 0x8;
+	static final int HAS_MOUNTPOINT = 0x10;
+	static final int MOUNT_NOW_FALSE = 0x20;
+	static final int MOUNT_NOW_TRUE = 0x40;
+
+	// edge record
+	static final int EDGE_FROM = 0;
+	static final int EDGE_TO = 4;
+	static final int EDGE_FLAGS = 8;
+	static final int EDGE_COLOR = 12;
+	static final int EDGE_STYLE = 16;
+	static final int EDGE_IMAGEINDEX = 20;
+	static final int EDGE_LABEL = 24;
+	static final int EDGE_IMAGEFILE = 28;
+	static final int EDGE_RECORD_SIZE = 32;
+
+	// edge flags
+	static final int HAS_COLOR = 0x1;
+	static final int HAS_STYLE = 0x2;
+
+	// D A T A
+
+	/**
+	 * Node and edge records
+	 */
+	@NonNull
+	private final MappedByteBuffer records;
+
+	/**
+	 * Strings
+	 */
+	@NonNull
+	private final MappedByteBuffer strings;
+
+	/**
+	 * Node count
+	 */
+	private final int nodeCount;
+
+	/**
+	 * Edge count
+	 */
+	private final int edgeCount;
+
+	/**
+	 * Settings
+	 */
+	@Nullable
+	private final Settings settings;
+
+	/**
+	 * Nodes created so far, softly referenced
+	 */
+	@NonNull
+	private final SoftReference<?>[] nodes;
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Open store. Mappings stay valid once the file is closed, so the file is not held open.
+	 *
+	 * @param file store file
+	 * @throws IOException io exception
+	 */
+	public MappedStore(@NonNull final File file) throws IOException
+	{
+		try (FileChannel channel = new RandomAccessFile(file, "r").getChannel())
+		{
+			if (channel.size() < MappedStore.HEADER_SIZE)
+			{
+				throw new IOException("Not a mapped store");
+			}
+			@NonNull final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, MappedStore.HEADER_SIZE);
+			if (header.getInt(0) != MappedStore.MAGIC)
+			{
+				throw new IOException("Not a mapped store");
+			}
+			final int version = header.getInt(4);
+			if (version != MappedStore.VERSION)
+			{
+				throw new IOException("Unsupported mapped store version " + version);
+			}
+			this.nodeCount = header.getInt(8);
+			this.edgeCount = header.getInt(12);
+			final long stringsOffset = header.getLong(16);
+			final long settingsOffset = header.getLong(24);
+			this.records = channel.map(FileChannel.MapMode.READ_ONLY, MappedStore.HEADER_SIZE, stringsOffset - MappedStore.HEADER_SIZE);
+			this.strings = channel.map(FileChannel.MapMode.READ_ONLY, stringsOffset, settingsOffset - stringsOffset);
+			this.settings = readSettings(channel, settingsOffset);
+			this.nodes = new SoftReference<?>[this.nodeCount];
+		}
+	}
+
+	/**
+	 * Test whether file is a mapped store
+	 *
+	 * @param file file
+	 * @return true if file starts with store magic number
+	 */
+	static public boolean isMappedStore(@NonNull final File file)
+	{
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file)))
+		{
+			return in.readInt() == MappedStore.MAGIC;
+		}
+		catch (IOException ignored)
+		{
+			return false;
+		}
+	}
+
+	// A C C E S S
+
+	/**
+	 * Get node count
+	 *
+	 * @return node count
+	 */
+	public int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	/**
+	 * Get root
+	 *
+	 * @return root node or null if store is empty
+	 */
+	@Nullable
+	public INode getRoot()
+	{
+		return this.nodeCount == 0 ? null : getNode(0);
+	}
+
+	/**
+	 * Get node, creating it when first reached
+	 *
+	 * @param index node index
+	 * @return node
+	 */
+	@NonNull
+	public synchronized MappedNode getNode(final int index)
+	{
+		@Nullable final SoftReference<?> reference = this.nodes[index];
+		@Nullable MappedNode node = reference == null ? null : (MappedNode) reference.get();
+		if (node == null)
+		{
+			node = new MappedNode(this, index);
+			this.nodes[index] = new SoftReference<>(node);
+		}
+		return node;
+	}
+
+	/**
+	 * Make edges
+	 *
+	 * @return edges or null if there are none
+	 */
+	@Nullable
+	public List<IEdge> makeEdges()
+	{
+		if (this.edgeCount == 0)
+		{
+			return null;
+		}
+		@NonNull final List<IEdge> edges = new ArrayList<>(this.edgeCount);
+		final int base = this.nodeCount * MappedStore.NODE_RECORD_SIZE;
+		for (int i = 0; i < this.edgeCount; i++)
+		{
+			final int record = base + i * MappedStore.EDGE_RECORD_SIZE;
+			@NonNull final Edge edge = new Edge(getNode(this.records.getInt(record + MappedStore.EDGE_FROM)), getNode(this.records.getInt(record + MappedStore.EDGE_TO)));
+			final int flags = this.records.getInt(record + MappedStore.EDGE_FLAGS);
+			edge.color = (flags & MappedStore.HAS_COLOR) != 0 ? this.records.getInt(record + MappedStore.EDGE_COLOR) : null;
+			edge.style = (flags & MappedStore.HAS_STYLE) != 0 ? this.records.getInt(record + MappedStore.EDGE_STYLE) : null;
+			edge.imageIndex = this.records.getInt(record + MappedStore.EDGE_IMAGEINDEX);
+			edge.label = getString(this.records.getInt(record + MappedStore.EDGE_LABEL));
+			edge.imageFile = getString(this.records.getInt(record + MappedStore.EDGE_IMAGEFILE));
+			edges.add(edge);
+		}
+		return edges;
+	}
+
+	/**
+	 * Make model
+	 *
+	 * @return model, with stored settings and no images
+	 */
+	@NonNull
+	public Model makeModel()
+	{
+		// mount tasks
+		@NonNull final List<MountTask> mountTasks = new ArrayList<>();
+		for (int i = 0; i < this.nodeCount; i++)
+		{
+			if ((getInt(i, MappedStore.NODE_FLAGS) & MappedStore.MOUNT_NOW_TRUE) != 0)
+			{
+				@NonNull final MappedNode node = getNode(i);
+				mountTasks.add(new MountTask((MountPoint.Mounting) node.getMountPoint(), node));
+			}
+		}
+		return new Model(new Tree(getRoot(), makeEdges(), mountTasks.isEmpty() ? null : mountTasks), this.settings);
+	}
+
+	// R E C O R D S
+
+	/**
+	 * Get int field of node record
+	 *
+	 * @param index  node index
+	 * @param offset field offset
+	 * @return value
+	 */
+	int getInt(final int index, final int offset)
+	{
+		return this.records.getInt(index * MappedStore.NODE_RECORD_SIZE + offset);
+	}
+
+	/**
+	 * Get double field of node record
+	 *
+	 * @param index  node index
+	 * @param offset field offset
+	 * @return value
+	 */
+	double getDouble(final int index, final int offset)
+	{
+		return this.records.getDouble(index * MappedStore.NODE_RECORD_SIZE + offset);
+	}
+
+	/**
+	 * Get string field of node record
+	 *
+	 * @param index  node index
+	 * @param offset field offset
+	 * @return decoded string
+	 */
+	@Nullable
+	String getString(final int index, final int offset)
+	{
+		return getString(getInt(index, offset));
+	}
+
+	/**
+	 * Decode string
+	 *
+	 * @param ref string offset in string region
+	 * @return decoded string
+	 */
+	@Nullable
+	private String getString(final int ref)
+	{
+		if (ref == MappedStore.NONE)
+		{
+			return null;
+		}
+		final int length = this.strings.getInt(ref);
+		@NonNull final byte[] bytes = new byte[length];
+		@NonNull final ByteBuffer buffer = this.strings.duplicate();
+		buffer.position(ref + 4);
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read settings
+	 *
+	 * @param channel        file channel
+	 * @param settingsOffset settings offset in file
+	 * @return settings or null if none were stored
+	 * @throws IOException io exception
+	 */
+	@Nullable
+	static private Settings readSettings(@NonNull final FileChannel channel, final long settingsOffset) throws IOException
+	{
+		if (channel.size() == settingsOffset)
+		{
+			return null;
+		}
+		channel.position(settingsOffset);
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(channel))))
+		{
+			return (Settings) in.readObject();
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	// W R I T E
+
+	/**
+	 * Write model to store file
+	 *
+	 * @param model model
+	 * @param file  store file
+	 * @throws IOException io exception
+	 */
+	static public void write(@NonNull final Model model, @NonNull final File file) throws IOException
+	{
+		@NonNull final Tree tree = model.tree;
+
+		// breadth-first order
+		@NonNull final List<INode> nodes = new ArrayList<>();
+		@NonNull final Map<INode, Integer> indexes = new IdentityHashMap<>();
+		@Nullable final INode root = tree.getRoot();
+		if (root != null)
+		{
+			nodes.add(root);
+			indexes.put(root, 0);
+		}
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			@Nullable final List<INode> children = nodes.get(i).getChildren();
+			if (children != null)
+			{
+				for (final INode child : children)
+				{
+					indexes.put(child, nodes.size());
+					nodes.add(child);
+				}
+			}
+		}
+
+		// writable edges
+		@NonNull final List<IEdge> edges = new ArrayList<>();
+		if (tree.getEdges() != null)
+		{
+			for (final IEdge edge : tree.getEdges())
+			{
+				if (indexes.containsKey(edge.getFrom()) && indexes.containsKey(edge.getTo()))
+				{
+					edges.add(edge);
+				}
+			}
+		}
+
+		// records
+		@NonNull final StringTable strings = new StringTable();
+		@NonNull final ByteBuffer records = ByteBuffer.allocate(nodes.size() * MappedStore.NODE_RECORD_SIZE + edges.size() * MappedStore.EDGE_RECORD_SIZE);
+		int firstChild = 1;
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			final INode node = nodes.get(i);
+			final int record = i * MappedStore.NODE_RECORD_SIZE;
+			@Nullable final List<INode> children = node.getChildren();
+			final int childCount = children == null ? 0 : children.size();
+			@Nullable final INode parent = node.getParent();
+			@Nullable final MountPoint mountPoint = node.getMountPoint();
+			//noinspection InstanceofConcreteClass
+			@Nullable final MountPoint.Mounting mountingPoint = mountPoint instanceof MountPoint.Mounting ? (MountPoint.Mounting) mountPoint : null;
+
+			int flags = 0;
+			flags |= node.getBackColor() != null ? MappedStore.HAS_BACKCOLOR : 0;
+			flags |= node.getForeColor() != null ? MappedStore.HAS_FORECOLOR : 0;
+			flags |= node.getEdgeColor() != null ? MappedStore.HAS_EDGECOLOR : 0;
+			flags |= node.getEdgeStyle() != null ? MappedStore.HAS_EDGESTYLE : 0;
+			if (mountingPoint != null)
+			{
+				flags |= MappedStore.HAS_MOUNTPOINT;
+				flags |= mountingPoint.now == null ? 0 : mountingPoint.now ? MappedStore.MOUNT_NOW_TRUE : MappedStore.MOUNT_NOW_FALSE;
+			}
+
+			@Nullable final Integer parentIndex = parent == null ? null : indexes.get(parent);
+			records.putInt(record + MappedStore.NODE_PARENT, parentIndex == null ? MappedStore.NONE : parentIndex);
+			records.putInt(record + MappedStore.NODE_FIRSTCHILD, childCount == 0 ? MappedStore.NONE : firstChild);
+			records.putInt(record + MappedStore.NODE_CHILDCOUNT, childCount);
+			records.putInt(record + MappedStore.NODE_FLAGS, flags);
+			records.putInt(record + MappedStore.NODE_BACKCOLOR, node.getBackColor() == null ? 0 : node.getBackColor());
+			records.putInt(record + MappedStore.NODE_FORECOLOR, node.getForeColor() == null ? 0 : node.getForeColor());
+			records.putInt(record + MappedStore.NODE_EDGECOLOR, node.getEdgeColor() == null ? 0 : node.getEdgeColor());
+			records.putInt(record + MappedStore.NODE_EDGESTYLE, node.getEdgeStyle() == null ? 0 : node.getEdgeStyle());
+			records.putInt(record + MappedStore.NODE_IMAGEINDEX, node.getImageIndex());
+			records.putInt(record + MappedStore.NODE_EDGEIMAGEINDEX, node.getEdgeImageIndex());
+			records.putDouble(record + MappedStore.NODE_WEIGHT, node.getWeight());
+			records.putInt(record + MappedStore.NODE_ID, strings.add(node.getId()));
+			records.putInt(record + MappedStore.NODE_LABEL, strings.add(node.getLabel()));
+			records.putInt(record + MappedStore.NODE_CONTENT, strings.add(node.getContent()));
+			records.putInt(record + MappedStore.NODE_LINK, strings.add(node.getLink()));
+			records.putInt(record + MappedStore.NODE_TARGET, strings.add(node.getTarget()));
+			records.putInt(record + MappedStore.NODE_IMAGEFILE, strings.add(node.getImageFile()));
+			records.putInt(record + MappedStore.NODE_EDGELABEL, strings.add(node.getEdgeLabel()));
+			records.putInt(record + MappedStore.NODE_EDGEIMAGEFILE, strings.add(node.getEdgeImageFile()));
+			records.putInt(record + MappedStore.NODE_MOUNTURL, strings.add(mountingPoint == null ? null : mountingPoint.url));
+			firstChild += childCount;
+		}
+		final int base = nodes.size() * MappedStore.NODE_RECORD_SIZE;
+		for (int i = 0; i < edges.size(); i++)
+		{
+			final IEdge edge = edges.get(i);
+			final int record = base + i * MappedStore.EDGE_RECORD_SIZE;
+			int flags = 0;
+			flags |= edge.getColor() != null ? MappedStore.HAS_COLOR : 0;
+			flags |= edge.getStyle() != null ? MappedStore.HAS_STYLE : 0;
+			records.putInt(record + MappedStore.EDGE_FROM, indexes.get(edge.getFrom()));
+			records.putInt(record + MappedStore.EDGE_TO, indexes.get(edge.getTo()));
+			records.putInt(record + MappedStore.EDGE_FLAGS, flags);
+			records.putInt(record + MappedStore.EDGE_COLOR, edge.getColor() == null ? 0 : edge.getColor());
+			records.putInt(record + MappedStore.EDGE_STYLE, edge.getStyle() == null ? 0 : edge.getStyle());
+			records.putInt(record + MappedStore.EDGE_IMAGEINDEX, edge.getImageIndex());
+			records.putInt(record + MappedStore.EDGE_LABEL, strings.add(edge.getLabel()));
+			records.putInt(record + MappedStore.EDGE_IMAGEFILE, strings.add(edge.getImageFile()));
+		}
+
+		// write
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+		{
+			out.writeInt(MappedStore.MAGIC);
+			out.writeInt(MappedStore.VERSION);
+			out.writeInt(nodes.size());
+			out.writeInt(edges.size());
+			out.writeLong(MappedStore.HEADER_SIZE + (long) records.capacity());
+			out.writeLong(MappedStore.HEADER_SIZE + (long) records.capacity() + strings.size());
+			out.write(records.array());
+			strings.writeTo(out);
+			if (model.settings != null)
+			{
+				@NonNull final ObjectOutputStream objectOut = new ObjectOutputStream(out);
+				objectOut.writeObject(model.settings);
+				objectOut.flush();
+			}
+		}
+	}
+
+	/**
+	 * Interned string region
+	 */
+	static private class StringTable extends ByteArrayOutputStream
+	{
+		/**
+		 * String offsets
+		 */
+		@NonNull
+		private final Map<String, Integer> offsets = new HashMap<>();
+
+		/**
+		 * Add string
+		 *
+		 * @param string string
+		 * @return offset of string in region or NONE if string is null
+		 * @throws IOException if region overflows
+		 */
+		int add(@Nullable final String string) throws IOException
+		{
+			if (string == null)
+			{
+				return MappedStore.NONE;
+			}
+			@Nullable Integer offset = this.offsets.get(string);
+			if (offset == null)
+			{
+				@NonNull final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				if ((long) this.count + 4 + bytes.length > Integer.MAX_VALUE)
+				{
+					throw new IOException("String region overflow");
+				}
+				offset = this.count;
+				write(bytes.length >>> 24);
+				write(bytes.length >>> 16);
+				write(bytes.length >>> 8);
+				write(bytes.length);
+				write(bytes, 0, bytes.length);
+				this.offsets.put(string, offset);
+			}
+			return offset;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import java.io.IOException;
+
+import treebolic.annotations.NonNull;
+
+/**
+ * Converter of serialized models to binary format
+ *
+ * @author Bernard Bou
+ */
+public class ModelConverter
+{
+	/**
+	 * Convert serialized model archive to binary model archive
+	 *
+	 * @param source source archive (legacy or binary)
+	 * @param dest   destination archive
+	 * @throws IOException            io exception
+	 * @throws ClassNotFoundException class not found exception
+	 */
+	static public void convert(@NonNull final String source, @NonNull final String dest) throws IOException, ClassNotFoundException
+	{
+		@NonNull final Model model = new ModelReader(source).deserialize();
+		new ModelWriter(dest).serializeBinary(model);
+	}
+
+	/**
+	 * Main
+	 *
+	 * @param args source archive, destination archive
+	 * @throws IOException            io exception
+	 * @throws ClassNotFoundException class not found exception
+	 */
+	public static void main(@NonNull final String[] args) throws IOException, ClassNotFoundException
+	{
+		if (args.length < 2)
+		{
+			System.err.println("Usage: " + ModelConverter.class.getName() + " <source archive> <destination archive>");
+			return;
+		}
+		ModelConverter.convert(args[0], args[1]);
+	}
+}
@@ -196,6 +196,13 @@ public class ModelDump
 				.append("Expansion=").append(settings.expansion).append('\n') //
 				.append("Sweep=").append(settings.sweep).append('\n') //
 				.append("PreserveOrientationFlag=").append(settings.preserveOrientationFlag).append('\n') //
+				.append("ParallelFlag=").append(settings.parallelFlag).append('\n') //
+				.append("ParallelThreshold=").append(settings.parallelThreshold).append('\n') //
+				.append("BackgroundRenderingFlag=").append(settings.backgroundRenderingFlag).append('\n') //
+				.append("AnimationFps=").append(settings.animationFps).append('\n') //
+				.append("EdgeLimit=").append(settings.edgeLimit).append('\n') //
+				.append("PrefetchDistance=").append(settings.prefetchDistance).append('\n') //
+				.append("AutoMountThreads=").append(settings.autoMountThreads).append('\n') //
 				.append("HasToolbarFlag=").append(settings.hasToolbarFlag).append('\n') //
 				.append("HasStatusbarFlag=").append(settings.hasStatusbarFlag).append('\n') //
 				.append("ContentFormat=").append(settings.contentFormat).append('\n') //
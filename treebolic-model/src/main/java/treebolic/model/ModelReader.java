@@ -4,18 +4,34 @@
 
 package treebolic.model;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BiFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 
 /**
- * Analysis deserializer
+ * Analysis deserializer, reads a memory-mapped store (see {@link MappedStore}), the binary format (see {@link BinarySerializer}) or the legacy java
+ * serialization
  *
  * @author Bernard Bou
  */
 public class ModelReader
 {
+	/**
+	 * Zip entry of binary format
+	 */
+	static public final String BINARY_ENTRY = "model.bin";
+
+	/**
+	 * Zip entry of legacy java serialization
+	 */
+	static public final String LEGACY_ENTRY = "model";
+
 	/**
 	 * Archive file
 	 */
@@ -41,7 +57,38 @@ public class ModelReader
 	@NonNull
 	public Model deserialize() throws IOException, ClassNotFoundException
 	{
-		return (Model) ZipDeSerializer.deserializeZip(this.archive, "model");
+		return deserialize(Node::new, Edge::new);
+	}
+
+	/**
+	 * Deserialize
+	 *
+	 * @param nodeFactory node factory, called with parent and id (binary format only, a mapped store makes its own nodes)
+	 * @param edgeFactory edge factory, called with from-node and to-node (binary format only, a mapped store makes its own edges)
+	 * @return model
+	 * @throws IOException            io exception
+	 * @throws ClassNotFoundException class not found exception
+	 */
+	@NonNull
+	public Model deserialize(@NonNull final BiFunction<INode, String, ? extends Node> nodeFactory, @NonNull final BiFunction<INode, INode, ? extends Edge> edgeFactory) throws IOException, ClassNotFoundException
+	{
+		@NonNull final File file = new File(this.archive);
+		if (MappedStore.isMappedStore(file))
+		{
+			return new MappedStore(file).makeModel();
+		}
+		try (ZipFile zipFile = new ZipFile(this.archive))
+		{
+			final ZipEntry zipEntry = zipFile.getEntry(BINARY_ENTRY);
+			if (zipEntry != null)
+			{
+				try (InputStream inputStream = zipFile.getInputStream(zipEntry))
+				{
+					return new BinaryDeSerializer(inputStream, nodeFactory, edgeFactory).deserialize();
+				}
+			}
+		}
+		return (Model) ZipDeSerializer.deserializeZip(this.archive, LEGACY_ENTRY);
 	}
 
 	/**
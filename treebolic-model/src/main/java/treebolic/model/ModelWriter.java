@@ -4,10 +4,17 @@
 
 package treebolic.model;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import treebolic.annotations.NonNull;
 
 /**
- * Analysis serializer
+ * Analysis serializer, writes the legacy java serialization format, the binary format (see {@link BinarySerializer}) or a memory-mapped store (see
+ * {@link MappedStore})
  *
  * @author Bernard Bou
  */
@@ -30,13 +37,40 @@ public class ModelWriter
 	}
 
 	/**
-	 * Serialize
+	 * Serialize (legacy java serialization)
 	 *
 	 * @param model model
 	 * @throws IOException io exception
 	 */
 	public void serialize(final Model model) throws IOException
 	{
-		ZipSerializer.serializeZip(this.archive, "model", model);
+		ZipSerializer.serializeZip(this.archive, ModelReader.LEGACY_ENTRY, model);
+	}
+
+	/**
+	 * Serialize in binary format
+	 *
+	 * @param model model
+	 * @throws IOException io exception
+	 */
+	public void serializeBinary(@NonNull final Model model) throws IOException
+	{
+		try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(this.archive, false)))
+		{
+			zos.putNextEntry(new ZipEntry(ModelReader.BINARY_ENTRY));
+			new BinarySerializer(zos).serialize(model);
+			zos.closeEntry();
+		}
+	}
+
+	/**
+	 * Serialize as memory-mapped store, not zipped
+	 *
+	 * @param model model
+	 * @throws IOException io exception
+	 */
+	public void serializeMapped(@NonNull final Model model) throws IOException
+	{
+		MappedStore.write(model, new File(this.archive));
 	}
 }
@@ -4,14 +4,23 @@
 
 package treebolic.model;
 
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.provider.IProvider;
+import treebolic.provider.ProviderUtils;
 
 /**
  * Mounter
@@ -20,6 +29,106 @@ import treebolic.provider.IProvider;
  */
 public class Mounter
 {
+	/**
+	 * Protracted mount task whose tree is made concurrently
+	 */
+	static private class MountJob
+	{
+		/**
+		 * Task
+		 */
+		@NonNull
+		final MountTask task;
+
+		/**
+		 * Resolved source, null if it cannot be resolved
+		 */
+		@Nullable
+		final URI source;
+
+		/**
+		 * Job of the tree the task was declared in, null if top-level
+		 */
+		@Nullable
+		final MountJob parent;
+
+		/**
+		 * Mounted tree, null if not made
+		 */
+		@Nullable
+		Tree tree;
+
+		/**
+		 * Jobs of mount tasks declared in mounted tree, in declaration order
+		 */
+		@NonNull
+		final List<MountJob> children = new ArrayList<>();
+
+		/**
+		 * Constructor
+		 *
+		 * @param task   task
+		 * @param source resolved source
+		 * @param parent parent job
+		 */
+		MountJob(@NonNull final MountTask task, @Nullable final URI source, @Nullable final MountJob parent)
+		{
+			this.task = task;
+			this.source = source;
+			this.parent = parent;
+		}
+	}
+
+	/**
+	 * Whether source is being mounted by job or one of its ancestors, or is the source of the model
+	 *
+	 * @param source      resolved source
+	 * @param job         job of the tree the source is declared in, null if top-level
+	 * @param modelSource resolved source of the model, null if unknown
+	 * @return true if mounting source would recurse
+	 */
+	static private boolean recurses(@Nullable final URI source, @Nullable final MountJob job, @Nullable final URI modelSource)
+	{
+		if (source == null)
+		{
+			return false;
+		}
+		for (@Nullable MountJob job2 = job; job2 != null; job2 = job2.parent)
+		{
+			if (source.equals(job2.source))
+			{
+				return true;
+			}
+		}
+		return source.equals(modelSource);
+	}
+
+	/**
+	 * Resolve source against base, the way providers do
+	 *
+	 * @param source     source
+	 * @param base       base
+	 * @param parameters parameters
+	 * @return resolved source, null if it cannot be resolved
+	 */
+	@Nullable
+	static private URI resolve(@Nullable final String source, @Nullable final URL base, @Nullable final Properties parameters)
+	{
+		@Nullable final URL url = ProviderUtils.makeURL(source, base, parameters, null);
+		if (url == null)
+		{
+			return null;
+		}
+		try
+		{
+			return url.toURI();
+		}
+		catch (URISyntaxException e)
+		{
+			return null;
+		}
+	}
+
 	/**
 	 * Run protracted mount tasks (that had to be protracted until edges become available) before display is computed
 	 *
@@ -30,18 +139,156 @@ public class Mounter
 	 */
 	public static void autoMount(@NonNull final Tree tree, @NonNull final IProvider provider, @Nullable final URL base, @Nullable final Properties parameters)
 	{
-		@Nullable final List<IEdge> edges = tree.getEdges();
 		@Nullable final List<MountTask> mountTasks = tree.mountTasks;
 		if (mountTasks != null)
 		{
 			for (@NonNull final MountTask task : mountTasks)
 			{
-				Mounter.graft(task, provider, base, parameters, edges);
+				Mounter.graft(task, provider, base, parameters, tree);
 			}
 			mountTasks.clear();
 		}
 	}
 
+	/**
+	 * Run protracted mount tasks, making trees concurrently, the model's source being unknown
+	 *
+	 * @param tree       tree
+	 * @param provider   provider
+	 * @param base       base
+	 * @param parameters parameters
+	 * @param threads    number of threads, sequential if 1 or less
+	 */
+	public static void autoMount(@NonNull final Tree tree, @NonNull final IProvider provider, @Nullable final URL base, @Nullable final Properties parameters, final int threads)
+	{
+		autoMount(tree, provider, base, parameters, threads, null);
+	}
+
+	/**
+	 * Run protracted mount tasks, making trees concurrently. Trees, including those of tasks declared in mounted trees, are made in parallel by a bounded
+	 * number of threads, then grafted in declaration order, so that the result does not depend on which tree is made first. Recursion is checked on the
+	 * chain of resolved sources, starting with the model's, instead of by the provider, whose record of the last source is not meaningful when trees are
+	 * made concurrently. Trees are only made concurrently if the provider declares itself reentrant, otherwise tasks are run sequentially.
+	 *
+	 * @param tree       tree
+	 * @param provider   provider
+	 * @param base       base
+	 * @param parameters parameters
+	 * @param threads    number of threads, sequential if 1 or less or if provider is not reentrant
+	 * @param source     source the model was made from, null if unknown
+	 */
+	public static void autoMount(@NonNull final Tree tree, @NonNull final IProvider provider, @Nullable final URL base, @Nullable final Properties parameters, final int threads, @Nullable final String source)
+	{
+		if (threads <= 1 || !provider.isReentrant())
+		{
+			autoMount(tree, provider, base, parameters);
+			return;
+		}
+		@Nullable final List<MountTask> mountTasks = tree.mountTasks;
+		if (mountTasks == null || mountTasks.isEmpty())
+		{
+			return;
+		}
+
+		@NonNull final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			@NonNull final Thread thread = new Thread(r, "treebolic-mounter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try
+		{
+			// make trees, submitting nested tasks as soon as their tree is made
+			@NonNull final CompletionService<MountJob> completionService = new ExecutorCompletionService<>(executor);
+			@NonNull final List<MountJob> jobs = new ArrayList<>();
+			@Nullable final URI modelSource = resolve(source, base, parameters);
+			int pending = submit(mountTasks, null, modelSource, jobs, completionService, provider, base, parameters);
+			while (pending > 0)
+			{
+				@NonNull final MountJob job = completionService.take().get();
+				pending--;
+				if (job.tree != null && job.tree.mountTasks != null)
+				{
+					pending += submit(job.tree.mountTasks, job, modelSource, job.children, completionService, provider, base, parameters);
+				}
+			}
+
+			// graft in declaration order
+			graft(tree, jobs);
+			mountTasks.clear();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			final Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Submit mount tasks
+	 *
+	 * @param mountTasks        mount tasks
+	 * @param parent            job of the tree the tasks were declared in, null if top-level
+	 * @param modelSource       resolved source of the model, null if unknown
+	 * @param jobs              list of jobs to add submitted jobs to
+	 * @param completionService completion service
+	 * @param provider          provider
+	 * @param base              base
+	 * @param parameters        parameters
+	 * @return number of submitted jobs
+	 */
+	private static int submit(@NonNull final List<MountTask> mountTasks, @Nullable final MountJob parent, @Nullable final URI modelSource, @NonNull final List<MountJob> jobs, @NonNull final CompletionService<MountJob> completionService, @NonNull final IProvider provider, @Nullable final URL base, @Nullable final Properties parameters)
+	{
+		int count = 0;
+		for (@NonNull final MountTask task : mountTasks)
+		{
+			@Nullable final URI taskSource = resolve(task.mountPoint.url, base, parameters);
+			if (recurses(taskSource, parent, modelSource))
+			{
+				System.err.println("Mount not performed (recursion): " + task.mountPoint + " @ " + task.mountingNode);
+				continue;
+			}
+			@NonNull final MountJob job = new MountJob(task, taskSource, parent);
+			jobs.add(job);
+			completionService.submit(() -> {
+				job.tree = provider.makeTree(task.mountPoint.url, base, parameters, false);
+				return job;
+			});
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Graft trees made by jobs, nested ones first, in declaration order
+	 *
+	 * @param tree grafting tree
+	 * @param jobs jobs of mount tasks declared in grafting tree
+	 */
+	private static void graft(@NonNull final Tree tree, @NonNull final List<MountJob> jobs)
+	{
+		for (@NonNull final MountJob job : jobs)
+		{
+			@Nullable final Tree mountedTree = job.tree;
+			if (mountedTree != null)
+			{
+				graft(mountedTree, job.children);
+				if (mountedTree.mountTasks != null)
+				{
+					mountedTree.mountTasks.clear();
+				}
+				graft(tree, job.task.mountingNode, mountedTree.getRoot(), mountedTree.getEdges());
+			}
+		}
+	}
+
 	/**
 	 * Graft mounted tree
 	 *
@@ -49,21 +296,41 @@ public class Mounter
 	 * @param provider   provider
 	 * @param base       document base
 	 * @param parameters parameters
-	 * @param edges      edges in grafting tree
+	 * @param tree       grafting tree
 	 */
-	private static void graft(@NonNull final MountTask task, @Nullable final IProvider provider, @Nullable final URL base, @Nullable final Properties parameters, @Nullable final List<IEdge> edges)
+	private static void graft(@NonNull final MountTask task, @Nullable final IProvider provider, @Nullable final URL base, @Nullable final Properties parameters, @NonNull final Tree tree)
 	{
 		if (provider == null)
 		{
 			System.err.println("Mount not performed: " + task.mountPoint + " @ " + task.mountingNode);
 			return;
 		}
-		@Nullable final Tree tree = provider.makeTree(task.mountPoint.url, base, parameters, true);
-		if (tree != null)
+		@Nullable final Tree mountedTree = provider.makeTree(task.mountPoint.url, base, parameters, true);
+		if (mountedTree != null)
 		{
-			autoMount(tree, provider, base, parameters);
-			graft(task.mountingNode, tree.getRoot(), edges, tree.getEdges());
+			autoMount(mountedTree, provider, base, parameters);
+			graft(tree, task.mountingNode, mountedTree.getRoot(), mountedTree.getEdges());
+		}
+	}
+
+	/**
+	 * Graft mounted node onto mounting node, keeping tree's id index current
+	 *
+	 * @param tree         mounting tree
+	 * @param mountingNode grafting node
+	 * @param mountedNode  grafted node
+	 * @param mountedEdges edge list from mounted model
+	 * @return true if successful, false otherwise
+	 */
+	public static synchronized boolean graft(@NonNull final Tree tree, @NonNull final INode mountingNode, @NonNull final INode mountedNode, @Nullable final List<IEdge> mountedEdges)
+	{
+		if (!graft(mountingNode, mountedNode, tree.getEdges(), mountedEdges))
+		{
+			return false;
 		}
+		tree.unindex(mountingNode);
+		tree.index(mountedNode);
+		return true;
 	}
 
 	/**
@@ -148,6 +415,25 @@ public class Mounter
 		return true;
 	}
 
+	/**
+	 * Prune mounted children nodes, and remove orphaned edges, keeping tree's id index current
+	 *
+	 * @param tree        mounting tree
+	 * @param mountedNode node
+	 * @return mounting node if successful, null otherwise
+	 */
+	@Nullable
+	public static synchronized INode prune(@NonNull final Tree tree, @NonNull final INode mountedNode)
+	{
+		@Nullable final INode mountingNode = prune(mountedNode, tree.getEdges());
+		if (mountingNode != null)
+		{
+			tree.unindex(mountedNode);
+			tree.index(mountingNode);
+		}
+		return mountingNode;
+	}
+
 	/**
 	 * Prune mounted children nodes, and remove orphaned edges
 	 *
@@ -248,6 +534,36 @@ public class Mounter
 		return mountingNode;
 	}
 
+	/**
+	 * Restore edges of mounts nested in a subtree that is grafted again (after having been pruned with its nested mounts in place)
+	 *
+	 * @param edges       edge list to add edges to
+	 * @param mountedNode grafted node
+	 */
+	public static synchronized void restoreSubtreeEdges(@NonNull final List<IEdge> edges, @NonNull final INode mountedNode)
+	{
+		@Nullable final List<INode> mountedNodeChildren = mountedNode.getChildren();
+		if (mountedNodeChildren != null)
+		{
+			for (@NonNull final INode childNode : mountedNodeChildren)
+			{
+				// if mounted mountpoint has edges
+				@Nullable final MountPoint mountPoint = childNode.getMountPoint();
+				//noinspection InstanceofConcreteClass
+				if (mountPoint instanceof MountPoint.Mounted)
+				{
+					@NonNull final MountPoint.Mounted mountedMountPoint = (MountPoint.Mounted) mountPoint;
+					if (mountedMountPoint.mountedEdges != null)
+					{
+						edges.addAll(mountedMountPoint.mountedEdges);
+					}
+				}
+				// recurse
+				Mounter.restoreSubtreeEdges(edges, childNode);
+			}
+		}
+	}
+
 	private static void removeSubtreeEdges(@NonNull final List<IEdge> edges, @NonNull final INode mountedNode)
 	{
 		@Nullable final List<INode> mountedNodeChildren = mountedNode.getChildren();
@@ -117,6 +117,48 @@ public class Settings implements Serializable
 	@SuppressWarnings("WeakerAccess")
 	public static final String PROP_PRESERVE_ORIENTATION = "preserve-orientation";
 
+	/**
+	 * Parallel flag property
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final String PROP_PARALLEL = "parallel";
+
+	/**
+	 * Parallel threshold property
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final String PROP_PARALLEL_THRESHOLD = "parallel.threshold";
+
+	/**
+	 * Background rendering flag property
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final String PROP_BACKGROUND_RENDERING = "background-rendering";
+
+	/**
+	 * Animation frame rate property
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final String PROP_ANIMATION_FPS = "animation.fps";
+
+	/**
+	 * Non-tree edge limit property
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final String PROP_EDGE_LIMIT = "edges.limit";
+
+	/**
+	 * Prefetch distance property
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final String PROP_PREFETCH_DISTANCE = "prefetch.distance";
+
+	/**
+	 * Auto-mount threads property
+	 */
+	@SuppressWarnings("WeakerAccess")
+	public static final String PROP_AUTOMOUNT_THREADS = "automount.threads";
+
 	/**
 	 * Font face property
 	 */
@@ -420,6 +462,48 @@ public class Settings implements Serializable
 	@Nullable
 	public Boolean preserveOrientationFlag;
 
+	/**
+	 * Whether weighing, layout and transforms run in parallel
+	 */
+	@Nullable
+	public Boolean parallelFlag;
+
+	/**
+	 * Subtree size above which a subtree is processed in a parallel task
+	 */
+	@Nullable
+	public Integer parallelThreshold;
+
+	/**
+	 * Whether frames are rendered on a background thread
+	 */
+	@Nullable
+	public Boolean backgroundRenderingFlag;
+
+	/**
+	 * Target frame rate of time-based animations, null or 0 for step animations
+	 */
+	@Nullable
+	public Integer animationFps;
+
+	/**
+	 * Maximum number of non-tree edges drawn per frame, nearest to focus first, null or 0 for no limit
+	 */
+	@Nullable
+	public Integer edgeLimit;
+
+	/**
+	 * Hyperbolic distance to center below which mounts are prefetched while the view is idle, null or 0 for no prefetching
+	 */
+	@Nullable
+	public Float prefetchDistance;
+
+	/**
+	 * Number of threads making protracted mounts' trees concurrently, null or 1 for sequential mounting, ignored if the provider is not reentrant
+	 */
+	@Nullable
+	public Integer autoMountThreads;
+
 	// B E H A V I O U R
 
 	// control and status
@@ -723,6 +807,41 @@ public class Settings implements Serializable
 		{
 			this.preserveOrientationFlag = Boolean.valueOf(param);
 		}
+		param = properties.getProperty(Settings.PROP_PARALLEL);
+		if (param != null)
+		{
+			this.parallelFlag = Boolean.valueOf(param);
+		}
+		param = properties.getProperty(Settings.PROP_PARALLEL_THRESHOLD);
+		if (param != null)
+		{
+			this.parallelThreshold = Integer.valueOf(param);
+		}
+		param = properties.getProperty(Settings.PROP_BACKGROUND_RENDERING);
+		if (param != null)
+		{
+			this.backgroundRenderingFlag = Boolean.valueOf(param);
+		}
+		param = properties.getProperty(Settings.PROP_ANIMATION_FPS);
+		if (param != null)
+		{
+			this.animationFps = Integer.valueOf(param);
+		}
+		param = properties.getProperty(Settings.PROP_EDGE_LIMIT);
+		if (param != null)
+		{
+			this.edgeLimit = Integer.valueOf(param);
+		}
+		param = properties.getProperty(Settings.PROP_PREFETCH_DISTANCE);
+		if (param != null)
+		{
+			this.prefetchDistance = Float.valueOf(param);
+		}
+		param = properties.getProperty(Settings.PROP_AUTOMOUNT_THREADS);
+		if (param != null)
+		{
+			this.autoMountThreads = Integer.valueOf(param);
+		}
 		param = properties.getProperty(Settings.PROP_FONTFACE);
 		if (param != null)
 		{
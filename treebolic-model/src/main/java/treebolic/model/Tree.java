@@ -5,8 +5,11 @@
 package treebolic.model;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 
 /**
@@ -36,6 +39,17 @@ public class Tree implements Serializable
 	@Nullable
 	public final List<MountTask> mountTasks;
 
+	/**
+	 * Id-to-node index, built when first needed (null when not built)
+	 */
+	@Nullable
+	private transient Map<String, INode> idIndex;
+
+	/**
+	 * Whether index has met duplicate ids, in which case unindexing invalidates it so that shadowed nodes reappear when it is rebuilt
+	 */
+	private transient boolean idIndexHasDuplicates;
+
 	// C O N S T R U C T O R
 
 	/**
@@ -93,6 +107,7 @@ public class Tree implements Serializable
 	public void setRoot(final INode root)
 	{
 		this.root = root;
+		this.idIndex = null;
 	}
 
 	/**
@@ -104,4 +119,100 @@ public class Tree implements Serializable
 	{
 		this.edges = edges;
 	}
+
+	// I D . I N D E X
+
+	/**
+	 * Find node by id
+	 *
+	 * @param id id
+	 * @return node if found, null otherwise
+	 */
+	@Nullable
+	public synchronized INode getNodeById(@Nullable final String id)
+	{
+		if (id == null)
+		{
+			return null;
+		}
+		if (this.idIndex == null)
+		{
+			this.idIndex = new HashMap<>();
+			this.idIndexHasDuplicates = false;
+			index(this.root);
+		}
+		return this.idIndex.get(id);
+	}
+
+	/**
+	 * Set id-to-node index from map built by provider (the map is copied)
+	 *
+	 * @param idToNodeMap id-to-node map
+	 */
+	public synchronized void setIdIndex(@NonNull final Map<String, ? extends INode> idToNodeMap)
+	{
+		this.idIndex = new HashMap<>(idToNodeMap);
+		this.idIndexHasDuplicates = false;
+		if (this.root != null && this.root.getId() != null)
+		{
+			this.idIndex.putIfAbsent(this.root.getId(), this.root);
+		}
+	}
+
+	/**
+	 * Add subtree to index (no-op if index has not been built)
+	 *
+	 * @param node subtree root
+	 */
+	public synchronized void index(@Nullable final INode node)
+	{
+		if (this.idIndex == null || node == null)
+		{
+			return;
+		}
+		@Nullable final String id = node.getId();
+		if (id != null && this.idIndex.putIfAbsent(id, node) != null)
+		{
+			this.idIndexHasDuplicates = true;
+		}
+		@Nullable final List<INode> children = node.getChildren();
+		if (children != null)
+		{
+			for (final INode child : children)
+			{
+				index(child);
+			}
+		}
+	}
+
+	/**
+	 * Remove subtree from index (no-op if index has not been built)
+	 *
+	 * @param node subtree root
+	 */
+	public synchronized void unindex(@Nullable final INode node)
+	{
+		if (this.idIndex == null || node == null)
+		{
+			return;
+		}
+		if (this.idIndexHasDuplicates)
+		{
+			this.idIndex = null;
+			return;
+		}
+		@Nullable final String id = node.getId();
+		if (id != null)
+		{
+			this.idIndex.remove(id, node);
+		}
+		@Nullable final List<INode> children = node.getChildren();
+		if (children != null)
+		{
+			for (final INode child : children)
+			{
+				unindex(child);
+			}
+		}
+	}
 }
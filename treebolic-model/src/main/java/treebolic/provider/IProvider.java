@@ -43,6 +43,25 @@ public interface IProvider
 	@SuppressWarnings("EmptyMethod")
 	void setHandle(@SuppressWarnings("unused") Object handle);
 
+	/**
+	 * Called by framework when provider is replaced, to release resources it holds (defaults to void action). A call made earlier from another thread may
+	 * still be in progress, so this should not wait for it.
+	 */
+	default void dispose()
+	{
+		// do nothing
+	}
+
+	/**
+	 * Whether makeTree may be called concurrently from several threads (defaults to false, calls being then made one at a time)
+	 *
+	 * @return true if provider is reentrant
+	 */
+	default boolean isReentrant()
+	{
+		return false;
+	}
+
 	/**
 	 * Make model
 	 *
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.provider;
+
+import java.util.Collection;
+
+import treebolic.model.INode;
+
+/**
+ * Update context, lets a provider change parts of a tree it has made while it is displayed
+ *
+ * @author Bernard Bou
+ */
+public interface IUpdateContext
+{
+	/**
+	 * Apply changes to branches of the displayed tree. Changes are run on the UI thread, after which only these branches are reindexed, reweighed,
+	 * laid out again and repainted, once for the whole batch. Branch nodes themselves must be kept, only their descendants may change.
+	 *
+	 * @param branches branch nodes whose descendants change
+	 * @param changes  changes to apply to branches
+	 */
+	void update(Collection<INode> branches, Runnable changes);
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test binary serializer against binary deserializer
+ */
+public class TestBinarySerializer
+{
+	// large enough for parent deltas and string references to need multibyte varints
+	private static final int SIZE = 20000;
+
+	private static final String[] LABELS = {"alpha", "beta", "gamma", "", "ünïcödé ∞ 🌳"};
+
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		final Model model = makeModel();
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new BinarySerializer(bytes).serialize(model);
+		final Model model2 = new BinaryDeSerializer(new ByteArrayInputStream(bytes.toByteArray())).deserialize();
+
+		assertModel(model, model2);
+	}
+
+	@Test
+	public void testWriter(@TempDir final File dir) throws Exception
+	{
+		final Model model = makeModel();
+
+		// serialize keeps legacy format
+		final File legacy = new File(dir, "legacy.zip");
+		new ModelWriter(legacy.getPath()).serialize(model);
+		try (ZipFile zipFile = new ZipFile(legacy))
+		{
+			assertNotNull(zipFile.getEntry(ModelReader.LEGACY_ENTRY));
+			assertNull(zipFile.getEntry(ModelReader.BINARY_ENTRY));
+		}
+		assertModel(model, new ModelReader(legacy.getPath()).deserialize());
+
+		// binary
+		final File binary = new File(dir, "binary.zip");
+		new ModelWriter(binary.getPath()).serializeBinary(model);
+		try (ZipFile zipFile = new ZipFile(binary))
+		{
+			assertNotNull(zipFile.getEntry(ModelReader.BINARY_ENTRY));
+		}
+		assertModel(model, new ModelReader(binary.getPath()).deserialize());
+	}
+
+	static Model makeModel()
+	{
+		final List<Node> nodes = new ArrayList<>();
+		final Node root = new Node(null, "root");
+		nodes.add(root);
+		for (int i = 1; i < SIZE; i++)
+		{
+			// mostly root's children, each with a child, so that parent deltas grow large
+			final Node parent = i % 2 == 0 ? nodes.get(i - 1) : root;
+			final Node node = new Node(parent, i % 5 == 0 ? null : "n" + i);
+			node.label = LABELS[i % LABELS.length];
+			node.content = i % 3 == 0 ? null : "content " + i;
+			node.link = i % 7 == 0 ? "http://example.org/" + i : null;
+			node.target = i % 11 == 0 ? "_blank" : null;
+			node.backColor = i % 4 == 0 ? null : 0xFF000000 | i;
+			node.foreColor = i % 6 == 0 ? -i : null;
+			node.imageFile = i % 13 == 0 ? "image" + i % 3 + ".png" : null;
+			node.imageIndex = i % 9 == 0 ? i % 300 : -1;
+			node.edgeLabel = i % 8 == 0 ? LABELS[i % 3] : null;
+			node.edgeColor = i % 10 == 0 ? 0x00FF00 : null;
+			node.edgeStyle = i % 12 == 0 ? Integer.MIN_VALUE + i : null;
+			node.edgeImageFile = i % 14 == 0 ? "edge.png" : null;
+			node.edgeImageIndex = i % 15 == 0 ? 130 : -1;
+			if (i % 17 == 0)
+			{
+				node.setWeight(-i / 3.);
+			}
+			if (i % 19 == 0)
+			{
+				final MountPoint.Mounting mountPoint = new MountPoint.Mounting();
+				mountPoint.url = i % 38 == 0 ? null : "mount" + i + ".xml";
+				mountPoint.now = i % 3 == 0 ? null : i % 3 == 1;
+				node.setMountPoint(mountPoint);
+			}
+			nodes.add(node);
+		}
+
+		final List<IEdge> edges = new ArrayList<>();
+		for (int i = 1; i + 1000 < SIZE; i += 97)
+		{
+			final Edge edge = new Edge(nodes.get(i), nodes.get(i + 1000));
+			edge.label = i % 2 == 0 ? null : LABELS[i % LABELS.length];
+			edge.color = i % 3 == 0 ? null : 0x80FF8000;
+			edge.style = i % 5 == 0 ? null : i;
+			edge.imageFile = i % 7 == 0 ? "edge" + i + ".png" : null;
+			edge.imageIndex = i % 4 == 0 ? 200 : -1;
+			edges.add(edge);
+		}
+
+		final Settings settings = new Settings();
+		settings.backColor = 0x123456;
+		return new Model(new Tree(root, edges), settings);
+	}
+
+	static void assertModel(final Model expected, final Model actual)
+	{
+		assertEquals(expected.settings.backColor, actual.settings.backColor);
+		assertNull(actual.images);
+
+		// nodes in depth-first order
+		final List<INode> expectedNodes = collect(expected.tree.getRoot(), new ArrayList<>());
+		final List<INode> actualNodes = collect(actual.tree.getRoot(), new ArrayList<>());
+		assertEquals(expectedNodes.size(), actualNodes.size());
+		final Map<INode, Integer> expectedIndexes = index(expectedNodes);
+		final Map<INode, Integer> actualIndexes = index(actualNodes);
+		for (int i = 0; i < expectedNodes.size(); i++)
+		{
+			final INode node = expectedNodes.get(i);
+			final INode node2 = actualNodes.get(i);
+			assertEquals(node.getId(), node2.getId());
+			assertEquals(node.getLabel(), node2.getLabel());
+			assertEquals(node.getContent(), node2.getContent());
+			assertEquals(node.getLink(), node2.getLink());
+			assertEquals(node.getTarget(), node2.getTarget());
+			assertEquals(node.getBackColor(), node2.getBackColor());
+			assertEquals(node.getForeColor(), node2.getForeColor());
+			assertEquals(node.getImageFile(), node2.getImageFile());
+			assertEquals(node.getImageIndex(), node2.getImageIndex());
+			assertEquals(node.getEdgeLabel(), node2.getEdgeLabel());
+			assertEquals(node.getEdgeColor(), node2.getEdgeColor());
+			assertEquals(node.getEdgeStyle(), node2.getEdgeStyle());
+			assertEquals(node.getEdgeImageFile(), node2.getEdgeImageFile());
+			assertEquals(node.getEdgeImageIndex(), node2.getEdgeImageIndex());
+			assertEquals(node.getWeight(), node2.getWeight(), 0.);
+			assertEquals(node.getChildren().size(), node2.getChildren().size());
+			assertEquals(indexOf(expectedIndexes, node.getParent()), indexOf(actualIndexes, node2.getParent()));
+			final MountPoint mountPoint = node.getMountPoint();
+			if (mountPoint == null)
+			{
+				assertNull(node2.getMountPoint());
+			}
+			else
+			{
+				final MountPoint.Mounting mountingPoint = (MountPoint.Mounting) mountPoint;
+				final MountPoint.Mounting mountingPoint2 = (MountPoint.Mounting) node2.getMountPoint();
+				assertNotNull(mountingPoint2);
+				assertEquals(mountingPoint.url, mountingPoint2.url);
+				assertEquals(mountingPoint.now, mountingPoint2.now);
+			}
+		}
+
+		// edges
+		final List<IEdge> expectedEdges = expected.tree.getEdges();
+		final List<IEdge> actualEdges = actual.tree.getEdges();
+		assertEquals(expectedEdges.size(), actualEdges.size());
+		for (int i = 0; i < expectedEdges.size(); i++)
+		{
+			final IEdge edge = expectedEdges.get(i);
+			final IEdge edge2 = actualEdges.get(i);
+			assertSame(actualNodes.get(expectedIndexes.get(edge.getFrom())), edge2.getFrom());
+			assertSame(actualNodes.get(expectedIndexes.get(edge.getTo())), edge2.getTo());
+			assertEquals(edge.getLabel(), edge2.getLabel());
+			assertEquals(edge.getColor(), edge2.getColor());
+			assertEquals(edge.getStyle(), edge2.getStyle());
+			assertEquals(edge.getImageFile(), edge2.getImageFile());
+			assertEquals(edge.getImageIndex(), edge2.getImageIndex());
+		}
+	}
+
+	private static List<INode> collect(final INode node, final List<INode> nodes)
+	{
+		nodes.add(node);
+		for (final INode child : node.getChildren())
+		{
+			collect(child, nodes);
+		}
+		return nodes;
+	}
+
+	private static Map<INode, Integer> index(final List<INode> nodes)
+	{
+		final Map<INode, Integer> indexes = new IdentityHashMap<>();
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			indexes.put(nodes.get(i), i);
+		}
+		return indexes;
+	}
+
+	private static int indexOf(final Map<INode, Integer> indexes, final INode node)
+	{
+		return node == null ? -1 : indexes.get(node);
+	}
+}
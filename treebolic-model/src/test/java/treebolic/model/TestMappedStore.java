@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test memory-mapped store against model it was written from
+ */
+public class TestMappedStore
+{
+	@Test
+	public void testRoundTrip(@TempDir final File dir) throws Exception
+	{
+		final Model model = TestBinarySerializer.makeModel();
+		final File file = new File(dir, "model.tbms");
+		new ModelWriter(file.getPath()).serializeMapped(model);
+		assertTrue(MappedStore.isMappedStore(file));
+
+		final Model model2 = new ModelReader(file.getPath()).deserialize();
+		assertInstanceOf(MappedNode.class, model2.tree.getRoot());
+		TestBinarySerializer.assertModel(model, model2);
+	}
+
+	@Test
+	public void testNoSettings(@TempDir final File dir) throws Exception
+	{
+		final Node root = new Node(null, "root");
+		new Node(root, "child");
+		final File file = new File(dir, "model.tbms");
+		new ModelWriter(file.getPath()).serializeMapped(new Model(new Tree(root, null), null));
+
+		final Model model2 = new ModelReader(file.getPath()).deserialize();
+		assertNull(model2.settings);
+		assertNull(model2.tree.getEdges());
+		assertEquals("child", model2.tree.getRoot().getChildren().get(0).getId());
+	}
+
+	@Test
+	public void testNodes(@TempDir final File dir) throws Exception
+	{
+		final File file = new File(dir, "model.tbms");
+		new ModelWriter(file.getPath()).serializeMapped(TestBinarySerializer.makeModel());
+		final MappedStore store = new MappedStore(file);
+
+		// referenced nodes keep their identity and state
+		final MappedNode node = store.getNode(1);
+		node.getLocation().hyper.radius = .5;
+		assertSame(node, store.getRoot().getChildren().get(0));
+		assertSame(node, store.getNode(1));
+		assertEquals(.5, store.getNode(1).getLocation().hyper.radius, 0.);
+
+		// decoded once
+		assertSame(node.getId(), node.getId());
+		assertSame(node.getLabel(), node.getLabel());
+
+		// overrides
+		node.setEdgeLabel(null);
+		assertNull(node.getEdgeLabel());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSerialization(@TempDir final File dir) throws Exception
+	{
+		final Model model = TestBinarySerializer.makeModel();
+		final File file = new File(dir, "model.tbms");
+		new ModelWriter(file.getPath()).serializeMapped(model);
+		final Model model2 = new ModelReader(file.getPath()).deserialize();
+
+		// serialized as plain nodes (mount tasks are not serializable)
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(model2.tree.getRoot());
+			out.writeObject(model2.tree.getEdges());
+		}
+		final INode root3;
+		final List<IEdge> edges3;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+		{
+			root3 = (INode) in.readObject();
+			edges3 = (List<IEdge>) in.readObject();
+		}
+		assertFalse(root3 instanceof MappedNode);
+		assertSame(root3, root3.getChildren().get(0).getParent());
+		TestBinarySerializer.assertModel(model, new Model(new Tree(root3, edges3), model2.settings));
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import treebolic.ILocator;
+import treebolic.provider.IProvider;
+import treebolic.provider.IProviderContext;
+import treebolic.provider.ProviderUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test concurrent auto mount against sequential auto mount
+ */
+public class TestMounter
+{
+	private static final String SOURCE = "file:/data/root.xml";
+
+	private static final Map<String, String[]> MOUNTS = new HashMap<>();
+
+	static
+	{
+		// top-level self mount, relative and dot-segmented so that only resolved sources compare equal
+		MOUNTS.put("file:/data/root.xml", new String[]{"./root.xml", "a.xml", "c.xml"});
+		// nested self mount
+		MOUNTS.put("file:/data/a.xml", new String[]{"a.xml", "b.xml"});
+		MOUNTS.put("file:/data/b.xml", new String[]{});
+		MOUNTS.put("file:/data/c.xml", new String[]{"sub/../c.xml", "b.xml"});
+	}
+
+	@Test
+	public void testAutoMount() throws MalformedURLException
+	{
+		final URL base = new URL("file:/data/");
+
+		final Model sequential = autoMount(new Provider(true), base, 1);
+		final Provider provider = new Provider(true);
+		final Model concurrent = autoMount(provider, base, 4);
+		assertTrue(provider.threads.stream().anyMatch(thread -> thread != Thread.currentThread()));
+		assertEquals(dump(sequential.tree.getRoot(), new StringBuilder()).toString(), dump(concurrent.tree.getRoot(), new StringBuilder()).toString());
+		assertEquals(sequential.tree.getEdges().size(), concurrent.tree.getEdges().size());
+
+		// recursive mounts are not performed, others are
+		for (final Model model : new Model[]{sequential, concurrent})
+		{
+			final List<INode> children = model.tree.getRoot().getChildren();
+			assertNull(((MountPoint.Mounting) children.get(0).getMountPoint()).mountedNode);
+			final INode a = children.get(1);
+			assertEquals("file:/data/a.xml", a.getLabel());
+			assertNull(((MountPoint.Mounting) a.getChildren().get(0).getMountPoint()).mountedNode);
+			assertEquals("file:/data/b.xml", a.getChildren().get(1).getLabel());
+			final INode c = children.get(2);
+			assertEquals("file:/data/c.xml", c.getLabel());
+			assertNull(((MountPoint.Mounting) c.getChildren().get(0).getMountPoint()).mountedNode);
+			assertEquals("file:/data/b.xml", c.getChildren().get(1).getLabel());
+			assertEquals(5, model.tree.getEdges().size());
+		}
+	}
+
+	@Test
+	public void testNotReentrant() throws MalformedURLException
+	{
+		final URL base = new URL("file:/data/");
+
+		// trees of non-reentrant provider are made on calling thread
+		final Provider provider = new Provider(false);
+		final Model model = autoMount(provider, base, 4);
+		assertEquals(dump(autoMount(new Provider(true), base, 1).tree.getRoot(), new StringBuilder()).toString(), dump(model.tree.getRoot(), new StringBuilder()).toString());
+		assertEquals(Collections.singleton(Thread.currentThread()), provider.threads);
+	}
+
+	private static Model autoMount(final IProvider provider, final URL base, final int threads)
+	{
+		final Model model = provider.makeModel(SOURCE, base, null);
+		assertNotNull(model);
+		Mounter.autoMount(model.tree, provider, base, null, threads, SOURCE);
+		return model;
+	}
+
+	private static StringBuilder dump(final INode node, final StringBuilder sb)
+	{
+		sb.append(node.getId()).append(' ').append(node.getLabel());
+		final MountPoint mountPoint = node.getMountPoint();
+		if (mountPoint != null)
+		{
+			sb.append(' ').append(mountPoint.getClass().getSimpleName());
+		}
+		sb.append('\n');
+		for (final INode child : node.getChildren())
+		{
+			dump(child, sb);
+		}
+		return sb;
+	}
+
+	/**
+	 * Provider that checks recursion against the last source it made a tree from, as the document providers do
+	 */
+	private static class Provider implements IProvider
+	{
+		private final boolean isReentrant;
+
+		private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+		private URL url;
+
+		Provider(final boolean isReentrant)
+		{
+			this.isReentrant = isReentrant;
+		}
+
+		@Override
+		public boolean isReentrant()
+		{
+			// calls are serialized by synchronized methods
+			return this.isReentrant;
+		}
+
+		@Override
+		public void setLocator(final ILocator locator)
+		{
+		}
+
+		@Override
+		public void setContext(final IProviderContext providerContext)
+		{
+		}
+
+		@Override
+		public void setHandle(final Object handle)
+		{
+		}
+
+		@Override
+		public synchronized Model makeModel(final String source, final URL base, final Properties parameters)
+		{
+			final Tree tree = makeTree(source, base, parameters, false);
+			return tree == null ? null : new Model(tree, new Settings());
+		}
+
+		@Override
+		public synchronized Tree makeTree(final String source, final URL base, final Properties parameters, final boolean checkRecursion)
+		{
+			this.threads.add(Thread.currentThread());
+			final URL url = ProviderUtils.makeURL(source, base, parameters, null);
+			if (url == null)
+			{
+				return null;
+			}
+			try
+			{
+				if (checkRecursion && this.url != null && url.toURI().equals(this.url.toURI()))
+				{
+					return null;
+				}
+			}
+			catch (URISyntaxException e)
+			{
+				return null;
+			}
+			this.url = url;
+
+			final String name = url.toString();
+			final Node root = new Node(null, name);
+			root.label = name;
+			final List<MountTask> mountTasks = new ArrayList<>();
+			final String[] mounts = MOUNTS.get(name);
+			for (int i = 0; i < mounts.length; i++)
+			{
+				final Node mountingNode = new Node(root, name + '#' + i);
+				final MountPoint.Mounting mountPoint = new MountPoint.Mounting();
+				mountPoint.url = mounts[i];
+				mountingNode.setMountPoint(mountPoint);
+				mountTasks.add(new MountTask(mountPoint, mountingNode));
+			}
+			final Node leaf = new Node(root, name + "#leaf");
+			final List<IEdge> edges = new ArrayList<>();
+			edges.add(new Edge(root, leaf));
+			return new Tree(root, edges, mountTasks);
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.glue.iface.Image;
+
+/**
+ * Asynchronous image loader. Each image source is fetched once on the loader's own bounded pool, so that fetches do not compete with the platform's worker
+ * pool that mounts use, requests for a source that is being fetched are queued until it arrives. Fetched images are delivered to requesters in batches on the
+ * UI thread, a delivery being posted when a fetch completes and none is pending, after which one notification is issued per batch so that the view
+ * repaints progressively but not once per image. Until then requesters keep no image, so that default images act as placeholders.
+ *
+ * @author Bernard Bou
+ */
+public class ImageLoader
+{
+	/**
+	 * Image factory (blocking)
+	 */
+	@NonNull
+	private final Function<String, Image> factory;
+
+	/**
+	 * Notification that images have been delivered
+	 */
+	@NonNull
+	private final Runnable onLoaded;
+
+	/**
+	 * Name-to-image map of fetched images (null values for images that failed)
+	 */
+	@NonNull
+	private final Map<String, Image> images;
+
+	/**
+	 * Name-to-requesters map of images being fetched
+	 */
+	@NonNull
+	private final Map<String, List<Consumer<Image>>> pending;
+
+	/**
+	 * Number of fetching threads
+	 */
+	static private final int THREADS = 4;
+
+	/**
+	 * Delay before delivery, for fetches that complete meanwhile to join the batch (ms)
+	 */
+	static private final int DELIVERY_DELAY = 100;
+
+	/**
+	 * Fetching pool, shared by loaders, threads expire when idle
+	 */
+	static private final ThreadPoolExecutor EXECUTOR = makeExecutor();
+
+	/**
+	 * Fetched images, waiting to be delivered (null values for images that failed)
+	 */
+	@NonNull
+	private final Queue<Map.Entry<String, Image>> fetched;
+
+	/**
+	 * Whether a delivery has been posted and has not started yet
+	 */
+	private boolean isDelivering;
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Constructor
+	 *
+	 * @param factory  image factory, called on worker thread
+	 * @param onLoaded notification that images have been delivered, called on UI thread
+	 */
+	public ImageLoader(@NonNull final Function<String, Image> factory, @NonNull final Runnable onLoaded)
+	{
+		this.factory = factory;
+		this.onLoaded = onLoaded;
+		this.images = new HashMap<>();
+		this.pending = new HashMap<>();
+		this.fetched = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Make fetching pool
+	 *
+	 * @return pool of daemon threads
+	 */
+	@NonNull
+	static private ThreadPoolExecutor makeExecutor()
+	{
+		@NonNull final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			@NonNull final Thread thread = new Thread(runnable, "treebolic-images");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	// L O A D
+
+	/**
+	 * Request image. The requester is called immediately if image has already been fetched, otherwise when it arrives.
+	 *
+	 * @param source    image source
+	 * @param requester image consumer
+	 */
+	public void load(@NonNull final String source, @NonNull final Consumer<Image> requester)
+	{
+		@Nullable Image image;
+		synchronized (this)
+		{
+			// fetched
+			if (this.images.containsKey(source))
+			{
+				image = this.images.get(source);
+			}
+			else
+			{
+				// in flight
+				@Nullable List<Consumer<Image>> requesters = this.pending.get(source);
+				if (requesters != null)
+				{
+					requesters.add(requester);
+					return;
+				}
+
+				// new
+				requesters = new ArrayList<>();
+				requesters.add(requester);
+				this.pending.put(source, requesters);
+				ImageLoader.EXECUTOR.execute(() -> fetch(source));
+				return;
+			}
+		}
+		requester.accept(image);
+	}
+
+	/**
+	 * Fetch image, on fetching thread
+	 *
+	 * @param source image source
+	 */
+	private void fetch(@NonNull final String source)
+	{
+		@Nullable Image image = null;
+		try
+		{
+			image = this.factory.apply(source);
+		}
+		finally
+		{
+			this.fetched.add(new AbstractMap.SimpleEntry<>(source, image));
+			postDelivery();
+		}
+	}
+
+	/**
+	 * Post delivery to UI thread unless one is pending
+	 */
+	private synchronized void postDelivery()
+	{
+		if (this.isDelivering)
+		{
+			return;
+		}
+		this.isDelivering = true;
+		UiThread.postDelayed(this::deliver, DELIVERY_DELAY);
+	}
+
+	/**
+	 * Deliver fetched images to their requesters, on UI thread. Images fetched from now on post another delivery.
+	 */
+	private void deliver()
+	{
+		synchronized (this)
+		{
+			this.isDelivering = false;
+		}
+		boolean isLoaded = false;
+		for (@Nullable Map.Entry<String, Image> entry = this.fetched.poll(); entry != null; entry = this.fetched.poll())
+		{
+			final String source = entry.getKey();
+			@Nullable final Image image = entry.getValue();
+			@Nullable List<Consumer<Image>> requesters;
+			synchronized (this)
+			{
+				this.images.put(source, image);
+				requesters = this.pending.remove(source);
+			}
+			if (requesters != null && image != null)
+			{
+				for (final Consumer<Image> requester : requesters)
+				{
+					requester.accept(image);
+				}
+				isLoaded = true;
+			}
+		}
+
+		// one notification per batch
+		if (isLoaded)
+		{
+			this.onLoaded.run();
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.model.INode;
+import treebolic.model.Tree;
+import treebolic.provider.IProvider;
+
+/**
+ * Cache of mounted trees, keyed on provider and source. A tree is either mounted, and then tracked by its root, or unmounted, and then held in a bounded
+ * least-recently-used cache from which it is taken when the same source is mounted again. A tree is never in both states, so it is never grafted twice.
+ *
+ * @author Bernard Bou
+ */
+public class MountCache
+{
+	/**
+	 * Key
+	 */
+	static private class Key
+	{
+		/**
+		 * Provider
+		 */
+		@NonNull
+		final IProvider provider;
+
+		/**
+		 * Source
+		 */
+		@Nullable
+		final String source;
+
+		/**
+		 * Constructor
+		 *
+		 * @param provider provider
+		 * @param source   source
+		 */
+		Key(@NonNull final IProvider provider, @Nullable final String source)
+		{
+			this.provider = provider;
+			this.source = source;
+		}
+
+		@Override
+		public boolean equals(@Nullable final Object that)
+		{
+			if (this == that)
+			{
+				return true;
+			}
+			if (!(that instanceof Key))
+			{
+				return false;
+			}
+			@NonNull final Key key = (Key) that;
+			return this.provider == key.provider && Objects.equals(this.source, key.source);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * System.identityHashCode(this.provider) + Objects.hashCode(this.source);
+		}
+	}
+
+	/**
+	 * Mounted tree
+	 */
+	static private class Entry
+	{
+		/**
+		 * Key
+		 */
+		@NonNull
+		final Key key;
+
+		/**
+		 * Tree
+		 */
+		@NonNull
+		final Tree tree;
+
+		/**
+		 * Constructor
+		 *
+		 * @param key  key
+		 * @param tree tree
+		 */
+		Entry(@NonNull final Key key, @NonNull final Tree tree)
+		{
+			this.key = key;
+			this.tree = tree;
+		}
+	}
+
+	/**
+	 * Capacity, the maximum number of unmounted trees held
+	 */
+	private final int capacity;
+
+	/**
+	 * Unmounted trees, least recently used first
+	 */
+	@NonNull
+	private final Map<Key, Tree> trees;
+
+	/**
+	 * Mounted trees, by mounted root
+	 */
+	@NonNull
+	private final Map<INode, Entry> mounted = new IdentityHashMap<>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity maximum number of unmounted trees held (0 disables caching)
+	 */
+	public MountCache(final int capacity)
+	{
+		this.capacity = capacity;
+		this.trees = new LinkedHashMap<Key, Tree>(16, .75F, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, Tree> eldest)
+			{
+				return size() > MountCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Take unmounted tree out of cache
+	 *
+	 * @param provider provider
+	 * @param source   source
+	 * @return tree, null if not cached
+	 */
+	@Nullable
+	public synchronized Tree take(@NonNull final IProvider provider, @Nullable final String source)
+	{
+		return this.trees.remove(new Key(provider, source));
+	}
+
+	/**
+	 * Whether unmounted tree is in cache
+	 *
+	 * @param provider provider
+	 * @param source   source
+	 * @return true if tree is cached
+	 */
+	public synchronized boolean contains(@NonNull final IProvider provider, @Nullable final String source)
+	{
+		return this.trees.containsKey(new Key(provider, source));
+	}
+
+	/**
+	 * Put unmounted tree in cache
+	 *
+	 * @param provider provider
+	 * @param source   source
+	 * @param tree     tree
+	 */
+	public synchronized void put(@NonNull final IProvider provider, @Nullable final String source, @NonNull final Tree tree)
+	{
+		if (this.capacity > 0)
+		{
+			this.trees.put(new Key(provider, source), tree);
+		}
+	}
+
+	/**
+	 * Record tree as mounted
+	 *
+	 * @param provider provider
+	 * @param source   source
+	 * @param tree     mounted tree
+	 */
+	public synchronized void mounted(@NonNull final IProvider provider, @Nullable final String source, @NonNull final Tree tree)
+	{
+		this.mounted.put(tree.getRoot(), new Entry(new Key(provider, source), tree));
+	}
+
+	/**
+	 * Move tree that has been unmounted to cache
+	 *
+	 * @param mountedRoot root of unmounted tree
+	 */
+	public synchronized void unmounted(@NonNull final INode mountedRoot)
+	{
+		@Nullable final Entry entry = this.mounted.remove(mountedRoot);
+		if (entry != null)
+		{
+			put(entry.key.provider, entry.key.source, entry.tree);
+		}
+	}
+
+	/**
+	 * Clear cache (model change)
+	 */
+	public synchronized void clear()
+	{
+		this.trees.clear();
+		this.mounted.clear();
+	}
+}
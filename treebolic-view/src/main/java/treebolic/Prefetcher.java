@@ -0,0 +1,542 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.control.Controller;
+import treebolic.core.Weigher;
+import treebolic.model.INode;
+import treebolic.model.Location;
+import treebolic.model.MountPoint;
+import treebolic.model.Settings;
+import treebolic.model.Tree;
+import treebolic.provider.IProvider;
+import treebolic.view.View;
+
+/**
+ * Speculative prefetcher of mounted trees. When the view has settled, mounting nodes nearer to the center than a threshold have their trees made and
+ * weighed in the background, on a single thread, so that mounting them is only a matter of grafting and laying out. The provider is not reentrant, so
+ * prefetches take the same lock as mounts (see {@link Widget#makeTree}). Prefetched trees are held within a node budget, least recently used first out.
+ *
+ * @author Bernard Bou
+ */
+public class Prefetcher
+{
+	/**
+	 * Maximum number of prefetches queued or in progress
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final int MAX_PENDING = 8;
+
+	/**
+	 * Maximum number of nodes held in prefetched trees
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final int MAX_NODES = 100000;
+
+	/**
+	 * Fraction of maximum heap beyond which no prefetch is started
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final float MAX_HEAP_USE = .75F;
+
+	/**
+	 * Delay without new frames after which the view is considered idle, in milliseconds
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final int IDLE_DELAY = 400;
+
+	/**
+	 * Prefetched tree
+	 */
+	static private class Prefetched
+	{
+		/**
+		 * Tree, made and weighed
+		 */
+		@NonNull
+		final Tree tree;
+
+		/**
+		 * Number of nodes
+		 */
+		final int size;
+
+		/**
+		 * Constructor
+		 *
+		 * @param tree tree
+		 * @param size number of nodes
+		 */
+		Prefetched(@NonNull final Tree tree, final int size)
+		{
+			this.tree = tree;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Provider
+	 */
+	@NonNull
+	private final IProvider provider;
+
+	/**
+	 * Base
+	 */
+	@Nullable
+	private final URL base;
+
+	/**
+	 * Parameters
+	 */
+	@Nullable
+	private final Properties parameters;
+
+	/**
+	 * Settings, for weighing
+	 */
+	@NonNull
+	private final Settings settings;
+
+	/**
+	 * Hyperbolic distance to center below which mounting nodes are prefetched
+	 */
+	private final double distance;
+
+	/**
+	 * Prefetching thread
+	 */
+	@NonNull
+	private final ExecutorService executor;
+
+	/**
+	 * Idleness check timer, posts checks to UI thread
+	 */
+	@Nullable
+	private ScheduledExecutorService idleTimer;
+
+	/**
+	 * Whether a check has been posted to UI thread and has not run yet
+	 */
+	@NonNull
+	private final AtomicBoolean isCheckPosted = new AtomicBoolean();
+
+	/**
+	 * Prefetched trees by source, least recently used first
+	 */
+	@NonNull
+	private final LinkedHashMap<String, Prefetched> trees = new LinkedHashMap<>(16, .75F, true);
+
+	/**
+	 * Prefetches queued or in progress, by source
+	 */
+	@NonNull
+	private final Map<String, Future<?>> pending = new HashMap<>();
+
+	/**
+	 * Number of nodes held
+	 */
+	private int nodeCount;
+
+	/**
+	 * View frame count at last check
+	 */
+	private long frameCount = -1;
+
+	/**
+	 * View frame count at last scan
+	 */
+	private long scannedFrameCount = -1;
+
+	/**
+	 * Whether prefetcher has been stopped
+	 */
+	private volatile boolean isStopped;
+
+	// S T A T S
+
+	/**
+	 * Number of mounts that found their tree prefetched
+	 */
+	private int hits;
+
+	/**
+	 * Number of mounts that did not
+	 */
+	private int misses;
+
+	/**
+	 * Number of trees prefetched
+	 */
+	private int fetches;
+
+	/**
+	 * Number of prefetched trees dropped unused
+	 */
+	private int evictions;
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Constructor
+	 *
+	 * @param provider   provider
+	 * @param base       base
+	 * @param parameters parameters
+	 * @param settings   settings
+	 * @param distance   hyperbolic distance to center below which mounting nodes are prefetched
+	 */
+	public Prefetcher(@NonNull final IProvider provider, @Nullable final URL base, @Nullable final Properties parameters, @NonNull final Settings settings, final double distance)
+	{
+		this.provider = provider;
+		this.base = base;
+		this.parameters = parameters;
+		this.settings = settings;
+		this.distance = distance;
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			@NonNull final Thread thread = new Thread(r, "treebolic-prefetcher");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	// I D L E
+
+	/**
+	 * Watch view for idleness and prefetch when it is idle (UI thread). A timer thread posts a check of the view to the UI thread every IDLE_DELAY, unless
+	 * the previous one has not run yet, until the prefetcher is stopped.
+	 *
+	 * @param view  view
+	 * @param root  tree root
+	 * @param cache mount cache, trees in which need no prefetching
+	 */
+	public synchronized void watch(@NonNull final View view, @NonNull final INode root, @NonNull final MountCache cache)
+	{
+		if (this.isStopped || this.idleTimer != null)
+		{
+			return;
+		}
+		this.idleTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+			@NonNull final Thread thread = new Thread(r, "treebolic-prefetcher-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.idleTimer.scheduleWithFixedDelay(() -> {
+			if (this.isCheckPosted.compareAndSet(false, true))
+			{
+				UiThread.post(() -> {
+					this.isCheckPosted.set(false);
+					check(view, root, cache);
+				});
+			}
+		}, Prefetcher.IDLE_DELAY, Prefetcher.IDLE_DELAY, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Check view for idleness and scan it if it has settled since last scan (UI thread)
+	 *
+	 * @param view  view
+	 * @param root  tree root
+	 * @param cache mount cache
+	 */
+	private void check(@NonNull final View view, @NonNull final INode root, @NonNull final MountCache cache)
+	{
+		if (this.isStopped)
+		{
+			return;
+		}
+		final long frameCount = view.getFrameCount();
+		if (frameCount == this.frameCount && frameCount != this.scannedFrameCount && !view.isAnimating())
+		{
+			// no new frame over delay, settled since last scan
+			this.scannedFrameCount = frameCount;
+			scan(view, root, cache);
+		}
+		this.frameCount = frameCount;
+	}
+
+	/**
+	 * Scan tree for mounting nodes near center and prefetch their trees, nearest first (UI thread)
+	 *
+	 * @param view  view
+	 * @param root  tree root
+	 * @param cache mount cache
+	 */
+	private void scan(@NonNull final View view, @NonNull final INode root, @NonNull final MountCache cache)
+	{
+		// candidates
+		@NonNull final List<INode> candidates = new ArrayList<>();
+		@NonNull final Deque<INode> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final INode node = stack.pop();
+			final Location location = node.getLocation();
+			if (node.getMountPoint() instanceof MountPoint.Mounting && !location.hyper.isBorder && location.hyper.dist < this.distance && !view.isMounting(node))
+			{
+				candidates.add(node);
+			}
+			@Nullable final List<INode> children = node.getChildren();
+			if (children != null)
+			{
+				for (final INode child : children)
+				{
+					stack.push(child);
+				}
+			}
+		}
+		candidates.sort((node1, node2) -> Double.compare(node1.getLocation().hyper.dist, node2.getLocation().hyper.dist));
+
+		// prefetch
+		for (final INode node : candidates)
+		{
+			@Nullable final MountPoint.Mounting mountingPoint = (MountPoint.Mounting) node.getMountPoint();
+			assert mountingPoint != null;
+			final String source = Controller.decode(mountingPoint.url);
+			if (source == null || cache.contains(this.provider, source))
+			{
+				continue;
+			}
+			if (!prefetch(source))
+			{
+				break;
+			}
+		}
+	}
+
+	// P R E F E T C H
+
+	/**
+	 * Prefetch tree
+	 *
+	 * @param source source
+	 * @return false if no more prefetches can be started
+	 */
+	private synchronized boolean prefetch(@NonNull final String source)
+	{
+		if (this.trees.containsKey(source) || this.pending.containsKey(source))
+		{
+			return true;
+		}
+		if (this.pending.size() >= Prefetcher.MAX_PENDING || this.nodeCount >= Prefetcher.MAX_NODES || Prefetcher.isHeapShort())
+		{
+			return false;
+		}
+		this.pending.put(source, this.executor.submit(() -> fetch(source)));
+		return true;
+	}
+
+	/**
+	 * Make and weigh tree (prefetching thread)
+	 *
+	 * @param source source
+	 */
+	private void fetch(@NonNull final String source)
+	{
+		@Nullable Tree tree = null;
+		try
+		{
+			if (!this.isStopped)
+			{
+				tree = Widget.makeTree(this.provider, source, this.base, this.parameters);
+				if (tree != null)
+				{
+					@NonNull final Weigher weigher = new Weigher();
+					weigher.apply(this.settings);
+					weigher.weigh(tree.getRoot());
+				}
+			}
+		}
+		catch (RuntimeException ignored)
+		{
+			// speculative, mounting will report
+		}
+		put(source, tree);
+	}
+
+	/**
+	 * Store prefetched tree, evicting least recently used ones beyond node budget
+	 *
+	 * @param source source
+	 * @param tree   tree, null if it could not be made
+	 */
+	private synchronized void put(@NonNull final String source, @Nullable final Tree tree)
+	{
+		if (this.pending.remove(source) == null || tree == null || this.isStopped)
+		{
+			// taken meanwhile, failed or stopped
+			return;
+		}
+		final int size = Prefetcher.count(tree.getRoot());
+		this.trees.put(source, new Prefetched(tree, size));
+		this.nodeCount += size;
+		this.fetches++;
+		for (Iterator<Prefetched> it = this.trees.values().iterator(); this.nodeCount > Prefetcher.MAX_NODES && it.hasNext(); )
+		{
+			this.nodeCount -= it.next().size;
+			it.remove();
+			this.evictions++;
+		}
+	}
+
+	/**
+	 * Take prefetched tree for mounting. A prefetch of this source in progress is dropped: the mount makes the tree itself.
+	 *
+	 * @param source source
+	 * @return tree, made and weighed, null if not prefetched
+	 */
+	@Nullable
+	public synchronized Tree take(@Nullable final String source)
+	{
+		@Nullable final Prefetched prefetched = this.trees.remove(source);
+		if (prefetched == null)
+		{
+			@Nullable final Future<?> future = this.pending.remove(source);
+			if (future != null)
+			{
+				future.cancel(false);
+			}
+			this.misses++;
+			return null;
+		}
+		this.nodeCount -= prefetched.size;
+		this.hits++;
+		return prefetched.tree;
+	}
+
+	/**
+	 * Cancel prefetches and stop prefetching and timer threads
+	 */
+	public synchronized void stop()
+	{
+		this.isStopped = true;
+		if (this.idleTimer != null)
+		{
+			this.idleTimer.shutdownNow();
+		}
+		for (final Future<?> future : this.pending.values())
+		{
+			future.cancel(true);
+		}
+		this.pending.clear();
+		this.trees.clear();
+		this.nodeCount = 0;
+		this.executor.shutdownNow();
+	}
+
+	// S T A T S
+
+	/**
+	 * Get number of mounts that found their tree prefetched
+	 *
+	 * @return number of hits
+	 */
+	public synchronized int getHits()
+	{
+		return this.hits;
+	}
+
+	/**
+	 * Get number of mounts that did not find their tree prefetched
+	 *
+	 * @return number of misses
+	 */
+	public synchronized int getMisses()
+	{
+		return this.misses;
+	}
+
+	/**
+	 * Get hit rate
+	 *
+	 * @return ratio of mounts that found their tree prefetched, 0 if no mount
+	 */
+	public synchronized float getHitRate()
+	{
+		final int mounts = this.hits + this.misses;
+		return mounts == 0 ? 0F : (float) this.hits / mounts;
+	}
+
+	/**
+	 * Get number of trees prefetched
+	 *
+	 * @return number of prefetched trees
+	 */
+	public synchronized int getFetches()
+	{
+		return this.fetches;
+	}
+
+	/**
+	 * Get number of prefetched trees dropped unused to stay within node budget
+	 *
+	 * @return number of evictions
+	 */
+	public synchronized int getEvictions()
+	{
+		return this.evictions;
+	}
+
+	// H E L P E R S
+
+	/**
+	 * Whether heap is too full to prefetch
+	 *
+	 * @return true if heap use is beyond limit
+	 */
+	static private boolean isHeapShort()
+	{
+		@NonNull final Runtime runtime = Runtime.getRuntime();
+		final long used = runtime.totalMemory() - runtime.freeMemory();
+		return used > Prefetcher.MAX_HEAP_USE * runtime.maxMemory();
+	}
+
+	/**
+	 * Count nodes
+	 *
+	 * @param root root
+	 * @return number of nodes in tree
+	 */
+	static private int count(@NonNull final INode root)
+	{
+		int count = 0;
+		@NonNull final Deque<INode> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty())
+		{
+			final INode node = stack.pop();
+			count++;
+			@Nullable final List<INode> children = node.getChildren();
+			if (children != null)
+			{
+				for (final INode child : children)
+				{
+					stack.push(child);
+				}
+			}
+		}
+		return count;
+	}
+}
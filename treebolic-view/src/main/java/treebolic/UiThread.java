@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.glue.Worker;
+
+/**
+ * One-shot dispatch to the UI thread, through the glue worker whose completion callback runs there on all platforms. The glue animator is not used for
+ * this, as it only drives animations.
+ *
+ * @author Bernard Bou
+ */
+class UiThread
+{
+	/**
+	 * Static worker class to avoid leaks
+	 */
+	static private class PostWorker extends Worker
+	{
+		/**
+		 * Job run on worker thread, null if none
+		 */
+		@Nullable
+		private final Runnable job;
+
+		/**
+		 * Runnable run on UI thread
+		 */
+		@NonNull
+		private final Runnable runnable;
+
+		/**
+		 * Constructor
+		 *
+		 * @param job      job run on worker thread, null if none
+		 * @param runnable runnable run on UI thread
+		 */
+		PostWorker(@Nullable final Runnable job, @NonNull final Runnable runnable)
+		{
+			this.job = job;
+			this.runnable = runnable;
+		}
+
+		@Override
+		public void job()
+		{
+			if (this.job != null)
+			{
+				this.job.run();
+			}
+		}
+
+		@Override
+		public void onDone()
+		{
+			this.runnable.run();
+		}
+	}
+
+	/**
+	 * Run on UI thread, once
+	 *
+	 * @param runnable runnable
+	 */
+	static void post(@NonNull final Runnable runnable)
+	{
+		new PostWorker(null, runnable).execute();
+	}
+
+	/**
+	 * Run on UI thread, once, after delay
+	 *
+	 * @param runnable runnable
+	 * @param delay    delay in milliseconds, waited on worker thread
+	 */
+	static void postDelayed(@NonNull final Runnable runnable, final long delay)
+	{
+		new PostWorker(() -> {
+			try
+			{
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}, runnable).execute();
+	}
+}
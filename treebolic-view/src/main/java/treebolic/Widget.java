@@ -19,7 +19,6 @@ import treebolic.component.Statusbar;
 import treebolic.component.Toolbar;
 import treebolic.control.Commander;
 import treebolic.control.Controller;
-import treebolic.control.Finder;
 import treebolic.core.AbstractLayerOut;
 import treebolic.core.LayerOut;
 import treebolic.core.Weigher;
@@ -35,6 +34,7 @@ import treebolic.model.Types.MatchScope;
 import treebolic.model.Types.SearchCommand;
 import treebolic.provider.IProvider;
 import treebolic.provider.IProviderContext;
+import treebolic.provider.IUpdateContext;
 import treebolic.view.View;
 
 /**
@@ -42,7 +42,7 @@ import treebolic.view.View;
  *
  * @author Bernard Bou
  */
-public class Widget extends Container implements IWidget, IProviderContext
+public class Widget extends Container implements IWidget, IProviderContext, IUpdateContext
 {
 	// B E H A V I O U R
 
@@ -70,6 +70,12 @@ public class Widget extends Container implements IWidget, IProviderContext
 	@SuppressWarnings("WeakerAccess")
 	static public final boolean ANIMATE_ON_START = true;
 
+	/**
+	 * Maximum number of unmounted trees kept for remounting
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final int MOUNT_CACHE_SIZE = 16;
+
 	/**
 	 * Default provider
 	 */
@@ -130,6 +136,20 @@ public class Widget extends Container implements IWidget, IProviderContext
 	@Nullable
 	private IProvider provider;
 
+	/**
+	 * Mounted trees, and unmounted ones kept for remounting
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final MountCache mountCache = new MountCache(Widget.MOUNT_CACHE_SIZE);
+
+	/**
+	 * Prefetcher of trees mounted near center, null if not prefetching
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@Nullable
+	private Prefetcher prefetcher;
+
 	// A G E N T S
 
 	/**
@@ -176,9 +196,10 @@ public class Widget extends Container implements IWidget, IProviderContext
 	private URL imageBase;
 
 	/**
-	 * Name-to-image map, used to void loading twice the same images
+	 * Image loader, used to load images asynchronously and to void loading twice the same images
 	 */
-	private Hashtable<String, Image> images;
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	private ImageLoader imageLoader;
 
 	/**
 	 * Default images
@@ -294,6 +315,12 @@ public class Widget extends Container implements IWidget, IProviderContext
 	@Override
 	public void init(final IProvider provider, final String source)
 	{
+		// release resources held by replaced provider
+		@Nullable final IProvider provider0 = this.provider;
+		if (provider0 != null && provider0 != provider)
+		{
+			provider0.dispose();
+		}
 		this.provider = provider;
 
 		// pass context reference to provider, so that it can access some services
@@ -340,7 +367,7 @@ public class Widget extends Container implements IWidget, IProviderContext
 	}
 
 	/**
-	 * Static worker class to avoid leaks
+	 * Static worker class to avoid leaks, also used for mounts
 	 */
 	static private class InitWorker extends Worker
 	{
@@ -425,7 +452,11 @@ public class Widget extends Container implements IWidget, IProviderContext
 			message += ' ' + source;
 		}
 		progress(message, false);
-		@Nullable final Model model = provider.makeModel(source, this.context.getBase(), this.context.getParameters());
+		@Nullable final Model model;
+		synchronized (provider)
+		{
+			model = provider.makeModel(source, this.context.getBase(), this.context.getParameters());
+		}
 		/*
 		if (model == null)
 		{
@@ -436,33 +467,42 @@ public class Widget extends Container implements IWidget, IProviderContext
 		progress(Messages.getString("Widget.progress_loaded") + ' ' + source, false);
 
 		// load model
-		initModel(model);
+		initModel(model, source);
 	}
 
 	@SuppressWarnings("WeakerAccess")
 	@Override
 	public void init(final Model model)
 	{
-		initModel(model);
+		initModel(model, null);
 		initDisplay();
 	}
 
 	/**
 	 * Init model, weigh and lay out
 	 *
-	 * @param model model
+	 * @param model  model
+	 * @param source source the model was made from, null if unknown
 	 */
-	private void initModel(@Nullable final Model model)
+	private void initModel(@Nullable final Model model, @Nullable final String source)
 	{
 		if (model == null)
 		{
 			return;
 		}
 
+		// mounted and prefetched trees belong to previous model
+		this.mountCache.clear();
+		if (this.prefetcher != null)
+		{
+			this.prefetcher.stop();
+			this.prefetcher = null;
+		}
+
 		// protracted mounts
 		if (this.provider != null)
 		{
-			Mounter.autoMount(model.tree, this.provider, this.context.getBase(), this.context.getParameters());
+			Mounter.autoMount(model.tree, this.provider, this.context.getBase(), this.context.getParameters(), model.settings.autoMountThreads == null ? 1 : model.settings.autoMountThreads, source);
 		}
 
 		// model/view/controller
@@ -475,6 +515,7 @@ public class Widget extends Container implements IWidget, IProviderContext
 
 		// weigh model
 		progress(Messages.getString("Widget.progress_weighing"), false);
+		this.weigher.apply(this.model.settings);
 		this.weigher.weigh(model.tree.getRoot());
 
 		// enforce settings
@@ -570,6 +611,13 @@ public class Widget extends Container implements IWidget, IProviderContext
 		// validate
 		validate();
 
+		// prefetch
+		if (this.provider != null && this.model.settings.prefetchDistance != null && this.model.settings.prefetchDistance > 0F)
+		{
+			this.prefetcher = new Prefetcher(this.provider, this.context.getBase(), this.context.getParameters(), this.model.settings, this.model.settings.prefetchDistance);
+			this.prefetcher.watch(this.view, this.model.tree.getRoot(), this.mountCache);
+		}
+
 		// animate
 		if (!Widget.ANIMATE_ON_START)
 		{
@@ -605,7 +653,8 @@ public class Widget extends Container implements IWidget, IProviderContext
 	// N A V I G A T I O N
 
 	/**
-	 * Mount a source at node
+	 * Mount a source at node. The tree is made on a separate thread, unless it has been mounted before, and grafted when it is ready. The mounting node is
+	 * outlined meanwhile. Concurrent mounts make their trees one at a time, as the provider is not reentrant.
 	 *
 	 * @param mountingNode mounting node
 	 * @param source       mounted source
@@ -644,24 +693,92 @@ public class Widget extends Container implements IWidget, IProviderContext
 			this.provider.setHandle(this.handle);
 		}
 
-		// make model
-		@Nullable final Tree tree = this.provider.makeTree(source, this.context.getBase(), this.context.getParameters(), false);
-		/*
+		// mount already in progress
+		if (this.view.isMounting(mountingNode))
+		{
+			return;
+		}
+
+		// previously mounted tree
+		@NonNull final IProvider provider = this.provider;
+		@Nullable final Tree cachedTree = this.mountCache.take(provider, source);
+		if (cachedTree != null)
+		{
+			graft(mountingNode, provider, source, cachedTree, true, true);
+			return;
+		}
+
+		// prefetched tree
+		@Nullable final Tree prefetchedTree = this.prefetcher == null ? null : this.prefetcher.take(source);
+		if (prefetchedTree != null)
+		{
+			graft(mountingNode, provider, source, prefetchedTree, false, true);
+			return;
+		}
+
+		// make tree
+		if (!Widget.THREADED)
+		{
+			graft(mountingNode, provider, source, Widget.makeTree(provider, source, this.context.getBase(), this.context.getParameters()), false, false);
+			return;
+		}
+
+		// make tree on separate thread
+		this.view.setMounting(mountingNode, true);
+		final Model model = this.model;
+		@NonNull final Tree[] result = new Tree[1];
+		@NonNull final treebolic.glue.iface.Worker worker = new InitWorker( //
+				() -> {
+					try
+					{
+						result[0] = Widget.makeTree(provider, source, this.context.getBase(), this.context.getParameters());
+					}
+					catch (Throwable e)
+					{
+						Widget.this.context.warn(Messages.getString("Widget.status_mount_err") + ':' + e);
+						e.printStackTrace();
+					}
+				}, //
+				() -> {
+					// stale if model has changed meanwhile
+					if (this.model != model)
+					{
+						return;
+					}
+					this.view.setMounting(mountingNode, false);
+					graft(mountingNode, provider, source, result[0], false, false);
+				});
+		worker.execute();
+	}
+
+	/**
+	 * Graft mounted tree at mounting node
+	 *
+	 * @param mountingNode mounting node
+	 * @param provider     provider the tree was made by
+	 * @param source       mounted source
+	 * @param tree         mounted tree
+	 * @param isCached     whether the tree was mounted before (and is complete with images and nested mounts)
+	 * @param isWeighed    whether the tree has been weighed
+	 */
+	private synchronized void graft(@NonNull final INode mountingNode, @NonNull final IProvider provider, final String source, @Nullable final Tree tree, final boolean isCached, final boolean isWeighed)
+	{
 		if (tree == null)
 		{
-			putStatus(Statusbar.PutType.MOUNT, Messages.getString("Widget.status_mount"), Controller.makeHtml("mount", Messages.getString("Widget.status_mount_err_model_null") + source);
+			putStatus(Statusbar.PutType.MOUNT, Messages.getString("Widget.status_mount"), Messages.getString("Widget.status_mount_err_model_null") + source);
 			return;
 		}
-        */
 
 		// extract subroot + edges
-		assert tree != null;
 		final INode mountedRoot = tree.getRoot();
 		final List<IEdge> mountedEdges = tree.getEdges();
 
 		// images
-		loadImages(mountedRoot);
-		loadImages(mountedEdges);
+		if (!isCached)
+		{
+			loadImages(mountedRoot);
+			loadImages(mountedEdges);
+		}
 
 		// ensure edge list is non null
 		assert this.model != null;
@@ -671,14 +788,23 @@ public class Widget extends Container implements IWidget, IProviderContext
 		}
 
 		// graft nodes
-		if (!Mounter.graft(mountingNode, mountedRoot, this.model.tree.getEdges(), mountedEdges))
+		if (!Mounter.graft(this.model.tree, mountingNode, mountedRoot, mountedEdges))
 		{
+			this.mountCache.put(provider, source, tree);
 			putStatus(Statusbar.PutType.MOUNT, Messages.getString("Widget.status_mount"), Messages.getString("Widget.status_mount_err"));
 			return;
 		}
+		if (isCached)
+		{
+			Mounter.restoreSubtreeEdges(this.model.tree.getEdges(), mountedRoot);
+		}
+		this.mountCache.mounted(provider, source, tree);
 
 		// weigh
-		this.weigher.weigh(mountedRoot);
+		if (!isWeighed)
+		{
+			this.weigher.weigh(mountedRoot);
+		}
 		mountingNode.setChildrenWeight(mountedRoot.getChildrenWeight());
 		mountingNode.setMinWeight(mountedRoot.getMinWeight());
 
@@ -689,6 +815,9 @@ public class Widget extends Container implements IWidget, IProviderContext
 
 		// notify view
 		this.view.mount(mountedRoot);
+
+		// search index is stale
+		this.controller.invalidateSearchIndex();
 	}
 
 	/**
@@ -702,13 +831,16 @@ public class Widget extends Container implements IWidget, IProviderContext
 
 		// model
 		assert this.model != null;
-		@Nullable final INode mountingNode = Mounter.prune(mountedNode, this.model.tree.getEdges());
+		@Nullable final INode mountingNode = Mounter.prune(this.model.tree, mountedNode);
 		if (mountingNode == null)
 		{
 			putStatus(Statusbar.PutType.MOUNT, (contents) -> this.controller.makeHtml("mount", contents), Messages.getString("Widget.status_unmount"), Messages.getString("Widget.status_unmount_err"));
 			return;
 		}
 
+		// keep unmounted tree for remounting
+		this.mountCache.unmounted(mountedNode);
+
 		// compute locations : copy
 		final Location mountedNodeLocation = mountedNode.getLocation();
 		final Location mountingNodeLocation = mountingNode.getLocation();
@@ -716,6 +848,132 @@ public class Widget extends Container implements IWidget, IProviderContext
 
 		// notify view
 		this.view.umount(mountingNode);
+
+		// search index is stale
+		this.controller.invalidateSearchIndex();
+	}
+
+	// U P D A T E
+
+	/**
+	 * Apply provider's changes to branches of the displayed tree, on the UI thread
+	 *
+	 * @param branches branch nodes whose descendants change
+	 * @param changes  changes to apply to branches
+	 */
+	@Override
+	public void update(@NonNull final Collection<INode> branches, @NonNull final Runnable changes)
+	{
+		final Model model = this.model;
+		if (!Widget.THREADED)
+		{
+			applyUpdate(model, branches, changes);
+			return;
+		}
+		UiThread.post(() -> applyUpdate(model, branches, changes));
+	}
+
+	/**
+	 * Apply changes to branches, then reindex, reweigh and lay out again only these branches and repaint once
+	 *
+	 * @param model    model the branches belong to
+	 * @param branches branch nodes whose descendants change
+	 * @param changes  changes to apply to branches
+	 */
+	private synchronized void applyUpdate(@Nullable final Model model, @NonNull final Collection<INode> branches, @NonNull final Runnable changes)
+	{
+		// stale if model has changed meanwhile
+		if (model == null || this.model != model)
+		{
+			return;
+		}
+
+		// top branches attached to the displayed tree (others may belong to unmounted trees), nested ones being handled with them
+		@NonNull final Set<INode> branchSet = Collections.newSetFromMap(new IdentityHashMap<>());
+		branchSet.addAll(branches);
+		@NonNull final List<INode> topBranches = new ArrayList<>();
+		for (@NonNull final INode branch : branches)
+		{
+			boolean isNested = false;
+			@NonNull INode top = branch;
+			for (@Nullable INode ancestor = branch.getParent(); ancestor != null; ancestor = ancestor.getParent())
+			{
+				isNested |= branchSet.contains(ancestor);
+				top = ancestor;
+			}
+			if (!isNested && top == model.tree.getRoot())
+			{
+				topBranches.add(branch);
+			}
+		}
+
+		// unindex previous descendants
+		for (@NonNull final INode branch : topBranches)
+		{
+			unindexChildren(model.tree, branch);
+		}
+
+		// change
+		changes.run();
+
+		// index and load images of new descendants
+		for (@NonNull final INode branch : topBranches)
+		{
+			@Nullable final List<INode> children = branch.getChildren();
+			if (children != null)
+			{
+				for (@NonNull final INode child : children)
+				{
+					model.tree.index(child);
+					loadImages(child);
+				}
+			}
+		}
+		if (topBranches.isEmpty())
+		{
+			return;
+		}
+
+		for (@NonNull final INode branch : topBranches)
+		{
+			// weigh branch, keeping its own weight so that its ancestors and siblings keep their layout
+			final double weight = branch.getWeight();
+			this.weigher.weigh(branch);
+			branch.setWeight(weight);
+
+			// compute locations : layout
+			if (!this.layerOut.layoutBranch(branch))
+			{
+				this.layerOut.layout(model.tree.getRoot());
+				topBranches.clear();
+				topBranches.add(model.tree.getRoot());
+				break;
+			}
+		}
+
+		// notify view
+		this.view.update(topBranches);
+
+		// search index is stale
+		this.controller.invalidateSearchIndex();
+	}
+
+	/**
+	 * Remove branch descendants from tree's id index
+	 *
+	 * @param tree   tree
+	 * @param branch branch node
+	 */
+	static private void unindexChildren(@NonNull final Tree tree, @NonNull final INode branch)
+	{
+		@Nullable final List<INode> children = branch.getChildren();
+		if (children != null)
+		{
+			for (@NonNull final INode child : children)
+			{
+				tree.unindex(child);
+			}
+		}
 	}
 
 	// A C C E S S
@@ -753,6 +1011,17 @@ public class Widget extends Container implements IWidget, IProviderContext
 		return this.view;
 	}
 
+	/**
+	 * Get prefetcher
+	 *
+	 * @return prefetcher, null if not prefetching
+	 */
+	@Nullable
+	public Prefetcher getPrefetcher()
+	{
+		return this.prefetcher;
+	}
+
 	/**
 	 * Get statusbar
 	 *
@@ -811,6 +1080,24 @@ public class Widget extends Container implements IWidget, IProviderContext
 		return null;
 	}
 
+	/**
+	 * Make tree to mount. Providers are not reentrant, so calls to the same provider, from whatever thread, are serialized on it.
+	 *
+	 * @param provider   provider
+	 * @param source     source
+	 * @param base       base
+	 * @param parameters parameters
+	 * @return tree, null if it could not be made
+	 */
+	@Nullable
+	static Tree makeTree(@NonNull final IProvider provider, final String source, @Nullable final URL base, @Nullable final Properties parameters)
+	{
+		synchronized (provider)
+		{
+			return provider.makeTree(source, base, parameters, false);
+		}
+	}
+
 	// U R L . F A C T O R Y
 
 	/**
@@ -840,7 +1127,7 @@ public class Widget extends Container implements IWidget, IProviderContext
 	 */
 	private void loadImages()
 	{
-		this.images = new Hashtable<>();
+		this.imageLoader = new ImageLoader(this::loadImage, this::onImageLoaded);
 		this.imageBase = this.context.getImagesBase();
 		assert this.model != null;
 		loadImages(this.model.tree.getRoot());
@@ -861,51 +1148,31 @@ public class Widget extends Container implements IWidget, IProviderContext
 		}
 		if (node.getImage() == null)
 		{
-			// node image from file
-			@Nullable String source = node.getImageFile();
-			if (source != null)
-			{
-				// cache lookup
-				@Nullable Image image = this.images.get(source);
-				if (image == null)
-				{
-					// cache miss
-					image = loadImage(source);
-				}
-
-				// store image in the node
-				node.setImage(image);
-			}
-
-			// edge image
-			source = node.getEdgeImageFile();
-			if (source != null)
-			{
-				// cache lookup
-				@Nullable Image image = this.images.get(source);
-				if (image == null)
-				{
-					// cache miss
-					image = loadImage(source);
-				}
-				node.setEdgeImage(image);
-			}
-
 			assert this.model != null;
 
-			// set node image from index
+			// node image from index, else from file (stored in the node when it arrives)
 			final int imageIndex = node.getImageIndex();
+			@Nullable String source = node.getImageFile();
 			if (imageIndex != -1 && this.model.images != null)
 			{
 				node.setImage(this.model.images[imageIndex]);
 			}
+			else if (source != null)
+			{
+				this.imageLoader.load(source, node::setImage);
+			}
 
-			// set edge image from index
+			// edge image from index, else from file
 			final int edgeImageIndex = node.getEdgeImageIndex();
+			source = node.getEdgeImageFile();
 			if (edgeImageIndex != -1 && this.model.images != null)
 			{
 				node.setEdgeImage(this.model.images[edgeImageIndex]);
 			}
+			else if (source != null)
+			{
+				this.imageLoader.load(source, node::setEdgeImage);
+			}
 		}
 
 		// recurse on mounting node obfuscated by mounted node
@@ -956,28 +1223,19 @@ public class Widget extends Container implements IWidget, IProviderContext
 			return;
 		}
 
-		// edge image
-		@Nullable final String source = edge.getImageFile();
-		if (source != null)
-		{
-			// cache lookup
-			@Nullable Image image = this.images.get(source);
-			if (image == null)
-			{
-				// cache miss
-				image = loadImage(source);
-			}
-			edge.setImage(image);
-		}
-
 		assert this.model != null;
 
-		// set node image from index
+		// edge image from index, else from file (stored in the edge when it arrives)
 		final int imageIndex = edge.getImageIndex();
+		@Nullable final String source = edge.getImageFile();
 		if (imageIndex != -1 && this.model.images != null)
 		{
 			edge.setImage(this.model.images[imageIndex]);
 		}
+		else if (source != null)
+		{
+			this.imageLoader.load(source, edge::setImage);
+		}
 	}
 
 	/**
@@ -1036,15 +1294,22 @@ public class Widget extends Container implements IWidget, IProviderContext
 			}
 
 			// image loading
-			@NonNull Image image = new treebolic.glue.Image(url);
-
-			// cache image
-			this.images.put(source, image);
-			return image;
+			return new treebolic.glue.Image(url);
 		}
 		return null;
 	}
 
+	/**
+	 * Image arrival callback, images arrive progressively
+	 */
+	private void onImageLoaded()
+	{
+		if (this.view != null)
+		{
+			this.view.repaint();
+		}
+	}
+
 	// F O C U S . N O D E
 
 	/**
@@ -1072,7 +1337,7 @@ public class Widget extends Container implements IWidget, IProviderContext
 		}
 		else
 		{
-			focusNode = Finder.findNodeById(this.model.tree.getRoot(), focusNodeId);
+			focusNode = this.model.tree.getNodeById(focusNodeId);
 
 			// default to root if not found
 			if (focusNode == null)
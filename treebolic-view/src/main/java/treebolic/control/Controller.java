@@ -18,7 +18,6 @@ import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.component.PopupMenu;
 import treebolic.component.Statusbar;
-import treebolic.control.Traverser.NoCaseMatcher;
 import treebolic.core.AbstractLayerOut;
 import treebolic.core.location.Complex;
 import treebolic.glue.Point;
@@ -114,6 +113,8 @@ public class Controller extends Commander
 		 * Hover event
 		 */
 		HOVER,
+		/** Hot node change event */
+		HOT,
 		/** Drag event */
 		DRAG,
 		/** Leave drag event */
@@ -181,6 +182,7 @@ public class Controller extends Commander
 	public void connect(final Model model)
 	{
 		this.model = model;
+		invalidateSearchIndex();
 	}
 
 	/**
@@ -271,6 +273,13 @@ public class Controller extends Commander
 				break;
 			}
 
+			case HOT:
+			{
+				// hot node highlight only
+				this.view.repaintOverlay();
+				break;
+			}
+
 			case DRAG:
 			{
 				this.view.enterDrag();
@@ -1008,13 +1017,27 @@ public class Controller extends Commander
 
 	// M A T C H . N O D E
 
+	/**
+	 * Search index, built when first searched, dropped when tree changes
+	 */
 	@SuppressWarnings("InstanceVariableOfConcreteClass")
 	@Nullable
-	private Traverser traverser = null;
+	private SearchIndex searchIndex = null;
 
+	/**
+	 * Current match cursor
+	 */
 	@Nullable
 	private Iterator<INode> traversedNodes = null;
 
+	/**
+	 * Drop search index (to be called when tree changes)
+	 */
+	synchronized public void invalidateSearchIndex()
+	{
+		this.searchIndex = null;
+	}
+
 	/**
 	 * Match node against string
 	 *
@@ -1025,22 +1048,21 @@ public class Controller extends Commander
 	 * @return next found node
 	 */
 	@Nullable
-	private INode match(@NonNull final String target, final MatchScope scope, final MatchMode mode, final INode node)
+	synchronized private INode match(@NonNull final String target, final MatchScope scope, final MatchMode mode, final INode node)
 	{
 		if (this.traversedNodes == null)
 		{
-			this.traverser = new Traverser(new NoCaseMatcher(target, scope, mode), node);
-			this.traversedNodes = this.traverser.iterator();
-		}
-
-		try
-		{
-			return this.traversedNodes.next();
-		}
-		catch (NoSuchElementException ignored)
-		{
-			return null;
+			if (this.model == null || this.model.tree == null)
+			{
+				return null;
+			}
+			if (this.searchIndex == null)
+			{
+				this.searchIndex = new SearchIndex(this.model.tree.getRoot());
+			}
+			this.traversedNodes = this.searchIndex.search(target, scope, mode, node);
 		}
+		return reMatch();
 	}
 
 	/**
@@ -1067,7 +1089,7 @@ public class Controller extends Commander
 	 * @return next found node
 	 */
 	@Nullable
-	private INode reMatch()
+	synchronized private INode reMatch()
 	{
 		if (this.traversedNodes == null)
 		{
@@ -1088,21 +1110,7 @@ public class Controller extends Commander
 	 */
 	synchronized private void resetMatch()
 	{
-		if (this.traversedNodes == null)
-		{
-			return;
-		}
-		try
-		{
-			assert this.traverser != null;
-			this.traverser.close();
-		}
-		catch (InterruptedException ignored)
-		{
-			//
-		}
 		this.traversedNodes = null;
-		this.traverser = null;
 	}
 
 	// S E A R C H . F O R . N O D E . F R O M . L O C A T I O N
@@ -1118,9 +1126,7 @@ public class Controller extends Commander
 	public INode findNode(final int vx, final int vy)
 	{
 		assert this.view != null;
-		assert this.model != null;
-		@NonNull final Complex euclideanLocation = this.view.viewToUnitCircle(vx, vy);
-		return Finder.findNodeAt(this.model.tree.getRoot(), euclideanLocation, this.view.getFinderDistanceEpsilonFactor());
+		return this.view.findNode(vx, vy);
 	}
 
 	// F O C U S
@@ -1136,7 +1142,7 @@ public class Controller extends Commander
 		{
 			return;
 		}
-		@Nullable final INode node = nodeId == null || nodeId.isEmpty() ? this.model.tree.getRoot() : Finder.findNodeById(this.model.tree.getRoot(), nodeId);
+		@Nullable final INode node = nodeId == null || nodeId.isEmpty() ? this.model.tree.getRoot() : this.model.tree.getNodeById(nodeId);
 		focus(node);
 	}
 
@@ -1164,7 +1170,7 @@ public class Controller extends Commander
 	 * @return decoded URL string
 	 */
 	@Nullable
-	private static String decode(@Nullable final String str)
+	public static String decode(@Nullable final String str)
 	{
 		if (str == null)
 		{
@@ -1199,7 +1205,7 @@ public class Controller extends Commander
 		{
 			assert this.model != null;
 			@NonNull final String bookmark = href.substring(1);
-			@Nullable final INode focus = Finder.findNodeById(this.model.tree.getRoot(), bookmark);
+			@Nullable final INode focus = this.model.tree.getNodeById(bookmark);
 			if (focus != null)
 			{
 				assert this.view != null;
@@ -289,6 +289,10 @@ public class EventListenerAdapter extends EventListener
 		@Nullable final INode node = this.controller.findNode(x, y);
 		final boolean again = this.hotNode == node;
 		this.hotNode = node;
+		if (!again)
+		{
+			this.controller.handle(Controller.Event.HOT);
+		}
 		if (node != null && !again)
 		{
 			this.controller.handle(Controller.Event.HOVER, node);
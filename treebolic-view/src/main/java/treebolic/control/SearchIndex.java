@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.control;
+
+import java.util.*;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.model.INode;
+import treebolic.model.Types.MatchMode;
+import treebolic.model.Types.MatchScope;
+
+/**
+ * Search index. Nodes are numbered in depth-first preorder so that a subtree is a range of numbers and matches come out in traversal order. For each scope,
+ * built when first searched, values are case-normalized once and indexed:
+ * <ul>
+ * <li>EQUALS: hash map of values</li>
+ * <li>STARTSWITH: values sorted for binary search of prefix range</li>
+ * <li>INCLUDES: trigram postings, candidates of shortest posting list are checked; targets under 3 chars scan normalized values</li>
+ * </ul>
+ * Search returns a cursor over matches, no threads are involved. The index is a snapshot of the tree: it must be dropped when the tree changes (mount,
+ * unmount).
+ *
+ * @author Bernard Bou
+ */
+public class SearchIndex
+{
+	/**
+	 * Gram length
+	 */
+	static private final int GRAM = 3;
+
+	/**
+	 * No matches
+	 */
+	static private final int[] NONE = new int[0];
+
+	/**
+	 * Nodes, in preorder
+	 */
+	@NonNull
+	private final INode[] nodes;
+
+	/**
+	 * Preorder number of nodes
+	 */
+	@NonNull
+	private final Map<INode, Integer> numbers;
+
+	/**
+	 * Subtree sizes, by preorder number
+	 */
+	@NonNull
+	private final int[] sizes;
+
+	/**
+	 * Locale
+	 */
+	@NonNull
+	private final Locale locale;
+
+	/**
+	 * Scope indexes, built when first searched
+	 */
+	@NonNull
+	private final ScopeIndex[] scopeIndexes;
+
+	/**
+	 * Index of one scope
+	 */
+	private class ScopeIndex
+	{
+		/**
+		 * Normalized values, by preorder number
+		 */
+		@NonNull
+		final String[] values;
+
+		/**
+		 * Value to preorder numbers
+		 */
+		@NonNull
+		final Map<String, int[]> exact;
+
+		/**
+		 * Preorder numbers of non-null values sorted by value
+		 */
+		@NonNull
+		final int[] sorted;
+
+		/**
+		 * Trigram to preorder numbers
+		 */
+		@NonNull
+		final Map<Long, int[]> grams;
+
+		/**
+		 * Constructor
+		 *
+		 * @param scope scope
+		 */
+		ScopeIndex(@NonNull final MatchScope scope)
+		{
+			final int n = SearchIndex.this.nodes.length;
+			this.values = new String[n];
+			@NonNull final Map<String, IntList> exact = new HashMap<>();
+			@NonNull final Map<Long, IntList> grams = new HashMap<>();
+			int count = 0;
+			for (int i = 0; i < n; i++)
+			{
+				@Nullable final String value = SearchIndex.value(SearchIndex.this.nodes[i], scope);
+				if (value == null)
+				{
+					continue;
+				}
+				@NonNull final String normalized = value.toLowerCase(SearchIndex.this.locale);
+				this.values[i] = normalized;
+				count++;
+				exact.computeIfAbsent(normalized, k -> new IntList()).add(i);
+				for (int j = 0; j + SearchIndex.GRAM <= normalized.length(); j++)
+				{
+					final IntList posting = grams.computeIfAbsent(SearchIndex.gram(normalized, j), k -> new IntList());
+					posting.addIfNotLast(i);
+				}
+			}
+
+			// freeze
+			this.exact = new HashMap<>(exact.size() * 4 / 3 + 1);
+			for (final Map.Entry<String, IntList> entry : exact.entrySet())
+			{
+				this.exact.put(entry.getKey(), entry.getValue().toArray());
+			}
+			this.grams = new HashMap<>(grams.size() * 4 / 3 + 1);
+			for (final Map.Entry<Long, IntList> entry : grams.entrySet())
+			{
+				this.grams.put(entry.getKey(), entry.getValue().toArray());
+			}
+
+			// sort
+			@NonNull final Integer[] sorted = new Integer[count];
+			for (int i = 0, k = 0; i < n; i++)
+			{
+				if (this.values[i] != null)
+				{
+					sorted[k++] = i;
+				}
+			}
+			Arrays.sort(sorted, Comparator.comparing((Integer i) -> this.values[i]).thenComparingInt(i -> i));
+			this.sorted = new int[count];
+			for (int i = 0; i < count; i++)
+			{
+				this.sorted[i] = sorted[i];
+			}
+		}
+
+		/**
+		 * Find matches
+		 *
+		 * @param target normalized target
+		 * @param mode   mode
+		 * @return preorder numbers of matches, ascending
+		 */
+		@NonNull
+		int[] find(@NonNull final String target, @NonNull final MatchMode mode)
+		{
+			switch (mode)
+			{
+				case EQUALS:
+				{
+					@Nullable final int[] matches = this.exact.get(target);
+					return matches == null ? SearchIndex.NONE : matches;
+				}
+
+				case INCLUDES:
+				{
+					if (target.length() < SearchIndex.GRAM)
+					{
+						@NonNull final IntList matches = new IntList();
+						for (int i = 0; i < this.values.length; i++)
+						{
+							if (this.values[i] != null && this.values[i].contains(target))
+							{
+								matches.add(i);
+							}
+						}
+						return matches.toArray();
+					}
+
+					// shortest posting
+					@Nullable int[] candidates = null;
+					for (int j = 0; j + SearchIndex.GRAM <= target.length(); j++)
+					{
+						@Nullable final int[] posting = this.grams.get(SearchIndex.gram(target, j));
+						if (posting == null)
+						{
+							return SearchIndex.NONE;
+						}
+						if (candidates == null || posting.length < candidates.length)
+						{
+							candidates = posting;
+						}
+					}
+					assert candidates != null;
+					@NonNull final IntList matches = new IntList();
+					for (final int i : candidates)
+					{
+						if (this.values[i].contains(target))
+						{
+							matches.add(i);
+						}
+					}
+					return matches.toArray();
+				}
+
+				case STARTSWITH:
+				default:
+				{
+					// first value >= target
+					int lo = 0;
+					int hi = this.sorted.length;
+					while (lo < hi)
+					{
+						final int mid = (lo + hi) >>> 1;
+						if (this.values[this.sorted[mid]].compareTo(target) < 0)
+						{
+							lo = mid + 1;
+						}
+						else
+						{
+							hi = mid;
+						}
+					}
+					@NonNull final IntList matches = new IntList();
+					for (int k = lo; k < this.sorted.length && this.values[this.sorted[k]].startsWith(target); k++)
+					{
+						matches.add(this.sorted[k]);
+					}
+					@NonNull final int[] result = matches.toArray();
+					Arrays.sort(result);
+					return result;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Match cursor
+	 */
+	public class Cursor implements Iterator<INode>
+	{
+		/**
+		 * Preorder numbers of matches
+		 */
+		@NonNull
+		private final int[] matches;
+
+		/**
+		 * Next match
+		 */
+		private int next;
+
+		/**
+		 * End of matches
+		 */
+		private final int end;
+
+		/**
+		 * Constructor
+		 *
+		 * @param matches preorder numbers of matches, ascending
+		 * @param from    first preorder number in range
+		 * @param to      preorder number past range
+		 */
+		Cursor(@NonNull final int[] matches, final int from, final int to)
+		{
+			this.matches = matches;
+			this.next = SearchIndex.lowerBound(matches, from);
+			this.end = SearchIndex.lowerBound(matches, to);
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return this.next < this.end;
+		}
+
+		@NonNull
+		@Override
+		public INode next()
+		{
+			if (this.next >= this.end)
+			{
+				throw new NoSuchElementException();
+			}
+			return SearchIndex.this.nodes[this.matches[this.next++]];
+		}
+	}
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Constructor
+	 *
+	 * @param root root
+	 */
+	public SearchIndex(@Nullable final INode root)
+	{
+		this.locale = Locale.getDefault();
+		this.scopeIndexes = new ScopeIndex[MatchScope.values().length];
+
+		// preorder
+		@NonNull final List<INode> nodes = new ArrayList<>();
+		@NonNull final IntList sizes = new IntList();
+		@NonNull final Deque<INode> stack = new ArrayDeque<>();
+		if (root != null)
+		{
+			stack.push(root);
+		}
+		while (!stack.isEmpty())
+		{
+			final INode node = stack.pop();
+			nodes.add(node);
+			sizes.add(1);
+			@Nullable final List<INode> children = node.getChildren();
+			if (children != null)
+			{
+				for (int i = children.size() - 1; i >= 0; i--)
+				{
+					stack.push(children.get(i));
+				}
+			}
+		}
+		this.nodes = nodes.toArray(new INode[0]);
+		this.numbers = new IdentityHashMap<>(this.nodes.length);
+		for (int i = 0; i < this.nodes.length; i++)
+		{
+			this.numbers.put(this.nodes[i], i);
+		}
+
+		// subtree sizes, children come after parents
+		this.sizes = sizes.toArray();
+		for (int i = this.nodes.length - 1; i > 0; i--)
+		{
+			@Nullable final INode parent = this.nodes[i].getParent();
+			@Nullable final Integer p = parent == null ? null : this.numbers.get(parent);
+			if (p != null)
+			{
+				this.sizes[p] += this.sizes[i];
+			}
+		}
+	}
+
+	// S E A R C H
+
+	/**
+	 * Search
+	 *
+	 * @param target target (case is ignored)
+	 * @param scope  scope
+	 * @param mode   mode
+	 * @param start  subtree to search, null for whole tree
+	 * @return cursor over matches, in preorder
+	 */
+	@NonNull
+	public synchronized Cursor search(@NonNull final String target, @NonNull final MatchScope scope, @NonNull final MatchMode mode, @Nullable final INode start)
+	{
+		// range
+		int from = 0;
+		int to = this.nodes.length;
+		if (start != null)
+		{
+			@Nullable final Integer number = this.numbers.get(start);
+			if (number == null)
+			{
+				return new Cursor(SearchIndex.NONE, 0, 0);
+			}
+			from = number;
+			to = number + this.sizes[number];
+		}
+		if (target.isEmpty())
+		{
+			return new Cursor(SearchIndex.NONE, 0, 0);
+		}
+
+		// scope index
+		@Nullable ScopeIndex scopeIndex = this.scopeIndexes[scope.ordinal()];
+		if (scopeIndex == null)
+		{
+			scopeIndex = new ScopeIndex(scope);
+			this.scopeIndexes[scope.ordinal()] = scopeIndex;
+		}
+		return new Cursor(scopeIndex.find(target.toLowerCase(this.locale), mode), from, to);
+	}
+
+	// H E L P E R S
+
+	/**
+	 * Value of node in scope
+	 *
+	 * @param node  node
+	 * @param scope scope
+	 * @return value
+	 */
+	@Nullable
+	static private String value(@NonNull final INode node, @NonNull final MatchScope scope)
+	{
+		switch (scope)
+		{
+			case CONTENT:
+				return node.getContent();
+			case LINK:
+				return node.getLink();
+			case ID:
+				return node.getId();
+			case LABEL:
+			default:
+				return node.getLabel();
+		}
+	}
+
+	/**
+	 * Pack gram
+	 *
+	 * @param s     string
+	 * @param index gram start
+	 * @return packed gram
+	 */
+	static private long gram(@NonNull final String s, final int index)
+	{
+		return (long) s.charAt(index) << 32 | (long) s.charAt(index + 1) << 16 | s.charAt(index + 2);
+	}
+
+	/**
+	 * Index of first element not less than value
+	 *
+	 * @param array sorted array
+	 * @param value value
+	 * @return index
+	 */
+	static private int lowerBound(@NonNull final int[] array, final int value)
+	{
+		int lo = 0;
+		int hi = array.length;
+		while (lo < hi)
+		{
+			final int mid = (lo + hi) >>> 1;
+			if (array[mid] < value)
+			{
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Growable int array
+	 */
+	static private class IntList
+	{
+		private int[] data = new int[2];
+
+		private int size;
+
+		void add(final int value)
+		{
+			if (this.size == this.data.length)
+			{
+				this.data = Arrays.copyOf(this.data, this.size * 2);
+			}
+			this.data[this.size++] = value;
+		}
+
+		void addIfNotLast(final int value)
+		{
+			if (this.size == 0 || this.data[this.size - 1] != value)
+			{
+				add(value);
+			}
+		}
+
+		@NonNull
+		int[] toArray()
+		{
+			return Arrays.copyOf(this.data, this.size);
+		}
+	}
+}
@@ -113,6 +113,12 @@ public abstract class AbstractLayerOut
 	@SuppressWarnings("WeakerAccess")
 	protected boolean clockwise;
 
+	/**
+	 * Subtree size above which a subtree is laid out in a task of its own, 0 for sequential layout
+	 */
+	@SuppressWarnings("WeakerAccess")
+	protected int parallelThreshold;
+
 	// C O N S T R U C T O R
 
 	/**
@@ -148,6 +154,14 @@ public abstract class AbstractLayerOut
 	 */
 	abstract public void layout(INode node, Complex center, double halfWedge, double orientation);
 
+	/**
+	 * Do layout of branch again, within the wedge its ancestors allocate to it as they are currently weighed
+	 *
+	 * @param node branch node
+	 * @return false if branch could not be located among its ancestors' children
+	 */
+	abstract public boolean layoutBranch(INode node);
+
 	// A C C E S S
 
 	// ORIENTATION
@@ -339,6 +353,19 @@ public abstract class AbstractLayerOut
 		}
 	}
 
+	// PARALLEL
+
+	/**
+	 * Set parallel execution
+	 *
+	 * @param flag      whether parallel execution is enabled (null for sequential)
+	 * @param threshold subtree size above which a subtree is laid out in a task of its own (null for default)
+	 */
+	public void setParallel(@Nullable final Boolean flag, @Nullable final Integer threshold)
+	{
+		this.parallelThreshold = Parallel.threshold(flag, threshold);
+	}
+
 	// H E L P E R S
 
 	/**
@@ -383,5 +410,8 @@ public abstract class AbstractLayerOut
 
 		// sweep
 		setDefaultSettingsSweep(radial, settings.sweep);
+
+		// parallel
+		setParallel(settings.parallelFlag, settings.parallelThreshold);
 	}
 }
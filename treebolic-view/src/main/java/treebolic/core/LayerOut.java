@@ -4,11 +4,17 @@
 
 package treebolic.core;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 
 import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.core.location.Complex;
+import treebolic.core.location.HyperCircle;
 import treebolic.core.math.Distance;
 import treebolic.core.transform.HyperTranslation;
 import treebolic.model.INode;
@@ -51,7 +57,7 @@ public class LayerOut extends AbstractLayerOut
 		node.getLocation().hyper.set(Complex.ZERO, this.radius);
 
 		// handle its children
-		layoutChildren(node, this.rootSweep, this.rootOrientation.arg());
+		layoutChildren(node, this.rootSweep, this.rootOrientation.arg(), this.parallelThreshold > 0);
 	}
 
 	@Override
@@ -66,7 +72,63 @@ public class LayerOut extends AbstractLayerOut
 		node.getLocation().hyper.set(center, this.radius);
 
 		// handle its children
-		layoutChildren(node, halfWedge, orientation);
+		layoutChildren(node, halfWedge, orientation, this.parallelThreshold > 0);
+	}
+
+	@Override
+	public synchronized boolean layoutBranch(@NonNull final INode node)
+	{
+		// path from root
+		@NonNull final Deque<INode> path = new ArrayDeque<>();
+		for (@Nullable INode ancestor = node; ancestor != null; ancestor = ancestor.getParent())
+		{
+			path.push(ancestor);
+		}
+
+		// replay wedge and orientation computations down the path
+		@NonNull final Iterator<INode> iterator = path.iterator();
+		@NonNull INode parent = iterator.next();
+		double halfWedge = this.rootSweep;
+		double orientation = this.rootOrientation.arg();
+		while (iterator.hasNext())
+		{
+			@NonNull final INode child = iterator.next();
+			@Nullable final List<INode> children = parent.getChildren();
+			if (children == null)
+			{
+				return false;
+			}
+			@NonNull final Complex center = parent.getLocation().hyper.center0;
+			final double nodeDistance = computeDistance(children.size());
+			double childSweeper = orientation - (this.clockwise ? halfWedge : -halfWedge);
+			boolean found = false;
+			for (@NonNull final INode sibling : children)
+			{
+				final double share = Math.abs(sibling.getWeight()) / parent.getChildrenWeight();
+				final double childHalfWedgeShare = halfWedge * share;
+				childSweeper += this.clockwise ? childHalfWedgeShare : -childHalfWedgeShare;
+				if (sibling == child)
+				{
+					@NonNull final Complex childCenter = HyperTranslation.map(Complex.makeFromArgAbs(childSweeper, nodeDistance), center);
+					orientation = LayerOut.computeOrientation(center, childCenter, childSweeper);
+					halfWedge = LayerOut.computeWedge(nodeDistance, childHalfWedgeShare);
+					found = true;
+					break;
+				}
+				childSweeper += this.clockwise ? childHalfWedgeShare : -childHalfWedgeShare;
+			}
+			if (!found)
+			{
+				return false;
+			}
+			parent = child;
+		}
+
+		// layout branch in place, node keeping its radius
+		@NonNull final HyperCircle hyper = node.getLocation().hyper;
+		hyper.set(new Complex(hyper.center0), hyper.radius);
+		layoutChildren(node, halfWedge, orientation, this.parallelThreshold > 0);
+		return true;
 	}
 
 	// O P E R A T I O N S
@@ -77,8 +139,9 @@ public class LayerOut extends AbstractLayerOut
 	 * @param node        starting node
 	 * @param halfWedge   half wedge allocated to this node
 	 * @param orientation orientation of this node
+	 * @param parallel    whether to fork large subtrees
 	 */
-	private void layoutChildren(@NonNull final INode node, final double halfWedge, final double orientation)
+	private void layoutChildren(@NonNull final INode node, final double halfWedge, final double orientation, final boolean parallel)
 	{
 		// children
 		@Nullable final List<INode> children = node.getChildren();
@@ -94,6 +157,9 @@ public class LayerOut extends AbstractLayerOut
 		final double nodeDistance = computeDistance(children.size());
 		final double radius = Distance.distanceToOrigin_e2h(nodeDistance / 2.);
 
+		// forked subtrees
+		@Nullable List<ForkJoinTask<?>> tasks = null;
+
 		// iterate
 		double childSweeper = orientation - (this.clockwise ? halfWedge : -halfWedge);
 		for (@NonNull final INode child : children)
@@ -135,11 +201,31 @@ public class LayerOut extends AbstractLayerOut
 			}
 
 			// recurse
-			layoutChildren(child, childHalfWedge, childOrientation);
+			if (parallel && Parallel.isLarge(child, this.parallelThreshold))
+			{
+				if (tasks == null)
+				{
+					tasks = new ArrayList<>();
+				}
+				tasks.add(ForkJoinTask.adapt(() -> layoutChildren(child, childHalfWedge, childOrientation, true)).fork());
+			}
+			else
+			{
+				layoutChildren(child, childHalfWedge, childOrientation, false);
+			}
 
 			// sweep to next
 			childSweeper += this.clockwise ? childHalfWedgeShare : -childHalfWedgeShare;
 		}
+
+		// wait for forked subtrees
+		if (tasks != null)
+		{
+			for (final ForkJoinTask<?> task : tasks)
+			{
+				task.join();
+			}
+		}
 	}
 
 	/**
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.model.INode;
+
+/**
+ * Fork/join helper for tree walks. Children subtrees whose size reaches a threshold are forked to the common fork/join pool, others are processed by the
+ * calling thread. Each node is still processed by exactly the same computation as in a sequential walk, so results do not depend on the mode. Subtree
+ * sizes are those stored by the weigher, so that deciding what to fork costs nothing.
+ *
+ * @author Bernard Bou
+ */
+public class Parallel
+{
+	/**
+	 * Default subtree size above which a subtree is processed in a task of its own
+	 */
+	static public final int DEFAULT_THRESHOLD = 10000;
+
+	/**
+	 * Threshold to use given settings
+	 *
+	 * @param flag      whether parallel execution is enabled (null for sequential)
+	 * @param threshold subtree size threshold (null for default)
+	 * @return subtree size above which a subtree is forked, 0 for sequential execution
+	 */
+	static public int threshold(@Nullable final Boolean flag, @Nullable final Integer threshold)
+	{
+		if (flag == null || !flag)
+		{
+			return 0;
+		}
+		return threshold == null || threshold < 1 ? Parallel.DEFAULT_THRESHOLD : threshold;
+	}
+
+	/**
+	 * Process children, forking large subtrees, and wait for completion
+	 *
+	 * @param children  children
+	 * @param threshold subtree size above which the child's subtree is forked
+	 * @param large     processing of large subtrees (run in a forked task)
+	 * @param small     processing of small subtrees (run by calling thread)
+	 */
+	static public void forEach(@NonNull final List<INode> children, final int threshold, @NonNull final Consumer<INode> large, @NonNull final Consumer<INode> small)
+	{
+		@Nullable List<ForkJoinTask<?>> tasks = null;
+		for (final INode child : children)
+		{
+			if (Parallel.isLarge(child, threshold))
+			{
+				if (tasks == null)
+				{
+					tasks = new ArrayList<>();
+				}
+				tasks.add(ForkJoinTask.adapt(() -> large.accept(child)).fork());
+			}
+			else
+			{
+				small.accept(child);
+			}
+		}
+		if (tasks != null)
+		{
+			for (final ForkJoinTask<?> task : tasks)
+			{
+				task.join();
+			}
+		}
+	}
+
+	/**
+	 * Whether subtree size, as stored when it was last weighed, reaches threshold
+	 *
+	 * @param node      subtree root
+	 * @param threshold threshold
+	 * @return true if subtree has at least threshold nodes
+	 */
+	static public boolean isLarge(@Nullable final INode node, final int threshold)
+	{
+		return node != null && node.getLocation().subtreeSize >= threshold;
+	}
+
+	/**
+	 * Compute and store subtree sizes
+	 *
+	 * @param node subtree root
+	 * @return subtree size
+	 */
+	static public int measure(@NonNull final INode node)
+	{
+		int n = 1;
+		@Nullable final List<INode> children = node.getChildren();
+		if (children != null)
+		{
+			for (final INode child : children)
+			{
+				n += Parallel.measure(child);
+			}
+		}
+		node.getLocation().subtreeSize = n;
+		return n;
+	}
+
+	/**
+	 * Compute and store subtree size from children's stored sizes
+	 *
+	 * @param node subtree root
+	 */
+	static public void sum(@NonNull final INode node)
+	{
+		int n = 1;
+		@Nullable final List<INode> children = node.getChildren();
+		if (children != null)
+		{
+			for (final INode child : children)
+			{
+				n += child.getLocation().subtreeSize;
+			}
+		}
+		node.getLocation().subtreeSize = n;
+	}
+}
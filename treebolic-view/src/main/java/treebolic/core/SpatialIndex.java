@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.core.location.Complex;
+import treebolic.core.math.MapperToEuclidean;
+import treebolic.model.INode;
+import treebolic.model.Location;
+
+/**
+ * Spatial index of nodes for hit-testing. This is a uniform grid over the unit circle keyed on nodes' euclidean centers. Each cell references the nodes whose
+ * hit area overlaps it so that a query only scans the nodes in the cell the point falls in. Border nodes are not indexed. The index is invalidated by the
+ * transformer whenever it moves nodes and is lazily rebuilt on next query.
+ *
+ * @author Bernard Bou
+ */
+public class SpatialIndex
+{
+	// C O N S T A N T S
+
+	/**
+	 * Number of cells on each side of the grid
+	 */
+	static private final int GRID = 64;
+
+	/**
+	 * Cell size (the grid spans [-1,1] on both axes)
+	 */
+	static private final double CELL = 2. / SpatialIndex.GRID;
+
+	// D A T A
+
+	/**
+	 * Indexed root
+	 */
+	@Nullable
+	private INode root;
+
+	/**
+	 * Epsilon factor the index was built with
+	 */
+	private float distanceEpsilonFactor;
+
+	/**
+	 * Whether index reflects current locations
+	 */
+	private boolean isValid;
+
+	/**
+	 * Start index of each cell's nodes in entries, cell i spanning [cellStarts[i], cellStarts[i+1])
+	 */
+	@NonNull
+	private final int[] cellStarts;
+
+	/**
+	 * Indexed nodes, grouped by cell
+	 */
+	@NonNull
+	private INode[] entries;
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Constructor
+	 */
+	public SpatialIndex()
+	{
+		this.cellStarts = new int[SpatialIndex.GRID * SpatialIndex.GRID + 1];
+		this.entries = new INode[0];
+		this.isValid = false;
+	}
+
+	// I N V A L I D A T E
+
+	/**
+	 * Invalidate index, it will be rebuilt on next query
+	 */
+	public synchronized void invalidate()
+	{
+		this.isValid = false;
+	}
+
+	// Q U E R Y
+
+	/**
+	 * Find node nearest to point
+	 *
+	 * @param root                  root node
+	 * @param point                 point
+	 * @param distanceEpsilonFactor distance epsilon factor, contributes to computing epsilon distance below which the node is not found (platform dependent)
+	 * @return node if found, null otherwise
+	 */
+	@Nullable
+	public synchronized INode findNodeAt(@Nullable final INode root, @NonNull final Complex point, final float distanceEpsilonFactor)
+	{
+		if (root == null)
+		{
+			return null;
+		}
+		if (!this.isValid || root != this.root || distanceEpsilonFactor != this.distanceEpsilonFactor)
+		{
+			build(root, distanceEpsilonFactor);
+		}
+
+		// cell
+		final int cell = SpatialIndex.toCell(point.im) * SpatialIndex.GRID + SpatialIndex.toCell(point.re);
+
+		// nearest among nodes whose hit area contains point (using squares as a measure)
+		@Nullable INode result = null;
+		double distance = Double.MAX_VALUE;
+		for (int i = this.cellStarts[cell]; i < this.cellStarts[cell + 1]; i++)
+		{
+			final INode node = this.entries[i];
+			final Location location = node.getLocation();
+			final double dx = location.euclidean.center.re - point.re;
+			final double dy = location.euclidean.center.im - point.im;
+			final double distance2 = dx * dx + dy * dy;
+			if (distance2 < distance && distance2 < location.euclidean.radius * location.euclidean.radius * distanceEpsilonFactor)
+			{
+				result = node;
+				distance = distance2;
+			}
+		}
+		return result;
+	}
+
+	// B U I L D
+
+	/**
+	 * Build index
+	 *
+	 * @param root                  root node
+	 * @param distanceEpsilonFactor distance epsilon factor
+	 */
+	private void build(@NonNull final INode root, final float distanceEpsilonFactor)
+	{
+		// collect
+		@NonNull final List<INode> nodes = new ArrayList<>();
+		SpatialIndex.collect(root, nodes);
+
+		// cell ranges (x0, x1, y0, y1) of nodes' hit areas
+		final double reachFactor = Math.sqrt(distanceEpsilonFactor);
+		final int n = nodes.size();
+		@NonNull final int[] ranges = new int[4 * n];
+		@NonNull final int[] counts = new int[SpatialIndex.GRID * SpatialIndex.GRID];
+		for (int i = 0; i < n; i++)
+		{
+			final Location location = nodes.get(i).getLocation();
+			final double reach = location.euclidean.radius * reachFactor;
+			final int x0 = SpatialIndex.toCell(location.euclidean.center.re - reach);
+			final int x1 = SpatialIndex.toCell(location.euclidean.center.re + reach);
+			final int y0 = SpatialIndex.toCell(location.euclidean.center.im - reach);
+			final int y1 = SpatialIndex.toCell(location.euclidean.center.im + reach);
+			ranges[4 * i] = x0;
+			ranges[4 * i + 1] = x1;
+			ranges[4 * i + 2] = y0;
+			ranges[4 * i + 3] = y1;
+			for (int y = y0; y <= y1; y++)
+			{
+				for (int x = x0; x <= x1; x++)
+				{
+					counts[y * SpatialIndex.GRID + x]++;
+				}
+			}
+		}
+
+		// cell starts
+		this.cellStarts[0] = 0;
+		for (int cell = 0; cell < counts.length; cell++)
+		{
+			this.cellStarts[cell + 1] = this.cellStarts[cell] + counts[cell];
+		}
+
+		// fill
+		this.entries = new INode[this.cellStarts[counts.length]];
+		@NonNull final int[] fills = Arrays.copyOf(this.cellStarts, counts.length);
+		for (int i = 0; i < n; i++)
+		{
+			final INode node = nodes.get(i);
+			for (int y = ranges[4 * i + 2]; y <= ranges[4 * i + 3]; y++)
+			{
+				for (int x = ranges[4 * i]; x <= ranges[4 * i + 1]; x++)
+				{
+					this.entries[fills[y * SpatialIndex.GRID + x]++] = node;
+				}
+			}
+		}
+
+		this.root = root;
+		this.distanceEpsilonFactor = distanceEpsilonFactor;
+		this.isValid = true;
+	}
+
+	/**
+	 * Collect non-border nodes recursively, mapping those whose euclidean circle is not up-to-date
+	 *
+	 * @param node  starting node
+	 * @param nodes collected nodes
+	 */
+	static private void collect(@Nullable final INode node, @NonNull final List<INode> nodes)
+	{
+		if (node == null)
+		{
+			return;
+		}
+
+		// this node
+		final Location location = node.getLocation();
+		if (!location.hyper.isBorder)
+		{
+			if (location.hyper.isDirty)
+			{
+				MapperToEuclidean.mapToEuclidean(location);
+			}
+			nodes.add(node);
+		}
+
+		// recurse on children
+		@Nullable final List<INode> children = node.getChildren();
+		if (children != null)
+		{
+			for (final INode child : children)
+			{
+				SpatialIndex.collect(child, nodes);
+			}
+		}
+	}
+
+	/**
+	 * Cell coordinate
+	 *
+	 * @param x unit circle coordinate
+	 * @return cell coordinate, clamped to grid
+	 */
+	static private int toCell(final double x)
+	{
+		final int cell = (int) Math.floor((x + 1.) / SpatialIndex.CELL);
+		return cell < 0 ? 0 : Math.min(cell, SpatialIndex.GRID - 1);
+	}
+}
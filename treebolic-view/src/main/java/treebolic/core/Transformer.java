@@ -33,6 +33,18 @@ public class Transformer
 	 */
 	private boolean preserveOrientationFlag;
 
+	/**
+	 * Subtree size above which a subtree is transformed in a task of its own, 0 for sequential transform
+	 */
+	private int parallelThreshold;
+
+	/**
+	 * Spatial index to invalidate when nodes move
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@Nullable
+	private SpatialIndex index;
+
 	// C O N S T R U C T O R
 
 	/**
@@ -44,6 +56,18 @@ public class Transformer
 		this.transform = new HyperTransform();
 	}
 
+	// C O N N E C T
+
+	/**
+	 * Connect spatial index
+	 *
+	 * @param index spatial index to invalidate whenever nodes move
+	 */
+	public void connect(@Nullable final SpatialIndex index)
+	{
+		this.index = index;
+	}
+
 	// A C C E S S
 
 	/**
@@ -76,6 +100,17 @@ public class Transformer
 		this.preserveOrientationFlag = flag;
 	}
 
+	/**
+	 * Set parallel execution
+	 *
+	 * @param flag      whether parallel execution is enabled (null for sequential)
+	 * @param threshold subtree size above which a subtree is transformed in a task of its own (null for default)
+	 */
+	public void setParallel(@Nullable final Boolean flag, @Nullable final Integer threshold)
+	{
+		this.parallelThreshold = Parallel.threshold(flag, threshold);
+	}
+
 	// S E T
 
 	/**
@@ -107,8 +142,9 @@ public class Transformer
 	 */
 	public synchronized void transform(@NonNull final INode node)
 	{
-		applyTransform(node, new HyperOptimizedTransform(this.transform));
+		applyTransform(node, new HyperOptimizedTransform(this.transform), this.parallelThreshold > 0);
 		node.getLocation().hyper.isBorder = false;
+		invalidateIndex();
 	}
 
 	/**
@@ -120,6 +156,18 @@ public class Transformer
 	{
 		applyReset(node);
 		setTransform(HyperTransform.NULLTRANSFORM);
+		invalidateIndex();
+	}
+
+	/**
+	 * Invalidate spatial index if any
+	 */
+	private void invalidateIndex()
+	{
+		if (this.index != null)
+		{
+			this.index.invalidate();
+		}
 	}
 
 	// T R A N S F O R M F A C T O R Y
@@ -134,6 +182,21 @@ public class Transformer
 	 */
 	@NonNull
 	public HyperTransform makeTransform(@NonNull final Complex from, @NonNull final Complex to, @NonNull final Complex orientation)
+	{
+		return makeTransform(from, to, orientation, getTransform());
+	}
+
+	/**
+	 * Make transform relative to given current transform
+	 *
+	 * @param from             translation from-point
+	 * @param to               translation to-point
+	 * @param orientation      orientation
+	 * @param currentTransform transform the new transform is to be composed with (radial orientation is preserved relative to where it maps the origin)
+	 * @return transform
+	 */
+	@NonNull
+	public HyperTransform makeTransform(@NonNull final Complex from, @NonNull final Complex to, @NonNull final Complex orientation, @NonNull final HyperTransform currentTransform)
 	{
 		if (!this.preserveOrientationFlag)
 		{
@@ -143,7 +206,7 @@ public class Transformer
 		// orientation preserving
 		if (orientation == Complex.ZERO)
 		{
-			return new HyperRadialOrientationPreservingTransform(from, to, getTransform().map(new Complex(Complex.ZERO)));
+			return new HyperRadialOrientationPreservingTransform(from, to, currentTransform.map(new Complex(Complex.ZERO)));
 		}
 		return new HyperOrientationPreservingTransform(from, to, orientation);
 	}
@@ -151,12 +214,13 @@ public class Transformer
 	// A P P L Y
 
 	/**
-	 * Apply transform
+	 * Apply transform (mapping to euclidean space is deferred to painting, in either mode)
 	 *
 	 * @param node      node to apply transform to
 	 * @param transform transform to apply
+	 * @param parallel  whether to fork large subtrees
 	 */
-	private void applyTransform(@Nullable final INode node, @NonNull final IHyperTransform transform)
+	private void applyTransform(@Nullable final INode node, @NonNull final IHyperTransform transform, final boolean parallel)
 	{
 		if (node == null)
 		{
@@ -170,9 +234,16 @@ public class Transformer
 		@Nullable final List<INode> children = node.getChildren();
 		if (children != null)
 		{
-			for (final INode child : children)
+			if (parallel)
+			{
+				Parallel.forEach(children, this.parallelThreshold, child -> applyTransform(child, transform, true), child -> applyTransform(child, transform, false));
+			}
+			else
 			{
-				applyTransform(child, transform);
+				for (final INode child : children)
+				{
+					applyTransform(child, transform, false);
+				}
 			}
 		}
 	}
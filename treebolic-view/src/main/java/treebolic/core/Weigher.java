@@ -9,6 +9,7 @@ import java.util.List;
 import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.model.INode;
+import treebolic.model.Settings;
 
 /**
  * Node Weigher
@@ -17,6 +18,13 @@ import treebolic.model.INode;
  */
 public class Weigher
 {
+	// D A T A
+
+	/**
+	 * Subtree size above which a subtree is weighed in a task of its own, 0 for sequential weighing
+	 */
+	private int parallelThreshold;
+
 	// C O N S T R U C T I O N
 
 	/**
@@ -27,6 +35,29 @@ public class Weigher
 		// do nothing
 	}
 
+	// A C C E S S
+
+	/**
+	 * Set parallel execution
+	 *
+	 * @param flag      whether parallel execution is enabled (null for sequential)
+	 * @param threshold subtree size above which a subtree is weighed in a task of its own (null for default)
+	 */
+	public void setParallel(@Nullable final Boolean flag, @Nullable final Integer threshold)
+	{
+		this.parallelThreshold = Parallel.threshold(flag, threshold);
+	}
+
+	/**
+	 * Apply settings
+	 *
+	 * @param settings settings
+	 */
+	public void apply(@NonNull final Settings settings)
+	{
+		setParallel(settings.parallelFlag, settings.parallelThreshold);
+	}
+
 	// O P E R A T I O N
 
 	/**
@@ -35,10 +66,35 @@ public class Weigher
 	 * @param node node
 	 */
 	public void weigh(@NonNull final INode node)
+	{
+		// subtree sizes decide what is forked
+		final boolean parallel = this.parallelThreshold > 0;
+		if (parallel)
+		{
+			Parallel.measure(node);
+		}
+
+		weigh(node, parallel);
+
+		// ancestors' subtree sizes (node may have been grafted or changed)
+		for (@Nullable INode ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent())
+		{
+			Parallel.sum(ancestor);
+		}
+	}
+
+	/**
+	 * Weigh this node
+	 *
+	 * @param node     node
+	 * @param parallel whether to fork large subtrees
+	 */
+	private void weigh(@NonNull final INode node, final boolean parallel)
 	{
 		@Nullable final List<INode> children = node.getChildren();
 		if (children == null || children.isEmpty())
 		{
+			node.getLocation().subtreeSize = 1;
 			node.setChildrenWeight(0.);
 			node.setMinWeight(1.);
 
@@ -52,11 +108,22 @@ public class Weigher
 		{
 			double childrenWeightSum = 0.;
 			double minWeight = 1000.;
-			for (@NonNull final INode child : node.getChildren())
+
+			// compute children's weights
+			if (parallel)
+			{
+				Parallel.forEach(children, this.parallelThreshold, child -> weigh(child, true), child -> weigh(child, false));
+			}
+			else
 			{
-				// compute this child's weight
-				weigh(child);
+				for (@NonNull final INode child : children)
+				{
+					weigh(child, false);
+				}
+			}
 
+			for (@NonNull final INode child : children)
+			{
 				// sum
 				final double weight = Math.abs(child.getWeight());
 				childrenWeightSum += weight;
@@ -69,6 +136,7 @@ public class Weigher
 			}
 			node.setChildrenWeight(childrenWeightSum);
 			node.setMinWeight(minWeight);
+			Parallel.sum(node);
 
 			// negative weights are considered preset and can't be changed
 			if (node.getWeight() >= 0.)
@@ -5,10 +5,8 @@
 package treebolic.core.math;
 
 import treebolic.annotations.NonNull;
-import treebolic.core.location.Complex;
 import treebolic.core.location.EuclideanCircle;
 import treebolic.core.location.HyperCircle;
-import treebolic.core.transform.HyperTranslation;
 import treebolic.model.Location;
 
 /**
@@ -55,19 +53,22 @@ public class MapperToEuclidean
 				// map this hypercircle circle HC (center, radius) to euclidean
 				// circle EC (origin, eradius)
 				// z1 and z2 are the ends of diameter on (0,C) direction
-				@NonNull final Complex z1 = new Complex(hyperCircle.center).multiply(euclideanCircle.radius / hyperCircle.dist);
-				@NonNull final Complex z2 = new Complex(z1).neg();
-
-				// hyperbolic translation of this diameter
-				HyperTranslation.map(z1, hyperCircle.center);
-				HyperTranslation.map(z2, hyperCircle.center);
+				// z1 = k.C and z2 = -k.C where k = eradius / dist
+				// both are real multiples of C so their hyperbolic translation by C
+				// z = (z+C)/(1+(~C)z) stays a real multiple of C:
+				// z1' = C.(1+k)/(1+k.dist^2) = a.C and z2' = C.(1-k)/(1-k.dist^2) = b.C
+				// (computed on scalars so as to spare allocation of temporaries)
+				final double k = euclideanCircle.radius / hyperCircle.dist;
+				final double kd2 = euclideanCircle.radius * hyperCircle.dist;
+				final double a = (1. + k) / (1. + kd2);
+				final double b = (1. - k) / (1. - kd2);
 
 				// middle of mapped diameter
-				z1.add(z2).multiply(0.5);
+				final double m = (a + b) * 0.5;
 
 				// computed center
-				euclideanCircle.center.set(z1);
-				euclideanCircle.radius = z2.sub(z1).mag();
+				euclideanCircle.center.set(hyperCircle.center.re * m, hyperCircle.center.im * m);
+				euclideanCircle.radius = Math.abs(a - b) * 0.5 * hyperCircle.dist;
 			}
 			else
 			{
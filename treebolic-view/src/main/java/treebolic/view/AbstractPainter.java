@@ -4,14 +4,17 @@
 
 package treebolic.view;
 
+import java.util.Collection;
 import java.util.List;
 
+import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.glue.Graphics;
 import treebolic.glue.iface.Colors;
 import treebolic.glue.iface.Image;
 import treebolic.model.IEdge;
 import treebolic.model.INode;
+import treebolic.model.Location;
 
 /**
  * Painter base class
@@ -107,6 +110,40 @@ public abstract class AbstractPainter extends Mapper
 	@SuppressWarnings("WeakerAccess")
 	protected boolean isDragging = false;
 
+	/**
+	 * Whether the frame being painted has been cancelled
+	 */
+	@SuppressWarnings("WeakerAccess")
+	protected volatile boolean isCancelled = false;
+
+	/**
+	 * Snapshot to paint from instead of live tree, null if none
+	 */
+	@SuppressWarnings({"WeakerAccess", "InstanceVariableOfConcreteClass"})
+	@Nullable
+	protected Snapshot snapshot;
+
+	// edges
+
+	/**
+	 * Non-tree edges with resolved endpoints
+	 */
+	@SuppressWarnings({"WeakerAccess", "InstanceVariableOfConcreteClass"})
+	@NonNull
+	protected final EdgeStore edgeStore = new EdgeStore();
+
+	/**
+	 * Count of non-tree edge endpoint invalidations
+	 */
+	@SuppressWarnings("WeakerAccess")
+	protected int edgesVersion = 0;
+
+	/**
+	 * Maximum number of non-tree edges drawn per frame, nearest to focus first (0 for no limit)
+	 */
+	@SuppressWarnings("WeakerAccess")
+	protected int edgeLimit = 0;
+
 	// arcs
 	/**
 	 * Whether to render edges as arc edges
@@ -140,6 +177,12 @@ public abstract class AbstractPainter extends Mapper
 	@SuppressWarnings("WeakerAccess")
 	protected float labelExtraLineFactor = .6F;
 
+	/**
+	 * Version of label settings, changes whenever settings that affect label lines or their measurements change
+	 */
+	@SuppressWarnings("WeakerAccess")
+	protected int labelVersion = 0;
+
 	// scaling
 
 	/**
@@ -342,6 +385,16 @@ public abstract class AbstractPainter extends Mapper
 	 */
 	public abstract void paint(INode root, List<IEdge> edgeList);
 
+	/**
+	 * Paint overlay on top of (a copy of) what paint() drew, using the node data paint() computed. The overlay is drawn on a graphics context other than the
+	 * one set up, which is left unchanged.
+	 *
+	 * @param graphics      graphics context to draw overlay on
+	 * @param hotNode       hot node to highlight, null if none
+	 * @param mountingNodes nodes whose mount is in progress
+	 */
+	public abstract void paintOverlay(Graphics graphics, INode hotNode, Collection<INode> mountingNodes);
+
 	// S E T U P
 
 	/**
@@ -421,6 +474,9 @@ public abstract class AbstractPainter extends Mapper
 		{
 			this.fontDownscaler = fontDownscaler;
 		}
+
+		// label measurements
+		this.labelVersion++;
 	}
 
 	// C O L O R S
@@ -560,6 +616,7 @@ public abstract class AbstractPainter extends Mapper
 		if (maxLines != null)
 		{
 			this.labelMaxLines = maxLines;
+			this.labelVersion++;
 		}
 	}
 
@@ -573,6 +630,7 @@ public abstract class AbstractPainter extends Mapper
 		if (factor != null)
 		{
 			this.labelExtraLineFactor = factor;
+			this.labelVersion++;
 		}
 	}
 
@@ -609,6 +667,25 @@ public abstract class AbstractPainter extends Mapper
 		return this.arcEdges;
 	}
 
+	/**
+	 * Set maximum number of non-tree edges drawn per frame
+	 *
+	 * @param limit maximum number of non-tree edges drawn per frame, nearest to focus first (null or 0 for no limit)
+	 */
+	public void setEdgeLimit(@Nullable final Integer limit)
+	{
+		this.edgeLimit = limit == null || limit < 0 ? 0 : limit;
+	}
+
+	/**
+	 * Invalidate non-tree edge endpoints, to be called when mount points change
+	 */
+	public void invalidateEdges()
+	{
+		this.edgeStore.invalidate();
+		this.edgesVersion++;
+	}
+
 	// Z O O M I N G
 
 	/**
@@ -729,4 +806,161 @@ public abstract class AbstractPainter extends Mapper
 	{
 		this.isDragging = false;
 	}
+
+	// C A N C E L
+
+	/**
+	 * Cancel frame being painted, paint() returns early leaving an incomplete frame
+	 */
+	public void cancel()
+	{
+		this.isCancelled = true;
+	}
+
+	/**
+	 * Clear cancellation before painting a frame
+	 */
+	public void resume()
+	{
+		this.isCancelled = false;
+	}
+
+	/**
+	 * Whether the frame being painted has been cancelled
+	 *
+	 * @return true if cancelled
+	 */
+	public boolean isCancelled()
+	{
+		return this.isCancelled;
+	}
+
+	// S N A P S H O T
+
+	/**
+	 * Set snapshot to paint from instead of live tree
+	 *
+	 * @param snapshot snapshot, null to paint from live tree
+	 */
+	public void setSnapshot(@Nullable final Snapshot snapshot)
+	{
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Location to paint node from
+	 *
+	 * @param node node
+	 * @return location
+	 */
+	@NonNull
+	protected Location locationOf(@NonNull final INode node)
+	{
+		return this.snapshot == null ? node.getLocation() : this.snapshot.getLocation(node);
+	}
+
+	/**
+	 * Location the last frame painted node from
+	 *
+	 * @param node node
+	 * @return location, null if node was not in frame
+	 */
+	@Nullable
+	protected Location paintedLocationOf(@NonNull final INode node)
+	{
+		return this.snapshot == null ? node.getLocation() : this.snapshot.findLocation(node);
+	}
+
+	/**
+	 * Children to paint
+	 *
+	 * @param node node
+	 * @return children
+	 */
+	@Nullable
+	protected List<INode> childrenOf(@NonNull final INode node)
+	{
+		return this.snapshot == null ? node.getChildren() : this.snapshot.getChildren(node);
+	}
+
+	/**
+	 * Parent to paint edge to
+	 *
+	 * @param node node
+	 * @return parent
+	 */
+	@Nullable
+	protected INode parentOf(@NonNull final INode node)
+	{
+		return this.snapshot == null ? node.getParent() : this.snapshot.getParent(node);
+	}
+
+	// S E T T I N G S
+
+	/**
+	 * Copy settings of other painter, so that this one paints as it does
+	 *
+	 * @param painter painter to copy settings of
+	 */
+	public void copySettings(@NonNull final AbstractPainter painter)
+	{
+		// mapper
+		this.mapScaleFactor = painter.mapScaleFactor;
+		this.xShift = painter.xShift;
+		this.yShift = painter.yShift;
+
+		// state
+		this.isDragging = painter.isDragging;
+
+		// edges
+		this.edgeLimit = painter.edgeLimit;
+		this.arcEdges = painter.arcEdges;
+		if (this.edgesVersion != painter.edgesVersion)
+		{
+			invalidateEdges();
+			this.edgesVersion = painter.edgesVersion;
+		}
+
+		// label
+		this.border = painter.border;
+		this.ellipsize = painter.ellipsize;
+		this.labelMaxLines = painter.labelMaxLines;
+		this.labelExtraLineFactor = painter.labelExtraLineFactor;
+		this.labelVersion = painter.labelVersion;
+
+		// scaling
+		this.zoomFactor = painter.zoomFactor;
+		this.zoomPivotX = painter.zoomPivotX;
+		this.zoomPivotY = painter.zoomPivotY;
+		this.imageScaleFactor = painter.imageScaleFactor;
+		this.downscaleImages = painter.downscaleImages;
+		this.imageDownscaler = painter.imageDownscaler;
+		this.fontScaleFactor = painter.fontScaleFactor;
+		this.downscaleFonts = painter.downscaleFonts;
+		this.fontDownscaler = painter.fontDownscaler;
+
+		// fonts
+		this.fontFace = painter.fontFace;
+		this.fontStyle = painter.fontStyle;
+		this.fontSize = painter.fontSize;
+		this.fontSizeFactor = painter.fontSizeFactor;
+
+		// colors
+		this.backColor = painter.backColor;
+		this.foreColor = painter.foreColor;
+		this.nodeBackColor = painter.nodeBackColor;
+		this.nodeForeColor = painter.nodeForeColor;
+		this.treeEdgeColor = painter.treeEdgeColor;
+		this.edgeColor = painter.edgeColor;
+
+		// styles
+		this.treeEdgeStyle = painter.treeEdgeStyle;
+		this.edgeStyle = painter.edgeStyle;
+
+		// images
+		this.defaultNodeImage = painter.defaultNodeImage;
+		this.defaultTreeEdgeImage = painter.defaultTreeEdgeImage;
+		this.defaultEdgeImage = painter.defaultEdgeImage;
+		this.backgroundImage = painter.backgroundImage;
+	}
 }
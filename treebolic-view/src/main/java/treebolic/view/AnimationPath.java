@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.core.Transformer;
+import treebolic.core.location.Complex;
+import treebolic.core.math.Distance;
+import treebolic.core.transform.HyperTransform;
+import treebolic.core.transform.HyperTranslation;
+
+/**
+ * Animation path, interpolates the transform at any point of the move from source point to target point. Transforms are made relative to the transform at
+ * start, not the current one, so that interpolating on demand during the animation yields the same transforms as precomputing them.
+ *
+ * @author Bernard Bou
+ */
+public class AnimationPath
+{
+	/**
+	 * Transform generator
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final Transformer transformer;
+
+	/**
+	 * Orientation
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final Complex orientation;
+
+	/**
+	 * Transform at start
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final HyperTransform currentTransform;
+
+	/**
+	 * Final transform (relative to start)
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final HyperTransform finalTransform;
+
+	/**
+	 * Normalized direction of point that eventually transforms to (0,0)
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final Complex theta;
+
+	/**
+	 * Euclidean distance to origin of point that eventually transforms to (0,0)
+	 */
+	private final double dist;
+
+	/**
+	 * Hyperbolic distance from source to target
+	 */
+	public final double hDist;
+
+	/**
+	 * Constructor
+	 *
+	 * @param from        source point
+	 * @param to          target point
+	 * @param transformer transform generator
+	 * @param orientation orientation
+	 * @param hDist       hyperbolic distance from source to target
+	 */
+	private AnimationPath(@NonNull final Complex from, @NonNull final Complex to, @NonNull final Transformer transformer, @NonNull final Complex orientation, final double hDist)
+	{
+		this.transformer = transformer;
+		this.orientation = orientation;
+		this.hDist = hDist;
+		this.currentTransform = new HyperTransform(transformer.getTransform());
+
+		// final transform
+		this.finalTransform = transformer.makeTransform(from, to, orientation, this.currentTransform);
+		@NonNull final HyperTransform finalTransformInverse = new HyperTransform(this.finalTransform).inverse();
+
+		// this point will eventually transform to (0,0)
+		@NonNull final Complex z0 = finalTransformInverse.map(new Complex(Complex.ZERO));
+		@NonNull final HyperTranslation xlat = new HyperTranslation(z0);
+
+		// distance = arc diameter
+		this.dist = xlat.mag();
+
+		// normalize z0
+		this.theta = new Complex(z0).divide(this.dist);
+	}
+
+	/**
+	 * Make path
+	 *
+	 * @param from        source point
+	 * @param to          target point
+	 * @param transformer transform generator
+	 * @param orientation orientation
+	 * @return path or null if source and target are the same
+	 */
+	@Nullable
+	static public AnimationPath make(@NonNull final Complex from, @NonNull final Complex to, @NonNull final Transformer transformer, @NonNull final Complex orientation)
+	{
+		final double hDist = Distance.getHyperDistance(from, to);
+		if (hDist == 0.)
+		{
+			return null;
+		}
+		return new AnimationPath(from, to, transformer, orientation, hDist);
+	}
+
+	/**
+	 * Transform at given progress
+	 *
+	 * @param progress progress, from 0 (start, excluded) to 1 (end)
+	 * @return transform
+	 */
+	@NonNull
+	public HyperTransform transformAt(final double progress)
+	{
+		// middle transform
+		HyperTransform transform;
+		if (progress < 1. && this.dist != 0.)
+		{
+			// distance along path
+			final double di = Distance.distanceToOrigin_h2e(Distance.distanceToOrigin_e2h(this.dist) * progress);
+
+			// linear
+			@NonNull final Complex z = new Complex(di, 0.);
+
+			// rotate z by theta
+			z.mul(this.theta);
+
+			// make z->0 transform
+			transform = this.transformer.makeTransform(z, Complex.ZERO, this.orientation, this.currentTransform);
+		}
+		else
+		{
+			transform = this.finalTransform;
+		}
+		return new HyperTransform(this.currentTransform).compose(transform);
+	}
+}
@@ -12,9 +12,7 @@ import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.core.Transformer;
 import treebolic.core.location.Complex;
-import treebolic.core.math.Distance;
 import treebolic.core.transform.HyperTransform;
-import treebolic.core.transform.HyperTranslation;
 
 /**
  * Animation implements sequence of transforms in animation of tree
@@ -74,71 +72,31 @@ public class AnimationTransforms
 	@Nullable
 	static private List<HyperTransform> makeTransforms(@NonNull final Complex from, @NonNull final Complex to, @NonNull final Transformer transformer, @NonNull final Complex oOrientation, final int steps0)
 	{
-		int steps = steps0;
-		final HyperTransform currentTransform = transformer.getTransform();
-		final double hDist = Distance.getHyperDistance(from, to);
-		if (hDist != 0.)
+		@Nullable final AnimationPath path = AnimationPath.make(from, to, transformer, oOrientation);
+		if (path == null)
 		{
-			// steps
-			if (steps == 0)
-			{
-				steps = (int) (hDist * 3);
-			}
-
-			// vector
-			@NonNull final List<HyperTransform> transforms = new ArrayList<>(steps);
-
-			// final transform
-			@NonNull final HyperTransform finalTransform = transformer.makeTransform(from, to, oOrientation);
-			@NonNull final HyperTransform finalTransformInverse = new HyperTransform(finalTransform).inverse();
-
-			// this point will eventually transform to (0,0)
-			@NonNull final Complex z0 = finalTransformInverse.map(new Complex(Complex.ZERO));
-			@NonNull final HyperTranslation xlat = new HyperTranslation(z0);
-
-			// distance = arc diameter
-			final double dist = xlat.mag();
-			// double radius = dist / 2.;
-
-			// normalize z0
-			@NonNull final Complex theta = new Complex(z0).divide(dist);
-
-			// iterate and make middle transforms
-			for (int i = 1; i < steps; ++i)
-			{
-				// middle transform
-				HyperTransform transform;
-				if (dist != 0.)
-				{
-					// progress 1/n 2/n ... i/n ... n/n
-					final double progress = (double) i / (double) steps;
-
-					// i distance
-					final double di = Distance.distanceToOrigin_h2e(Distance.distanceToOrigin_e2h(dist) * progress);
-
-					// linear
-					@NonNull final Complex z = new Complex(di, 0.);
-
-					// rotate z by theta
-					z.mul(theta);
+			return null;
+		}
 
-					// make z->0 transform
-					transform = transformer.makeTransform(z, Complex.ZERO, oOrientation);
-				}
-				else
-				{
-					transform = finalTransform;
-				}
+		// steps
+		int steps = steps0;
+		if (steps == 0)
+		{
+			steps = (int) (path.hDist * 3);
+		}
 
-				// add to sequence
-				transforms.add(new HyperTransform(currentTransform).compose(transform));
-			}
+		// vector
+		@NonNull final List<HyperTransform> transforms = new ArrayList<>(steps);
 
-			// last in sequence
-			transforms.add(new HyperTransform(currentTransform).compose(finalTransform));
-			return transforms;
+		// iterate and make middle transforms, progress 1/n 2/n ... i/n ... n/n
+		for (int i = 1; i < steps; ++i)
+		{
+			transforms.add(path.transformAt((double) i / (double) steps));
 		}
-		return null;
+
+		// last in sequence
+		transforms.add(path.transformAt(1.));
+		return transforms;
 	}
 
 	/**
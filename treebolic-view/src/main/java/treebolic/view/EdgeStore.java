@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import java.util.Arrays;
+import java.util.List;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.model.IEdge;
+import treebolic.model.INode;
+import treebolic.model.MountPoint;
+
+/**
+ * Edge store. Holds non-tree edges with their endpoints resolved (mount points followed) so that this is not done at each frame. It is rebuilt when the edge
+ * list is replaced or changes size, or when invalidated (mount, unmount). It also selects, among candidate edges of a frame, those nearest to focus.
+ *
+ * @author Bernard Bou
+ */
+public class EdgeStore
+{
+	/**
+	 * No edges
+	 */
+	static private final IEdge[] NO_EDGES = new IEdge[0];
+
+	/**
+	 * No nodes
+	 */
+	static private final INode[] NO_NODES = new INode[0];
+
+	/**
+	 * Source edge list
+	 */
+	@Nullable
+	private List<IEdge> source;
+
+	/**
+	 * Size of source edge list when built
+	 */
+	private int sourceSize;
+
+	/**
+	 * Whether store is up to date
+	 */
+	private volatile boolean isValid;
+
+	/**
+	 * Edges with both endpoints
+	 */
+	@NonNull
+	private IEdge[] edges;
+
+	/**
+	 * Resolved from-nodes
+	 */
+	@NonNull
+	private INode[] froms;
+
+	/**
+	 * Resolved to-nodes
+	 */
+	@NonNull
+	private INode[] tos;
+
+	/**
+	 * Number of edges
+	 */
+	private int size;
+
+	/**
+	 * Candidate edge indices of current frame
+	 */
+	@NonNull
+	private int[] candidates;
+
+	/**
+	 * Candidate priorities of current frame (lower is nearer to focus)
+	 */
+	@NonNull
+	private double[] priorities;
+
+	/**
+	 * Number of candidates of current frame
+	 */
+	private int candidateCount;
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Constructor
+	 */
+	public EdgeStore()
+	{
+		this.edges = EdgeStore.NO_EDGES;
+		this.froms = EdgeStore.NO_NODES;
+		this.tos = EdgeStore.NO_NODES;
+		this.candidates = new int[0];
+		this.priorities = new double[0];
+	}
+
+	// B U I L D
+
+	/**
+	 * Invalidate resolved endpoints
+	 */
+	public void invalidate()
+	{
+		this.isValid = false;
+	}
+
+	/**
+	 * Update store from edge list, rebuilding it if needed
+	 *
+	 * @param edgeList edge list
+	 */
+	public void update(@NonNull final List<IEdge> edgeList)
+	{
+		update(edgeList, null);
+	}
+
+	/**
+	 * Update store from edge list, rebuilding it if needed
+	 *
+	 * @param edgeList edge list
+	 * @param snapshot snapshot endpoints are resolved from, always rebuilt from it, null to follow mount points of live tree
+	 */
+	public void update(@NonNull final List<IEdge> edgeList, @Nullable final Snapshot snapshot)
+	{
+		if (snapshot == null && this.isValid && edgeList == this.source && edgeList.size() == this.sourceSize)
+		{
+			return;
+		}
+		this.isValid = true;
+		this.source = edgeList;
+		this.sourceSize = edgeList.size();
+
+		final int n = this.sourceSize;
+		if (this.edges.length < n)
+		{
+			this.edges = new IEdge[n];
+			this.froms = new INode[n];
+			this.tos = new INode[n];
+			this.candidates = new int[n];
+			this.priorities = new double[n];
+		}
+		int k = 0;
+		for (final IEdge edge : edgeList)
+		{
+			final INode from = edge.getFrom();
+			final INode to = edge.getTo();
+			if (from == null || to == null)
+			{
+				continue;
+			}
+			this.edges[k] = edge;
+			this.froms[k] = snapshot == null ? MountPoint.follow(from, false, true) : snapshot.getEndpoint(from);
+			this.tos[k] = snapshot == null ? MountPoint.follow(to, false, true) : snapshot.getEndpoint(to);
+			k++;
+		}
+		Arrays.fill(this.edges, k, this.edges.length, null);
+		Arrays.fill(this.froms, k, this.froms.length, null);
+		Arrays.fill(this.tos, k, this.tos.length, null);
+		this.size = k;
+	}
+
+	// A C C E S S
+
+	/**
+	 * Number of edges
+	 *
+	 * @return number of edges
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Edge
+	 *
+	 * @param i edge index
+	 * @return edge
+	 */
+	@NonNull
+	public IEdge getEdge(final int i)
+	{
+		return this.edges[i];
+	}
+
+	/**
+	 * Resolved from-node
+	 *
+	 * @param i edge index
+	 * @return from-node, mount point followed
+	 */
+	@NonNull
+	public INode getFrom(final int i)
+	{
+		return this.froms[i];
+	}
+
+	/**
+	 * Resolved to-node
+	 *
+	 * @param i edge index
+	 * @return to-node, mount point followed
+	 */
+	@NonNull
+	public INode getTo(final int i)
+	{
+		return this.tos[i];
+	}
+
+	// S E L E C T
+
+	/**
+	 * Start collecting candidates for a frame
+	 */
+	public void clearCandidates()
+	{
+		this.candidateCount = 0;
+	}
+
+	/**
+	 * Add candidate
+	 *
+	 * @param i        edge index
+	 * @param priority priority (lower is nearer to focus)
+	 */
+	public void addCandidate(final int i, final double priority)
+	{
+		this.candidates[this.candidateCount] = i;
+		this.priorities[this.candidateCount] = priority;
+		this.candidateCount++;
+	}
+
+	/**
+	 * Select candidates to draw
+	 *
+	 * @param limit maximum number of edges, 0 for no limit
+	 * @return number of selected candidates, retrieved with getSelected(0..n-1) in edge list order
+	 */
+	public int select(final int limit)
+	{
+		int n = this.candidateCount;
+		if (limit > 0 && n > limit)
+		{
+			EdgeStore.partition(this.candidates, this.priorities, 0, n - 1, limit);
+			n = limit;
+			Arrays.sort(this.candidates, 0, n);
+		}
+		return n;
+	}
+
+	/**
+	 * Selected candidate
+	 *
+	 * @param j selection index
+	 * @return edge index
+	 */
+	public int getSelected(final int j)
+	{
+		return this.candidates[j];
+	}
+
+	/**
+	 * Partially sort so that the k items of lowest priority come first (quickselect)
+	 *
+	 * @param items      items
+	 * @param priorities item priorities
+	 * @param lo0        low bound (inclusive)
+	 * @param hi0        high bound (inclusive)
+	 * @param k          number of items to bring first
+	 */
+	static private void partition(@NonNull final int[] items, @NonNull final double[] priorities, final int lo0, final int hi0, final int k)
+	{
+		int lo = lo0;
+		int hi = hi0;
+		while (lo < hi)
+		{
+			final double pivot = priorities[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j)
+			{
+				while (priorities[i] < pivot)
+				{
+					i++;
+				}
+				while (priorities[j] > pivot)
+				{
+					j--;
+				}
+				if (i <= j)
+				{
+					EdgeStore.swap(items, priorities, i, j);
+					i++;
+					j--;
+				}
+			}
+			if (k - 1 <= j)
+			{
+				hi = j;
+			}
+			else if (k - 1 >= i)
+			{
+				lo = i;
+			}
+			else
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Swap items
+	 *
+	 * @param items      items
+	 * @param priorities item priorities
+	 * @param i          first index
+	 * @param j          second index
+	 */
+	static private void swap(@NonNull final int[] items, @NonNull final double[] priorities, final int i, final int j)
+	{
+		final int item = items[i];
+		items[i] = items[j];
+		items[j] = item;
+		final double priority = priorities[i];
+		priorities[i] = priorities[j];
+		priorities[j] = priority;
+	}
+}
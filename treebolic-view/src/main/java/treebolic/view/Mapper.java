@@ -193,6 +193,19 @@ public class Mapper
 		return (int) (this.scaleY * this.mapScaleFactor * cy);
 	}
 
+	/**
+	 * Whether unit circle extent maps to less than a number of pixels in view
+	 *
+	 * @param cx     unit circle extent
+	 * @param pixels number of pixels
+	 * @return true if unit circle extent maps to less than pixels
+	 */
+	@SuppressWarnings("WeakerAccess")
+	protected boolean isUnitCircleBelowView(final double cx, final int pixels)
+	{
+		return this.scaleX * this.mapScaleFactor * cx < pixels;
+	}
+
 	// M A P . V I E W . T O . U N I T C I R C L E
 
 	/**
@@ -4,7 +4,11 @@
 
 package treebolic.view;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
@@ -13,6 +17,7 @@ import treebolic.core.math.Arc;
 import treebolic.core.math.ArcMath;
 import treebolic.core.math.MapperToEuclidean;
 import treebolic.glue.Arc2D;
+import treebolic.glue.Graphics;
 import treebolic.glue.Point2D;
 import treebolic.glue.Rectangle2D;
 import treebolic.glue.iface.Colors;
@@ -135,12 +140,58 @@ public class Painter extends AbstractPainter
 	@SuppressWarnings("WeakerAccess")
 	static public final int NODE_BOTTOM_PADDING = 1;
 
+	/**
+	 * Node space radius (in pixels) below which a border node's subtree is not drawn
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final int CULL_RADIUS = 1;
+
+	/**
+	 * Size of stub drawn in place of culled subtree
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final int STUB_SIZE = 3;
+
 	/**
 	 * Crop edges where they meet vertex shape
 	 */
 	@SuppressWarnings("WeakerAccess")
 	static public final boolean CROP_EDGES = true;
 
+	/**
+	 * Margin (in pixels) around view within which non-tree edges are not culled (labels, terminators)
+	 */
+	@SuppressWarnings("WeakerAccess")
+	static public final int EDGE_CULL_MARGIN = 32;
+
+	// C A C H E
+
+	/**
+	 * Arc geometry by edge (child node for tree edges, edge for non-tree edges)
+	 */
+	@NonNull
+	private final Map<Object, ArcGeometry> arcGeometries = new IdentityHashMap<>();
+
+	/**
+	 * Arc geometry key of edge being drawn
+	 */
+	@NonNull
+	private final double[] arcKey = new double[ArcGeometry.KEY_SIZE];
+
+	/**
+	 * Whether arc geometries are to be dropped at next paint
+	 */
+	private volatile boolean invalidateArcGeometries;
+
+	// I N V A L I D A T E
+
+	@Override
+	public void invalidateEdges()
+	{
+		super.invalidateEdges();
+		this.invalidateArcGeometries = true;
+	}
+
 	// B A C K G R O U N D
 
 	@Override
@@ -164,6 +215,12 @@ public class Painter extends AbstractPainter
 	@Override
 	public void paint(final INode root, @Nullable final List<IEdge> edgeList)
 	{
+		if (this.invalidateArcGeometries)
+		{
+			this.invalidateArcGeometries = false;
+			this.arcGeometries.clear();
+		}
+
 		if (this.zoomFactor != 1F)
 		{
 			this.graphics.scale(this.zoomFactor, this.zoomPivotX, this.zoomPivotY);
@@ -181,16 +238,89 @@ public class Painter extends AbstractPainter
 		// edges
 		if (edgeList != null)
 		{
-			for (@NonNull final IEdge edge : edgeList)
-			{
-				drawNonTreeEdge(edge);
-			}
+			drawNonTreeEdges(edgeList);
 		}
 
 		// tree
 		drawTree(root);
 	}
 
+	// O V E R L A Y
+
+	/**
+	 * Hot node outline width
+	 */
+	static private final int HOT_STROKE_WIDTH = 2;
+
+	/**
+	 * Mounting node outline width
+	 */
+	static private final int MOUNTING_STROKE_WIDTH = 2;
+
+	@Override
+	public void paintOverlay(@NonNull final Graphics graphics, @Nullable final INode hotNode, @NonNull final Collection<INode> mountingNodes)
+	{
+		if (hotNode == null && mountingNodes.isEmpty())
+		{
+			return;
+		}
+
+		// same space as paint
+		graphics.pushMatrix();
+		graphics.translate(-this.left, -this.top);
+		if (this.zoomFactor != 1F)
+		{
+			graphics.scale(this.zoomFactor, this.zoomPivotX, this.zoomPivotY);
+		}
+
+		// hot node
+		if (hotNode != null)
+		{
+			outlineNode(graphics, hotNode, treebolic.glue.iface.Graphics.SOLID, Painter.HOT_STROKE_WIDTH);
+		}
+
+		// mounts in progress
+		for (final INode mountingNode : mountingNodes)
+		{
+			outlineNode(graphics, mountingNode, treebolic.glue.iface.Graphics.DASH, Painter.MOUNTING_STROKE_WIDTH);
+		}
+		graphics.popMatrix();
+	}
+
+	/**
+	 * Outline node box
+	 *
+	 * @param graphics graphics context to draw on
+	 * @param node     node
+	 * @param stroke   stroke
+	 * @param width    stroke width
+	 */
+	private void outlineNode(@NonNull final Graphics graphics, @NonNull final INode node, final int stroke, final int width)
+	{
+		// node data as computed by last paint
+		@Nullable final Location location = paintedLocationOf(node);
+		if (location == null || location.hyper.isBorder || !(location.viewData instanceof NodeData))
+		{
+			return;
+		}
+		@NonNull final NodeData nodeData = (NodeData) location.viewData;
+		if (nodeData.box == null)
+		{
+			return;
+		}
+
+		// outline
+		final int x = (int) nodeData.box.getX();
+		final int y = (int) nodeData.box.getY();
+		final int w = (int) nodeData.box.getWidth();
+		final int h = (int) nodeData.box.getHeight();
+		graphics.setColor(nodeData.foreColor);
+		graphics.pushStroke();
+		graphics.setStroke(stroke, width);
+		graphics.drawRoundRectangle(x, y, w, h, 10, 10);
+		graphics.popStroke();
+	}
+
 	/**
 	 * Compute tree recursively
 	 *
@@ -198,23 +328,30 @@ public class Painter extends AbstractPainter
 	 */
 	private void computeTree(@Nullable final INode node)
 	{
-		if (node == null)
+		if (node == null || this.isCancelled)
 		{
 			return;
 		}
 
 		// hyper circle
-		final Location location = node.getLocation();
+		final Location location = location(node);
 		if (location.hyper.isDirty)
 		{
 			MapperToEuclidean.mapToEuclidean(location);
 		}
 
+		// culled subtree
+		if (isCulled(location))
+		{
+			location.viewData = null;
+			return;
+		}
+
 		// node data and attach to node
-		node.getLocation().viewData = computeNodeData(node);
+		location(node).viewData = computeNodeData(node);
 
 		// recurse to compute the children
-		@Nullable final List<INode> children = node.getChildren();
+		@Nullable final List<INode> children = childrenOf(node);
 		if (children != null)
 		{
 			for (final INode child : children)
@@ -231,13 +368,13 @@ public class Painter extends AbstractPainter
 	 */
 	private void drawTree(@Nullable final INode node)
 	{
-		if (node == null)
+		if (node == null || this.isCancelled)
 		{
 			return;
 		}
 
 		// edge to parent
-		@Nullable final INode parent = node.getParent();
+		@Nullable final INode parent = parentOf(node);
 		if (parent != null)
 		{
 			// color
@@ -252,8 +389,15 @@ public class Painter extends AbstractPainter
 			drawTreeEdge(parent, node);
 		}
 
+		// culled subtree is drawn as a stub in its edge's color
+		if (isCulled(location(node)))
+		{
+			drawStub(location(node));
+			return;
+		}
+
 		// recurse to draw the children
-		@Nullable final List<INode> children = node.getChildren();
+		@Nullable final List<INode> children = childrenOf(node);
 		if (children != null)
 		{
 			for (final INode child : children)
@@ -273,13 +417,51 @@ public class Painter extends AbstractPainter
 		}
 
 		// draw node
-		final Location location = node.getLocation();
+		final Location location = location(node);
 		if (!location.hyper.isBorder)
 		{
-			drawNode((NodeData) node.getLocation().viewData);
+			drawNode((NodeData) location(node).viewData);
 		}
 	}
 
+	/**
+	 * Location to paint node from
+	 *
+	 * @param node node
+	 * @return location
+	 */
+	@NonNull
+	private Location location(@NonNull final INode node)
+	{
+		return locationOf(node);
+	}
+
+	// C U L L
+
+	/**
+	 * Whether node's subtree is culled. Subtrees are culled when their root is in the border zone and its space is sub-pixel, so descendants, which lie further
+	 * out, are not visible either.
+	 *
+	 * @param location node location (mapped to euclidean space)
+	 * @return true if node's subtree is culled
+	 */
+	private boolean isCulled(@NonNull final Location location)
+	{
+		return location.hyper.isBorder && isUnitCircleBelowView(location.euclidean.radius, Painter.CULL_RADIUS);
+	}
+
+	/**
+	 * Draw stub in place of culled subtree
+	 *
+	 * @param location culled subtree root location
+	 */
+	private void drawStub(@NonNull final Location location)
+	{
+		final int x = xUnitCircleToView(location.euclidean.center.re);
+		final int y = yUnitCircleToView(location.euclidean.center.im);
+		this.graphics.fillRectangle(x - Painter.STUB_SIZE / 2, y - Painter.STUB_SIZE / 2, Painter.STUB_SIZE, Painter.STUB_SIZE);
+	}
+
 	// D R A W . N O D E
 
 	/**
@@ -390,6 +572,115 @@ public class Painter extends AbstractPainter
 		@SuppressWarnings("WeakerAccess")
 		@Nullable
 		public Boolean isMountable;
+
+		// c a c h e
+
+		/**
+		 * Label the lines were made from
+		 */
+		@SuppressWarnings("WeakerAccess")
+		@Nullable
+		public String label;
+
+		/**
+		 * Version of label settings the lines were made with
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int labelVersion;
+
+		/**
+		 * Text size the lines were measured with
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public float measuredTextSize;
+
+		/**
+		 * Label lines before ellipsizing
+		 */
+		@SuppressWarnings("WeakerAccess")
+		@Nullable
+		public String[] fullLabelLines;
+
+		/**
+		 * Label lines' width before ellipsizing
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int[] fullLabelLinesW;
+
+		/**
+		 * Label width before ellipsizing
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int fullLabelW;
+
+		/**
+		 * Label height
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int labelH;
+
+		/**
+		 * Text ascent
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int ascent;
+
+		/**
+		 * Text descent
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int descent;
+
+		/**
+		 * Average character width, -1 if not measured
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int charW;
+
+		/**
+		 * Ellipsis width
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int ellipsisW;
+
+		/**
+		 * Number of characters kept on first line by last ellipsizing, -1 if none
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int ellipsizedChars;
+
+		/**
+		 * Label lines after last ellipsizing
+		 */
+		@SuppressWarnings("WeakerAccess")
+		@Nullable
+		public String[] ellipsizedLabelLines;
+
+		/**
+		 * Label lines' width after last ellipsizing
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int[] ellipsizedLabelLinesW;
+
+		/**
+		 * Label width after last ellipsizing
+		 */
+		@SuppressWarnings("WeakerAccess")
+		public int ellipsizedLabelW;
+
+		/**
+		 * Reusable node space
+		 */
+		@SuppressWarnings({"WeakerAccess", "InstanceVariableOfConcreteClass"})
+		@NonNull
+		public final Rectangle2D spaceRect = new Rectangle2D();
+
+		/**
+		 * Reusable node label box
+		 */
+		@SuppressWarnings({"WeakerAccess", "InstanceVariableOfConcreteClass"})
+		@NonNull
+		public final Rectangle2D boxRect = new Rectangle2D();
 	}
 
 	/**
@@ -487,7 +778,7 @@ public class Painter extends AbstractPainter
 	}
 
 	/**
-	 * Compute node data
+	 * Compute node data, reusing node data from previous frame if any
 	 *
 	 * @param node node
 	 * @return node data
@@ -496,15 +787,17 @@ public class Painter extends AbstractPainter
 	@SuppressWarnings({"boxing"})
 	private NodeData computeNodeData(@NonNull final INode node)
 	{
-		@NonNull final NodeData nodeData = new NodeData();
-
 		// hyper circle
-		final Location location = node.getLocation();
+		final Location location = location(node);
 		if (location.hyper.isBorder)
 		{
 			return null;
 		}
 
+		// node data
+		//noinspection InstanceofConcreteClass
+		@NonNull final NodeData nodeData = location.viewData instanceof NodeData ? (NodeData) location.viewData : new NodeData();
+
 		// text size
 		final float textSize = hyperdistanceToSize(location.hyper.dist);
 		nodeData.textSize = textSize;
@@ -554,10 +847,13 @@ public class Painter extends AbstractPainter
 		}
 
 		// string
-		nodeData.labelLines = makeLabel(node);
-		if (nodeData.labelLines == null)
+		if (!measureLabel(node, nodeData))
 		{
 			// no label
+			nodeData.labelLines = null;
+			nodeData.box = null;
+			nodeData.space = null;
+			nodeData.isMountable = null;
 			if (nodeData.image != null)
 			{
 				final int hi = nodeData.imageHeight;
@@ -571,17 +867,19 @@ public class Painter extends AbstractPainter
 		}
 
 		// label dimensions
-		nodeData.labelW = labelWidth(nodeData);
+		nodeData.labelLines = nodeData.fullLabelLines;
+		nodeData.labelLinesW = nodeData.fullLabelLinesW;
+		nodeData.labelW = nodeData.fullLabelW;
 		if (nodeData.labelW > dnode && this.ellipsize)
 		{
 			// ellipsize label
 			nodeData.labelW = ellipsizeLabel(nodeData, dnode);
 		}
-		final int htext = labelHeight(nodeData);
+		final int htext = nodeData.labelH;
 
 		// box computation
 		final int wbox = nodeData.labelW + 2 * Painter.NODE_HORIZONTAL_PADDING;
-		final int hbox = Painter.NODE_TOP_PADDING + htext + this.graphics.getDescent() + Painter.NODE_BOTTOM_PADDING;
+		final int hbox = Painter.NODE_TOP_PADDING + htext + nodeData.descent + Painter.NODE_BOTTOM_PADDING;
 		final int xbox = xnode - nodeData.labelW / 2 - Painter.NODE_HORIZONTAL_PADDING;
 		int ybox;
 
@@ -597,7 +895,7 @@ public class Painter extends AbstractPainter
 			nodeData.imageX = xnode - nodeData.imageWidth / 2;
 
 			// compute combined height of image and label (minus overlay of label)
-			final int overlap = (int) (this.graphics.getAscent() * Painter.NODE_LABEL_OVERLAY);
+			final int overlap = (int) (nodeData.ascent * Painter.NODE_LABEL_OVERLAY);
 			final int hcombined = nodeData.imageHeight + hbox - overlap;
 			final int hcombined2 = (int) (hcombined / 2F);
 
@@ -617,15 +915,17 @@ public class Painter extends AbstractPainter
 				xspace = nodeData.imageX;
 				wspace = nodeData.imageWidth;
 			}
-			nodeData.space = new Rectangle2D(xspace, nodeData.imageY, wspace, hcombined);
+			nodeData.spaceRect.setFrame(xspace, nodeData.imageY, wspace, hcombined);
+			nodeData.space = nodeData.spaceRect;
 		}
 
 		// label box
-		nodeData.box = new Rectangle2D(xbox, ybox, wbox, hbox);
+		nodeData.boxRect.setFrame(xbox, ybox, wbox, hbox);
+		nodeData.box = nodeData.boxRect;
 
 		// label
 		nodeData.labelX = xbox + Painter.NODE_HORIZONTAL_PADDING;
-		nodeData.labelY = ybox + Painter.NODE_TOP_PADDING + this.graphics.getAscent();
+		nodeData.labelY = ybox + Painter.NODE_TOP_PADDING + nodeData.ascent;
 
 		// is mountable
 		@Nullable final MountPoint mountPoint = node.getMountPoint();
@@ -653,12 +953,12 @@ public class Painter extends AbstractPainter
 		}
 
 		// hyper circles
-		final Location from = parent.getLocation();
-		final Location to = node.getLocation();
+		final Location from = location(parent);
+		final Location to = location(node);
 
 		// space
-		@Nullable final NodeData fromData = (NodeData) parent.getLocation().viewData;
-		@Nullable final NodeData toData = (NodeData) node.getLocation().viewData;
+		@Nullable final NodeData fromData = (NodeData) location(parent).viewData;
+		@Nullable final NodeData toData = (NodeData) location(node).viewData;
 		@Nullable Rectangle2D fromSpace = null;
 		if (fromData != null)
 		{
@@ -685,7 +985,7 @@ public class Painter extends AbstractPainter
 		}
 		if (image != null)
 		{
-			final Location location = node.getLocation();
+			final Location location = location(node);
 			assert this.imageDownscaler != null;
 			final int imageScaleIndex = Math.min(this.imageDownscaler.length - 1, (int) Math.round(location.hyper.dist * this.imageDownscaler.length));
 			imageScale = this.downscaleImages ? this.imageDownscaler[imageScaleIndex] : 1.F;
@@ -699,37 +999,107 @@ public class Painter extends AbstractPainter
 		// draw
 		@Nullable final String label = node.getEdgeLabel();
 		final boolean isBorder = from.hyper.isBorder;
-		drawEdge(from.euclidean.center, to.euclidean.center, label, image, imageScale, style, fromSpace, toSpace, isBorder);
+		drawEdge(node, from.euclidean.center, to.euclidean.center, label, image, imageScale, style, fromSpace, toSpace, isBorder);
 	}
 
 	/**
-	 * Draw non-tree edge
+	 * Draw non-tree edges. Edges whose endpoints are both border nodes are culled, as are those that cannot cross the view: the arc between two points
+	 * lies within the triangle these points make with the origin. Of the remaining edges, the nearest to focus are drawn, up to the edge limit.
 	 *
-	 * @param edge edge
+	 * @param edgeList edges
 	 */
-	private void drawNonTreeEdge(@NonNull final IEdge edge)
+	private void drawNonTreeEdges(@NonNull final List<IEdge> edgeList)
 	{
-		// style
-		@Nullable final Integer style0 = edge.getStyle();
-		final int style = mergeStyles(this.edgeStyle, style0);
-		if ((style & IEdge.HIDDEN) != 0) // defined and hidden
-		{
-			return;
+		this.edgeStore.update(edgeList, this.snapshot);
+		this.edgeStore.clearCandidates();
+
+		// view bounds (no view culling when zoomed)
+		final boolean cullToView = this.zoomFactor == 1F;
+		final int x0 = this.left - Painter.EDGE_CULL_MARGIN;
+		final int y0 = this.top - Painter.EDGE_CULL_MARGIN;
+		final int x1 = this.left + this.width + Painter.EDGE_CULL_MARGIN;
+		final int y1 = this.top + this.height + Painter.EDGE_CULL_MARGIN;
+		final int ox = xUnitCircleToView(0.);
+		final int oy = yUnitCircleToView(0.);
+
+		// candidates
+		final int n = this.edgeStore.size();
+		for (int i = 0; i < n; i++)
+		{
+			if (this.isCancelled)
+			{
+				return;
+			}
+
+			// style
+			final int style = mergeStyles(this.edgeStyle, this.edgeStore.getEdge(i).getStyle());
+			if ((style & IEdge.HIDDEN) != 0) // defined and hidden
+			{
+				continue;
+			}
+
+			// border
+			final Location fromLocation = location(this.edgeStore.getFrom(i));
+			final Location toLocation = location(this.edgeStore.getTo(i));
+			if (fromLocation.hyper.isBorder && toLocation.hyper.isBorder)
+			{
+				continue;
+			}
+
+			// view
+			if (cullToView)
+			{
+				if (fromLocation.hyper.isDirty)
+				{
+					MapperToEuclidean.mapToEuclidean(fromLocation);
+				}
+				if (toLocation.hyper.isDirty)
+				{
+					MapperToEuclidean.mapToEuclidean(toLocation);
+				}
+				final int px = xUnitCircleToView(fromLocation.euclidean.center.re);
+				final int py = yUnitCircleToView(fromLocation.euclidean.center.im);
+				final int qx = xUnitCircleToView(toLocation.euclidean.center.re);
+				final int qy = yUnitCircleToView(toLocation.euclidean.center.im);
+				if (Painter.isTriangleOutside(ox, oy, px, py, qx, qy, x0, y0, x1, y1))
+				{
+					continue;
+				}
+			}
+
+			// distance to focus
+			this.edgeStore.addCandidate(i, fromLocation.hyper.dist + toLocation.hyper.dist);
 		}
 
-		// nodes
-		INode fromNode = edge.getFrom();
-		INode toNode = edge.getTo();
-		if (fromNode == null || toNode == null)
+		// draw
+		final int count = this.edgeStore.select(this.edgeLimit);
+		for (int j = 0; j < count; j++)
 		{
-			return;
+			if (this.isCancelled)
+			{
+				return;
+			}
+			final int i = this.edgeStore.getSelected(j);
+			drawNonTreeEdge(this.edgeStore.getEdge(i), this.edgeStore.getFrom(i), this.edgeStore.getTo(i));
 		}
-		fromNode = MountPoint.follow(fromNode, false, true);
-		toNode = MountPoint.follow(toNode, false, true);
+	}
+
+	/**
+	 * Draw non-tree edge
+	 *
+	 * @param edge     edge
+	 * @param fromNode from-node (mount point followed)
+	 * @param toNode   to-node (mount point followed)
+	 */
+	private void drawNonTreeEdge(@NonNull final IEdge edge, @NonNull final INode fromNode, @NonNull final INode toNode)
+	{
+		// style (hidden edges have been culled)
+		@Nullable final Integer style0 = edge.getStyle();
+		final int style = mergeStyles(this.edgeStyle, style0);
 
 		// hyper circles
-		final Location fromLocation = fromNode.getLocation();
-		final Location toLocation = toNode.getLocation();
+		final Location fromLocation = location(fromNode);
+		final Location toLocation = location(toNode);
 		// if (fromLocation.hyper.isBorder || toLocation.hyper.isBorder)
 		// return;
 
@@ -742,9 +1112,9 @@ public class Painter extends AbstractPainter
 			MapperToEuclidean.mapToEuclidean(toLocation);
 		}
 
-		// space
-		@Nullable final NodeData fromData = (NodeData) fromNode.getLocation().viewData;
-		@Nullable final NodeData toData = (NodeData) toNode.getLocation().viewData;
+		// space (border nodes have no node data, culled ones may hold stale data)
+		@Nullable final NodeData fromData = fromLocation.hyper.isBorder ? null : (NodeData) fromLocation.viewData;
+		@Nullable final NodeData toData = toLocation.hyper.isBorder ? null : (NodeData) toLocation.viewData;
 		@Nullable Rectangle2D fromSpace = null;
 		if (fromData != null)
 		{
@@ -802,12 +1172,13 @@ public class Painter extends AbstractPainter
 		}
 
 		// draw arc
-		drawEdge(fromLocation.euclidean.center, toLocation.euclidean.center, label, image, imageScale, style, fromSpace, toSpace, false);
+		drawEdge(edge, fromLocation.euclidean.center, toLocation.euclidean.center, label, image, imageScale, style, fromSpace, toSpace, false);
 	}
 
 	/**
 	 * Draw edge from z1 to z2
 	 *
+	 * @param key        edge key for arc geometry cache
 	 * @param z1         from-end
 	 * @param z2         to-end
 	 * @param label      arc label
@@ -818,7 +1189,7 @@ public class Painter extends AbstractPainter
 	 * @param toSpace    to-node space
 	 * @param isBorder   true if arc neighbours border
 	 */
-	private void drawEdge(@NonNull final Complex z1, @NonNull final Complex z2, final String label, final Image image, final float imageScale, final int style, final Rectangle2D fromSpace, final Rectangle2D toSpace, final boolean isBorder)
+	private void drawEdge(@NonNull final Object key, @NonNull final Complex z1, @NonNull final Complex z2, final String label, final Image image, final float imageScale, final int style, final Rectangle2D fromSpace, final Rectangle2D toSpace, final boolean isBorder)
 	{
 		if (Painter.STRAIGHT_EDGE_WHILE_MOVING && this.isDragging || !this.arcEdges || (style & IEdge.LINE) != 0)
 		{
@@ -826,7 +1197,7 @@ public class Painter extends AbstractPainter
 		}
 		else
 		{
-			drawArc(z1, z2, label, image, imageScale, style, fromSpace, toSpace, isBorder);
+			drawArc(key, z1, z2, label, image, imageScale, style, fromSpace, toSpace, isBorder);
 		}
 	}
 
@@ -845,9 +1216,75 @@ public class Painter extends AbstractPainter
 
 	// D R A W . A R C
 
+	/**
+	 * Geodesic arc geometry, in view coordinates. It depends only on the arc's ends, the mapping to view and the end nodes' spaces, which make up its key,
+	 * so it is reused as long as they have not changed.
+	 *
+	 * @author Bernard Bou
+	 */
+	static private class ArcGeometry
+	{
+		/**
+		 * Key size: ends (4), mapping (6), border flag (1), from-node space (4), to-node space (4)
+		 */
+		static final int KEY_SIZE = 19;
+
+		/**
+		 * Key the geometry was computed for
+		 */
+		@NonNull
+		final double[] key = new double[ArcGeometry.KEY_SIZE];
+
+		/**
+		 * Whether geometry has been computed
+		 */
+		boolean isValid;
+
+		/**
+		 * Arc, null if segment of line
+		 */
+		@SuppressWarnings("InstanceVariableOfConcreteClass")
+		@Nullable
+		Arc2D arc2D;
+
+		/**
+		 * From-anchor
+		 */
+		@SuppressWarnings("InstanceVariableOfConcreteClass")
+		Point2D fromAnchor;
+
+		/**
+		 * To-anchor
+		 */
+		@SuppressWarnings("InstanceVariableOfConcreteClass")
+		Point2D toAnchor;
+
+		/**
+		 * Middle of arc
+		 */
+		@SuppressWarnings("InstanceVariableOfConcreteClass")
+		Point2D midArc;
+
+		/**
+		 * Text tangent at middle of arc
+		 */
+		double textTangent;
+
+		/**
+		 * Tangent at from-anchor
+		 */
+		double fromTangent;
+
+		/**
+		 * Tangent at to-anchor
+		 */
+		double toTangent;
+	}
+
 	/**
 	 * Draw geodesic arc from z1 to z2 which models line from z1 to z2
 	 *
+	 * @param key        edge key for arc geometry cache
 	 * @param z1         from-end
 	 * @param z2         to-end
 	 * @param label0     arc label
@@ -858,64 +1295,166 @@ public class Painter extends AbstractPainter
 	 * @param toSpace    to-node space
 	 * @param isBorder   true if arc neighbours border
 	 */
-	private void drawArc(@NonNull final Complex z1, @NonNull final Complex z2, final String label0, @Nullable final Image image, final float imageScale, final int style, final Rectangle2D fromSpace, final Rectangle2D toSpace, final boolean isBorder)
+	private void drawArc(@NonNull final Object key, @NonNull final Complex z1, @NonNull final Complex z2, final String label0, @Nullable final Image image, final float imageScale, final int style, final Rectangle2D fromSpace, final Rectangle2D toSpace, final boolean isBorder)
 	{
-		@NonNull final Arc arc = new Arc(z1, z2);
+		@NonNull final ArcGeometry geometry = getArcGeometry(key, z1, z2, fromSpace, toSpace, isBorder);
+		final Point2D fromAnchor = geometry.fromAnchor;
+		final Point2D toAnchor = geometry.toAnchor;
 
 		String label = label0;
 
 		// if(r == 0.) it is segment of line
-		if (arc.r == 0.)
+		final Arc2D arc2D = geometry.arc2D;
+		if (arc2D == null)
 		{
-			Point2D from = new Point2D(xUnitCircleToView(arc.from.re), yUnitCircleToView(arc.from.im));
-			Point2D to = new Point2D(xUnitCircleToView(arc.to.re), yUnitCircleToView(arc.to.im));
+			// line
+			drawLine(fromAnchor, toAnchor, style);
 
-			// adjust to anchors
-			@Nullable Point2D fromAnchor = null;
-			if (!isBorder)
+			// image
+			if (image != null && !isBorder)
 			{
-				fromAnchor = getIntersection(fromSpace, to, from);
+				@NonNull final Point2D midPoint = Painter.getMidPoint(fromAnchor, toAnchor);
+				drawImage(image, midPoint, imageScale);
 			}
-			//noinspection UnusedAssignment
-			@Nullable Point2D toAnchor = null;
-			toAnchor = getIntersection(toSpace, from, to);
 
-			// adjust line ends
-			if (fromAnchor != null)
-			{
-				from = fromAnchor;
-			}
-			if (toAnchor != null)
+			// ends
+			drawEdgeEnds(fromAnchor, toAnchor, false, 0., 0., style);
+
+			// label
+			if (!isBorder && label != null && !label.isEmpty())
 			{
-				to = toAnchor;
-			}
+				// fit
+				label = mangleString(label, fromAnchor, toAnchor);
+				if (label == null)
+				{
+					return;
+				}
 
-			// line
-			drawLine(from, to, style);
+				drawText(label, fromAnchor, toAnchor);
+			}
+		}
+		else
+		{
+			// draw
+			drawArc(arc2D, fromAnchor, toAnchor, style);
 
 			// image
-			if (image != null && !isBorder)
+			if (image != null)
 			{
-				@NonNull final Point2D midPoint = Painter.getMidPoint(from, to);
-				drawImage(image, midPoint, imageScale);
+				drawImage(image, geometry.midArc, imageScale);
 			}
 
 			// ends
-			drawEdgeEnds(from, to, null, style);
+			drawEdgeEnds(fromAnchor, toAnchor, true, geometry.fromTangent, geometry.toTangent, style);
 
-			// label
+			// draw edge label
 			if (!isBorder && label != null && !label.isEmpty())
 			{
 				// fit
-				label = mangleString(label, from, to);
+				label = mangleString(label, fromAnchor, toAnchor);
 				if (label == null)
 				{
 					return;
 				}
 
-				drawText(label, from, to);
+				// draw text
+				drawText(label, geometry.midArc, geometry.textTangent);
 			}
 		}
+	}
+
+	/**
+	 * Get arc geometry, computing it only if arc ends, mapping or end node spaces have changed since it was last computed
+	 *
+	 * @param key       edge key
+	 * @param z1        from-end
+	 * @param z2        to-end
+	 * @param fromSpace from-node space
+	 * @param toSpace   to-node space
+	 * @param isBorder  true if arc neighbours border
+	 * @return arc geometry
+	 */
+	@NonNull
+	private ArcGeometry getArcGeometry(@NonNull final Object key, @NonNull final Complex z1, @NonNull final Complex z2, @Nullable final Rectangle2D fromSpace, @Nullable final Rectangle2D toSpace, final boolean isBorder)
+	{
+		// key
+		final double[] arcKey = this.arcKey;
+		arcKey[0] = z1.re;
+		arcKey[1] = z1.im;
+		arcKey[2] = z2.re;
+		arcKey[3] = z2.im;
+		arcKey[4] = this.scaleX;
+		arcKey[5] = this.scaleY;
+		arcKey[6] = this.mapScaleFactor;
+		arcKey[7] = this.xShift;
+		arcKey[8] = this.yShift;
+		arcKey[9] = this.width;
+		arcKey[10] = isBorder ? 1. : 0.;
+		Painter.setKey(arcKey, 11, fromSpace);
+		Painter.setKey(arcKey, 15, toSpace);
+
+		// lookup
+		@Nullable ArcGeometry geometry = this.arcGeometries.get(key);
+		if (geometry == null)
+		{
+			geometry = new ArcGeometry();
+			this.arcGeometries.put(key, geometry);
+		}
+		else if (geometry.isValid && Arrays.equals(geometry.key, arcKey))
+		{
+			return geometry;
+		}
+
+		// compute
+		computeArcGeometry(geometry, z1, z2, fromSpace, toSpace, isBorder);
+		System.arraycopy(arcKey, 0, geometry.key, 0, ArcGeometry.KEY_SIZE);
+		geometry.isValid = true;
+		return geometry;
+	}
+
+	/**
+	 * Compute arc geometry
+	 *
+	 * @param geometry  arc geometry to fill
+	 * @param z1        from-end
+	 * @param z2        to-end
+	 * @param fromSpace from-node space
+	 * @param toSpace   to-node space
+	 * @param isBorder  true if arc neighbours border
+	 */
+	private void computeArcGeometry(@NonNull final ArcGeometry geometry, @NonNull final Complex z1, @NonNull final Complex z2, @Nullable final Rectangle2D fromSpace, @Nullable final Rectangle2D toSpace, final boolean isBorder)
+	{
+		@NonNull final Arc arc = new Arc(z1, z2);
+
+		// if(r == 0.) it is segment of line
+		if (arc.r == 0.)
+		{
+			Point2D from = new Point2D(xUnitCircleToView(arc.from.re), yUnitCircleToView(arc.from.im));
+			Point2D to = new Point2D(xUnitCircleToView(arc.to.re), yUnitCircleToView(arc.to.im));
+
+			// adjust to anchors
+			@Nullable Point2D fromAnchor = null;
+			if (!isBorder)
+			{
+				fromAnchor = getIntersection(fromSpace, to, from);
+			}
+			@Nullable final Point2D toAnchor = getIntersection(toSpace, from, to);
+
+			// adjust line ends
+			if (fromAnchor != null)
+			{
+				from = fromAnchor;
+			}
+			if (toAnchor != null)
+			{
+				to = toAnchor;
+			}
+
+			geometry.arc2D = null;
+			geometry.fromAnchor = from;
+			geometry.toAnchor = to;
+			geometry.midArc = null;
+		}
 		else
 		{
 			@NonNull final Arc2D arc2D = toArc2D(arc);
@@ -931,19 +1470,12 @@ public class Painter extends AbstractPainter
 				fromAnchor = arc2D.getStartPoint();
 			}
 
-			//noinspection UnusedAssignment
-			@Nullable Point2D toAnchor = null;
-			toAnchor = getIntersection(toSpace, arc2D);
+			@Nullable Point2D toAnchor = getIntersection(toSpace, arc2D);
 			if (toAnchor == null)
 			{
 				toAnchor = arc2D.getEndPoint();
 			}
 
-			// drawPoint(arc2D.getStartPoint(), Color.MAGENTA);
-			// drawPoint(arc2D.getEndPoint(), Color.MAGENTA);
-			// drawPoint(fromAnchor, Color.YELLOW);
-			// drawPoint(toAnchor, Color.YELLOW);
-
 			// adjust arc ends to anchors
 			if (arc2D.getAngleExtent() >= 0.)
 			{
@@ -953,43 +1485,34 @@ public class Painter extends AbstractPainter
 			{
 				arc2D.setAngles(toAnchor, fromAnchor);
 			}
-			// drawPoint(arc2D.getStartPoint(), Color.GREEN);
-			// drawPoint(arc2D.getEndPoint(), Color.GREEN);
-
-			// draw
-			drawArc(arc2D, fromAnchor, toAnchor, style);
-
-			// image
-			if (image != null)
-			{
-				drawImage(image, ArcMath.getMidArc(arc2D), imageScale);
-			}
-
-			// ends
-			drawEdgeEnds(fromAnchor, toAnchor, arc2D, style);
-
-			// draw edge label
-			if (!isBorder && label != null && !label.isEmpty())
-			{
-				// fit
-				label = mangleString(label, fromAnchor, toAnchor);
-				if (label == null)
-				{
-					return;
-				}
-
-				// mid arc
-				@NonNull final Point2D midArc = ArcMath.getMidArc(arc2D);
 
-				// tangent
-				final double tangent = ArcMath.getTextTangent(arc2D, midArc);
+			geometry.arc2D = arc2D;
+			geometry.fromAnchor = fromAnchor;
+			geometry.toAnchor = toAnchor;
 
-				// draw text
-				drawText(label, midArc, tangent);
-			}
+			// mid arc and tangents
+			geometry.midArc = ArcMath.getMidArc(arc2D);
+			geometry.textTangent = ArcMath.getTextTangent(arc2D, geometry.midArc);
+			geometry.fromTangent = ArcMath.getTangent(arc2D, fromAnchor, true);
+			geometry.toTangent = ArcMath.getTangent(arc2D, toAnchor, false);
 		}
 	}
 
+	/**
+	 * Set space in arc geometry key
+	 *
+	 * @param key    key
+	 * @param offset offset in key
+	 * @param space  space (null sets NaN)
+	 */
+	static private void setKey(@NonNull final double[] key, final int offset, @Nullable final Rectangle2D space)
+	{
+		key[offset] = space == null ? Double.NaN : space.getX();
+		key[offset + 1] = space == null ? Double.NaN : space.getY();
+		key[offset + 2] = space == null ? Double.NaN : space.getWidth();
+		key[offset + 3] = space == null ? Double.NaN : space.getHeight();
+	}
+
 	/**
 	 * Draw arc2D
 	 *
@@ -1124,7 +1647,7 @@ public class Painter extends AbstractPainter
 		}
 
 		// ends
-		drawEdgeEnds(from, to, null, style);
+		drawEdgeEnds(from, to, false, 0., 0., style);
 
 		// label
 		String label = label0;
@@ -1367,12 +1890,14 @@ public class Painter extends AbstractPainter
 	/**
 	 * Draw edge ends
 	 *
-	 * @param from  from-end
-	 * @param to    to-end
-	 * @param arc2D arc
-	 * @param style style code
+	 * @param from         from-end
+	 * @param to           to-end
+	 * @param isArc        whether edge is an arc
+	 * @param orientation1 arc tangent at from-end
+	 * @param orientation2 arc tangent at to-end
+	 * @param style        style code
 	 */
-	private void drawEdgeEnds(@NonNull final Point2D from, @NonNull final Point2D to, @Nullable final Arc2D arc2D, final int style)
+	private void drawEdgeEnds(@NonNull final Point2D from, @NonNull final Point2D to, final boolean isArc, final double orientation1, final double orientation2, final int style)
 	{
 		if (style == 0)
 		{
@@ -1405,7 +1930,7 @@ public class Painter extends AbstractPainter
 		double sy2;
 		double dx2;
 		double dy2;
-		if (arc2D == null)
+		if (!isArc)
 		{
 			final double orientation = Math.atan2(y2 - y1, x2 - x1);
 			sx1 = terminatorHeight * Math.cos(orientation);
@@ -1419,9 +1944,6 @@ public class Painter extends AbstractPainter
 		}
 		else
 		{
-			final double orientation1 = ArcMath.getTangent(arc2D, from, true);
-			final double orientation2 = ArcMath.getTangent(arc2D, to, false);
-
 			// {
 			// this.graphics.setColor(Color.GREEN);
 			// drawOrientation(x1, y1, orientation1);
@@ -1629,7 +2151,7 @@ public class Painter extends AbstractPainter
 			backColor = this.nodeBackColor;
 		}
 		// draw
-		final Location location = node.getLocation();
+		final Location location = location(node);
 		drawCircle(location.euclidean.center.re, location.euclidean.center.im, location.euclidean.radius, backColor);
 
 		// draw center
@@ -1959,6 +2481,70 @@ public class Painter extends AbstractPainter
 		return null;
 	}
 
+	/**
+	 * Whether triangle lies outside rectangle (separating axis test)
+	 *
+	 * @param ax first vertex x
+	 * @param ay first vertex y
+	 * @param bx second vertex x
+	 * @param by second vertex y
+	 * @param cx third vertex x
+	 * @param cy third vertex y
+	 * @param x0 rectangle left
+	 * @param y0 rectangle top
+	 * @param x1 rectangle right
+	 * @param y1 rectangle bottom
+	 * @return true if triangle and rectangle do not intersect
+	 */
+	static private boolean isTriangleOutside(final int ax, final int ay, final int bx, final int by, final int cx, final int cy, final int x0, final int y0, final int x1, final int y1)
+	{
+		// rectangle axes
+		if (Math.max(ax, Math.max(bx, cx)) < x0 || Math.min(ax, Math.min(bx, cx)) > x1 || Math.max(ay, Math.max(by, cy)) < y0 || Math.min(ay, Math.min(by, cy)) > y1)
+		{
+			return true;
+		}
+
+		// triangle axes
+		return Painter.isRectangleBeyond(ax, ay, bx, by, cx, cy, x0, y0, x1, y1) || Painter.isRectangleBeyond(bx, by, cx, cy, ax, ay, x0, y0, x1, y1) || Painter.isRectangleBeyond(cx, cy, ax, ay, bx, by, x0, y0, x1, y1);
+	}
+
+	/**
+	 * Whether rectangle lies strictly on the other side of line (p,q) than point r
+	 *
+	 * @param px line first point x
+	 * @param py line first point y
+	 * @param qx line second point x
+	 * @param qy line second point y
+	 * @param rx reference point x
+	 * @param ry reference point y
+	 * @param x0 rectangle left
+	 * @param y0 rectangle top
+	 * @param x1 rectangle right
+	 * @param y1 rectangle bottom
+	 * @return true if rectangle is beyond line
+	 */
+	static private boolean isRectangleBeyond(final int px, final int py, final int qx, final int qy, final int rx, final int ry, final int x0, final int y0, final int x1, final int y1)
+	{
+		final long nx = py - qy;
+		final long ny = qx - px;
+		final long side = nx * (rx - px) + ny * (ry - py);
+		if (side == 0)
+		{
+			return false;
+		}
+		for (int corner = 0; corner < 4; corner++)
+		{
+			final int x = (corner & 1) == 0 ? x0 : x1;
+			final int y = (corner & 2) == 0 ? y0 : y1;
+			final long s = nx * (x - px) + ny * (y - py);
+			if (s == 0 || s > 0 == side > 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Get whether spaces or boxes intersect (boxes have to be inflated by one pixel)
 	 *
@@ -2015,16 +2601,54 @@ public class Painter extends AbstractPainter
 
 	// l a b e l   h a n d l i n g
 
+	/**
+	 * Make label lines and measure them, unless those computed for a previous frame are up-to-date (same label, same text size, same label settings)
+	 *
+	 * @param node     node
+	 * @param nodeData node data, with text size set and graphics set to this text size
+	 * @return false if node has no label
+	 */
+	private boolean measureLabel(@NonNull final INode node, @NonNull final NodeData nodeData)
+	{
+		final String label = node.toString();
+		if (label.equals(nodeData.label) && nodeData.measuredTextSize == nodeData.textSize && nodeData.labelVersion == this.labelVersion)
+		{
+			return nodeData.fullLabelLines != null;
+		}
+		nodeData.label = label;
+		nodeData.measuredTextSize = nodeData.textSize;
+		nodeData.labelVersion = this.labelVersion;
+		nodeData.charW = -1;
+		nodeData.ellipsizedChars = -1;
+		nodeData.ellipsizedLabelLines = null;
+		nodeData.ellipsizedLabelLinesW = null;
+
+		// lines
+		nodeData.fullLabelLines = makeLabel(label);
+		if (nodeData.fullLabelLines == null)
+		{
+			return false;
+		}
+
+		// measures
+		nodeData.labelLines = nodeData.fullLabelLines;
+		nodeData.fullLabelW = labelWidth(nodeData);
+		nodeData.fullLabelLinesW = nodeData.labelLinesW;
+		nodeData.labelH = labelHeight(nodeData);
+		nodeData.ascent = this.graphics.getAscent();
+		nodeData.descent = this.graphics.getDescent();
+		return true;
+	}
+
 	/**
 	 * Make text into lines
 	 *
-	 * @param node node
+	 * @param label label
 	 * @return lines
 	 */
 	@Nullable
-	private String[] makeLabel(@NonNull final INode node)
+	private String[] makeLabel(@NonNull final String label)
 	{
-		final String label = node.toString();
 		if (label.isEmpty())
 		{
 			return null;
@@ -2047,7 +2671,7 @@ public class Painter extends AbstractPainter
 	static private final String AVERAGE_CHAR = "x";
 
 	/**
-	 * Ellipsize text in label
+	 * Ellipsize text in label, reusing lines from last ellipsizing if the same number of characters fit
 	 *
 	 * @param nodeData      node data
 	 * @param nodeSpaceDiam node space diameter
@@ -2055,11 +2679,14 @@ public class Painter extends AbstractPainter
 	 */
 	private int ellipsizeLabel(@NonNull final NodeData nodeData, final int nodeSpaceDiam)
 	{
-		// compute average character width
-		int wunit = this.graphics.stringWidth(AVERAGE_CHAR);
-
-		// compute trailing dots width
-		int wdots = this.graphics.stringWidth(ELLIPSIS);
+		// compute average character width and trailing dots width
+		if (nodeData.charW < 0)
+		{
+			nodeData.charW = this.graphics.stringWidth(AVERAGE_CHAR);
+			nodeData.ellipsisW = this.graphics.stringWidth(ELLIPSIS);
+		}
+		int wunit = nodeData.charW;
+		int wdots = nodeData.ellipsisW;
 
 		// compute number of characters that fit before dots
 		int nChars = (nodeSpaceDiam - wdots) / wunit;
@@ -2070,8 +2697,18 @@ public class Painter extends AbstractPainter
 			nChars = 1;
 		}
 
-		// truncation
+		// same as last ellipsizing
+		if (nChars == nodeData.ellipsizedChars)
+		{
+			nodeData.labelLines = nodeData.ellipsizedLabelLines;
+			nodeData.labelLinesW = nodeData.ellipsizedLabelLinesW;
+			return nodeData.ellipsizedLabelW;
+		}
+
+		// truncation (on copies of full lines)
 		assert nodeData.labelLines != null;
+		nodeData.labelLines = nodeData.labelLines.clone();
+		nodeData.labelLinesW = nodeData.labelLinesW.clone();
 		int len = nodeData.labelLines[0].length();
 		if (len > nChars)
 		{
@@ -2095,26 +2732,32 @@ public class Painter extends AbstractPainter
 			wdots = this.graphics.stringWidth(ELLIPSIS);
 
 			// compute number of characters that fit before dots
-			nChars = (w - wdots) / wunit;
+			int nExtraChars = (w - wdots) / wunit;
 
 			// ensure at least one
-			if (nChars < 1)
+			if (nExtraChars < 1)
 			{
-				nChars = 1;
+				nExtraChars = 1;
 			}
 
 			for (int i = 1; i < nodeData.labelLines.length; i++)
 			{
 				len = nodeData.labelLines[i].length();
-				if (len > nChars)
+				if (len > nExtraChars)
 				{
 					// truncate
-					nodeData.labelLines[i] = nodeData.labelLines[i].substring(0, nChars) + ELLIPSIS;
+					nodeData.labelLines[i] = nodeData.labelLines[i].substring(0, nExtraChars) + ELLIPSIS;
 					nodeData.labelLinesW[i] = this.graphics.stringWidth(nodeData.labelLines[i]);
 				}
 			}
 			this.graphics.setTextSize(nodeData.textSize);
 		}
+
+		// keep for next frames, keyed by first line's character count
+		nodeData.ellipsizedChars = nChars;
+		nodeData.ellipsizedLabelLines = nodeData.labelLines;
+		nodeData.ellipsizedLabelLinesW = nodeData.labelLinesW;
+		nodeData.ellipsizedLabelW = w;
 		return w;
 	}
 
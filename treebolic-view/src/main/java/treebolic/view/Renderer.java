@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.glue.Graphics;
+import treebolic.glue.GraphicsCache;
+import treebolic.glue.component.Component;
+import treebolic.model.IEdge;
+import treebolic.model.INode;
+
+/**
+ * Background renderer. Frames are painted on a render thread into back buffers while the UI thread only transfers the latest finished frame. Each frame is
+ * painted from a snapshot of the tree (structure and node locations) taken on the UI thread when the frame is requested, so that changes and transforms
+ * applied meanwhile do not tear it. Taking the snapshot walks the whole tree, and transforms are still applied on the UI thread, so that part of the frame
+ * cost remains linear in tree size on the UI thread: only painting is moved off it. A request cancels the frame in flight, if any. There are three frame slots: the one on screen, the one being painted and
+ * the one a new request is snapshot into, the last two alternating as back buffers. Each slot has its own painter, set up like the view's painter when the
+ * slot is requested, so that the render thread shares no painter with the UI thread.
+ *
+ * @author Bernard Bou
+ */
+public class Renderer
+{
+	/**
+	 * Number of frame slots
+	 */
+	static private final int FRAMES = 3;
+
+	/**
+	 * Frame slot
+	 */
+	static private class Frame
+	{
+		/**
+		 * Drawing buffer
+		 */
+		@Nullable
+		GraphicsCache cache;
+
+		/**
+		 * Buffer width
+		 */
+		int width;
+
+		/**
+		 * Buffer height
+		 */
+		int height;
+
+		/**
+		 * Tree snapshot, node data painted from it is attached to it
+		 */
+		@NonNull
+		final Snapshot snapshot = new Snapshot();
+
+		/**
+		 * Painter, used by UI thread while frame is requested or on screen, by render thread while frame is painted
+		 */
+		@NonNull
+		final AbstractPainter painter;
+
+		/**
+		 * Constructor
+		 *
+		 * @param painter painter
+		 */
+		Frame(@NonNull final AbstractPainter painter)
+		{
+			this.painter = painter;
+			this.painter.setSnapshot(this.snapshot);
+		}
+	}
+
+	/**
+	 * Component buffers are made for
+	 */
+	@NonNull
+	private final Component component;
+
+	/**
+	 * View's painter, whose settings frame painters copy
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final AbstractPainter painter;
+
+	/**
+	 * Callback when a frame is ready, run on render thread
+	 */
+	@NonNull
+	private final Runnable onFrame;
+
+	/**
+	 * Render thread
+	 */
+	@NonNull
+	private final ExecutorService executor;
+
+	/**
+	 * Frame slots
+	 */
+	@NonNull
+	private final Frame[] frames;
+
+	/**
+	 * Frame on screen
+	 */
+	@Nullable
+	private volatile Frame front;
+
+	/**
+	 * Frame being painted
+	 */
+	@Nullable
+	private Frame busy;
+
+	/**
+	 * Generation of latest request
+	 */
+	private int generation;
+
+	// C O N S T R U C T O R
+
+	/**
+	 * Constructor
+	 *
+	 * @param component      component buffers are made for
+	 * @param painter        view's painter, whose settings frame painters copy
+	 * @param painterFactory frame painter factory
+	 * @param onFrame        callback when a frame is ready (on render thread)
+	 */
+	public Renderer(@NonNull final Component component, @NonNull final AbstractPainter painter, @NonNull final Supplier<AbstractPainter> painterFactory, @NonNull final Runnable onFrame)
+	{
+		this.component = component;
+		this.painter = painter;
+		this.onFrame = onFrame;
+		this.frames = new Frame[Renderer.FRAMES];
+		for (int i = 0; i < Renderer.FRAMES; i++)
+		{
+			this.frames[i] = new Frame(painterFactory.get());
+		}
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			@NonNull final Thread thread = new Thread(r, "treebolic-renderer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// R E Q U E S T
+
+	/**
+	 * Request frame (UI thread). The in-flight frame, if any, is cancelled.
+	 *
+	 * @param screenGraphics screen graphics context
+	 * @param width          width
+	 * @param height         height
+	 * @param root           root
+	 * @param edges          edges
+	 */
+	public void request(@NonNull final Graphics screenGraphics, final int width, final int height, @Nullable final INode root, @Nullable final List<IEdge> edges)
+	{
+		// claim a slot neither on screen nor being painted
+		@Nullable Frame frame = null;
+		final int generation;
+		synchronized (this)
+		{
+			generation = ++this.generation;
+			if (this.busy != null)
+			{
+				this.busy.painter.cancel();
+			}
+			for (final Frame candidate : this.frames)
+			{
+				if (candidate != this.front && candidate != this.busy)
+				{
+					frame = candidate;
+					break;
+				}
+			}
+		}
+		assert frame != null;
+
+		// buffer
+		if (frame.cache == null || frame.width != width || frame.height != height)
+		{
+			frame.cache = new GraphicsCache(this.component, screenGraphics, width, height);
+			frame.width = width;
+			frame.height = height;
+		}
+
+		// snapshot and settings
+		frame.snapshot.take(root, edges);
+		frame.painter.copySettings(this.painter);
+
+		// paint on render thread
+		@NonNull final Frame requestedFrame = frame;
+		this.executor.execute(() -> render(requestedFrame, generation));
+	}
+
+	/**
+	 * Paint frame (render thread)
+	 *
+	 * @param frame      frame
+	 * @param generation request generation
+	 */
+	private void render(@NonNull final Frame frame, final int generation)
+	{
+		synchronized (this)
+		{
+			if (generation != this.generation)
+			{
+				return;
+			}
+			this.busy = frame;
+			frame.painter.resume();
+		}
+
+		boolean completed = false;
+		try
+		{
+			assert frame.cache != null;
+			frame.painter.setup(frame.cache.getGraphics(), frame.width, frame.height);
+			frame.painter.paintBackground();
+			@Nullable final INode root = frame.snapshot.getRoot();
+			if (root != null)
+			{
+				frame.painter.paint(root, frame.snapshot.getEdges());
+			}
+			completed = !frame.painter.isCancelled();
+		}
+		catch (RuntimeException e)
+		{
+			// free the slot and let the error surface
+			synchronized (this)
+			{
+				this.busy = null;
+			}
+			throw e;
+		}
+
+		// publish
+		boolean published = false;
+		synchronized (this)
+		{
+			this.busy = null;
+			if (completed && generation == this.generation)
+			{
+				this.front = frame;
+				published = true;
+			}
+		}
+		if (published)
+		{
+			this.onFrame.run();
+		}
+	}
+
+	// S C R E E N
+
+	/**
+	 * Transfer latest finished frame on screen (UI thread)
+	 *
+	 * @param screenGraphics screen graphics context
+	 */
+	public void put(@NonNull final Graphics screenGraphics)
+	{
+		@Nullable final Frame front = this.front;
+		if (front != null && front.cache != null)
+		{
+			front.cache.put(screenGraphics);
+		}
+	}
+
+	/**
+	 * Paint overlay on top of frame on screen, from the node data this frame was painted with (UI thread)
+	 *
+	 * @param screenGraphics screen graphics context
+	 * @param hotNode        hot node to highlight, null if none
+	 * @param mountingNodes  nodes whose mount is in progress
+	 */
+	public void paintOverlay(@NonNull final Graphics screenGraphics, @Nullable final INode hotNode, @NonNull final Collection<INode> mountingNodes)
+	{
+		@Nullable final Frame front = this.front;
+		if (front != null)
+		{
+			front.painter.paintOverlay(screenGraphics, hotNode, mountingNodes);
+		}
+	}
+
+	// S T O P
+
+	/**
+	 * Cancel frame in flight and stop render thread
+	 */
+	public void stop()
+	{
+		synchronized (this)
+		{
+			this.generation++;
+			if (this.busy != null)
+			{
+				this.busy.painter.cancel();
+			}
+		}
+		this.executor.shutdown();
+		try
+		{
+			this.executor.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
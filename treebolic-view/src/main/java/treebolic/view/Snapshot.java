@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.model.IEdge;
+import treebolic.model.INode;
+import treebolic.model.Location;
+import treebolic.model.MountPoint;
+
+/**
+ * Snapshot of the displayed tree, taken on the UI thread, that a frame is painted from on the render thread. It holds the structure (parents, children,
+ * non-tree edges with mount points followed) and copies of node locations, so that painting neither walks live children lists nor reads locations that
+ * transforms change meanwhile. Copies are reused from one snapshot to the next. A node the frame reaches must be in the snapshot: a missing entry is an error.
+ *
+ * @author Bernard Bou
+ */
+public class Snapshot
+{
+	/**
+	 * Nodes in tree when snapshot was taken
+	 */
+	@NonNull
+	private final Set<INode> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Location copies by node, kept for nodes no longer in tree until they outnumber those in tree, node data painted from them is attached to them
+	 */
+	@NonNull
+	private final Map<INode, Location> locations = new IdentityHashMap<>();
+
+	/**
+	 * Parents by node
+	 */
+	@NonNull
+	private final Map<INode, INode> parents = new IdentityHashMap<>();
+
+	/**
+	 * Children copies by node
+	 */
+	@NonNull
+	private final Map<INode, List<INode>> children = new IdentityHashMap<>();
+
+	/**
+	 * Edge endpoints, mount points followed, by endpoint
+	 */
+	@NonNull
+	private final Map<INode, INode> endpoints = new IdentityHashMap<>();
+
+	/**
+	 * Non-tree edges whose endpoints are in the snapshot
+	 */
+	@NonNull
+	private final List<IEdge> edges = new ArrayList<>();
+
+	/**
+	 * Root
+	 */
+	@Nullable
+	private INode root;
+
+	// T A K E
+
+	/**
+	 * Take snapshot (UI thread), walking the whole tree
+	 *
+	 * @param root     root
+	 * @param edgeList edges
+	 */
+	public void take(@Nullable final INode root, @Nullable final List<IEdge> edgeList)
+	{
+		// walk
+		@NonNull final List<INode> nodes = new ArrayList<>();
+		@NonNull final Deque<INode> stack = new ArrayDeque<>();
+		if (root != null)
+		{
+			stack.push(root);
+		}
+		while (!stack.isEmpty())
+		{
+			final INode node = stack.pop();
+			nodes.add(node);
+			@Nullable final List<INode> children = node.getChildren();
+			if (children != null)
+			{
+				for (final INode child : children)
+				{
+					stack.push(child);
+				}
+			}
+		}
+
+		// drop nodes no longer in tree
+		if (this.locations.size() > 2 * nodes.size())
+		{
+			this.locations.clear();
+			this.parents.clear();
+			this.children.clear();
+		}
+		this.endpoints.clear();
+		this.nodes.clear();
+		this.nodes.addAll(nodes);
+
+		// structure and locations
+		this.root = root;
+		if (root != null)
+		{
+			this.parents.put(root, null);
+		}
+		for (final INode node : nodes)
+		{
+			// children
+			@Nullable final List<INode> children = node.getChildren();
+			@Nullable List<INode> copyChildren = this.children.get(node);
+			if (copyChildren == null)
+			{
+				copyChildren = new ArrayList<>();
+				this.children.put(node, copyChildren);
+			}
+			copyChildren.clear();
+			if (children != null)
+			{
+				copyChildren.addAll(children);
+				for (final INode child : children)
+				{
+					this.parents.put(child, node);
+				}
+			}
+
+			// location
+			final Location location = node.getLocation();
+			@Nullable Location copy = this.locations.get(node);
+			if (copy == null)
+			{
+				copy = new Location();
+				this.locations.put(node, copy);
+			}
+			copy.hyper.clone(location.hyper);
+			if (!location.hyper.isDirty)
+			{
+				copy.euclidean.center.set(location.euclidean.center);
+				copy.euclidean.radius = location.euclidean.radius;
+				copy.hyper.isDirty = false;
+			}
+		}
+
+		// edges whose endpoints are displayed
+		this.edges.clear();
+		if (edgeList != null)
+		{
+			for (final IEdge edge : edgeList)
+			{
+				@Nullable final INode from = edge.getFrom();
+				@Nullable final INode to = edge.getTo();
+				if (from == null || to == null)
+				{
+					continue;
+				}
+				final INode from2 = MountPoint.follow(from, false, true);
+				final INode to2 = MountPoint.follow(to, false, true);
+				if (this.nodes.contains(from2) && this.nodes.contains(to2))
+				{
+					this.endpoints.put(from, from2);
+					this.endpoints.put(to, to2);
+					this.edges.add(edge);
+				}
+			}
+		}
+	}
+
+	// A C C E S S
+
+	/**
+	 * Get root
+	 *
+	 * @return root
+	 */
+	@Nullable
+	public INode getRoot()
+	{
+		return this.root;
+	}
+
+	/**
+	 * Get non-tree edges whose endpoints are in the snapshot
+	 *
+	 * @return edges
+	 */
+	@NonNull
+	public List<IEdge> getEdges()
+	{
+		return this.edges;
+	}
+
+	/**
+	 * Get location copy
+	 *
+	 * @param node node
+	 * @return location copy
+	 * @throws IllegalStateException if node is not in snapshot
+	 */
+	@NonNull
+	public Location getLocation(@NonNull final INode node)
+	{
+		@Nullable final Location location = findLocation(node);
+		if (location == null)
+		{
+			throw new IllegalStateException("Node not in snapshot: " + node);
+		}
+		return location;
+	}
+
+	/**
+	 * Find location copy
+	 *
+	 * @param node node
+	 * @return location copy, null if node is not in snapshot
+	 */
+	@Nullable
+	public Location findLocation(@NonNull final INode node)
+	{
+		return this.nodes.contains(node) ? this.locations.get(node) : null;
+	}
+
+	/**
+	 * Get parent
+	 *
+	 * @param node node
+	 * @return parent, null for root
+	 * @throws IllegalStateException if node is not in snapshot
+	 */
+	@Nullable
+	public INode getParent(@NonNull final INode node)
+	{
+		if (!this.nodes.contains(node))
+		{
+			throw new IllegalStateException("Node not in snapshot: " + node);
+		}
+		return this.parents.get(node);
+	}
+
+	/**
+	 * Get children copy
+	 *
+	 * @param node node
+	 * @return children
+	 * @throws IllegalStateException if node is not in snapshot
+	 */
+	@NonNull
+	public List<INode> getChildren(@NonNull final INode node)
+	{
+		@Nullable final List<INode> children = this.nodes.contains(node) ? this.children.get(node) : null;
+		if (children == null)
+		{
+			throw new IllegalStateException("Node not in snapshot: " + node);
+		}
+		return children;
+	}
+
+	/**
+	 * Get edge endpoint, mount point followed
+	 *
+	 * @param node edge endpoint
+	 * @return node that is displayed for it
+	 * @throws IllegalStateException if endpoint is not in snapshot
+	 */
+	@NonNull
+	public INode getEndpoint(@NonNull final INode node)
+	{
+		@Nullable final INode endpoint = this.endpoints.get(node);
+		if (endpoint == null)
+		{
+			throw new IllegalStateException("Edge endpoint not in snapshot: " + node);
+		}
+		return endpoint;
+	}
+}
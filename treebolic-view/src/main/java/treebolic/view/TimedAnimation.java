@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import treebolic.annotations.NonNull;
+import treebolic.annotations.Nullable;
+import treebolic.core.Transformer;
+import treebolic.core.location.Complex;
+import treebolic.glue.ActionListener;
+
+/**
+ * Time-based animation. Progress is driven by elapsed wall-clock time, not by the number of ticks, and the transform is interpolated on demand at each
+ * frame. A tick that comes while the previous frame has not been painted yet is dropped, so slow paints lower the frame rate, not the speed of the move.
+ *
+ * @author Bernard Bou
+ */
+@SuppressWarnings("WeakerAccess")
+public class TimedAnimation extends ActionListener
+{
+	/**
+	 * Duration per unit of hyperbolic distance, in milliseconds
+	 */
+	static public final int DURATION_PER_DISTANCE = 300;
+
+	/**
+	 * Minimum duration, in milliseconds
+	 */
+	static public final int MIN_DURATION = 200;
+
+	/**
+	 * Path
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final AnimationPath path;
+
+	/**
+	 * View
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final View view;
+
+	/**
+	 * Duration in nanoseconds
+	 */
+	private final long duration;
+
+	/**
+	 * Target frame rate
+	 */
+	private final int fps;
+
+	/**
+	 * Start time in nanoseconds, at first tick
+	 */
+	private long start;
+
+	/**
+	 * Elapsed time at last frame in nanoseconds
+	 */
+	private long elapsed;
+
+	/**
+	 * View frame count when last frame was applied
+	 */
+	private long appliedFrameCount;
+
+	/**
+	 * Frames applied
+	 */
+	private int frames;
+
+	/**
+	 * Frames dropped
+	 */
+	private int droppedFrames;
+
+	/**
+	 * Constructor
+	 *
+	 * @param path path
+	 * @param fps  target frame rate
+	 * @param view the view being animated
+	 */
+	private TimedAnimation(@NonNull final AnimationPath path, final int fps, @NonNull final View view)
+	{
+		this.path = path;
+		this.fps = fps;
+		this.view = view;
+		this.duration = Math.max(TimedAnimation.MIN_DURATION, (long) (path.hDist * TimedAnimation.DURATION_PER_DISTANCE)) * 1000000L;
+		this.start = -1;
+		this.appliedFrameCount = -1;
+	}
+
+	/**
+	 * Make animation
+	 *
+	 * @param from        source point
+	 * @param to          target point
+	 * @param transformer transform generator
+	 * @param orientation orientation
+	 * @param fps         target frame rate
+	 * @param view        the view being animated
+	 * @return animation or null if source and target are the same
+	 */
+	@Nullable
+	static public TimedAnimation make(@NonNull final Complex from, @NonNull final Complex to, @NonNull final Transformer transformer, @NonNull final Complex orientation, final int fps, @NonNull final View view)
+	{
+		@Nullable final AnimationPath path = AnimationPath.make(from, to, transformer, orientation);
+		if (path == null)
+		{
+			return null;
+		}
+		return new TimedAnimation(path, fps, view);
+	}
+
+	/**
+	 * Get time slice between ticks
+	 *
+	 * @return time slice in milliseconds
+	 */
+	public int getTimeSlice()
+	{
+		return Math.max(1, 1000 / this.fps);
+	}
+
+	/**
+	 * Get number of ticks at target frame rate
+	 *
+	 * @return number of ticks
+	 */
+	public int getSteps()
+	{
+		return (int) Math.max(1, this.duration * this.fps / 1000000000L);
+	}
+
+	@Override
+	public boolean onAction(@Nullable final Object... params)
+	{
+		final long now = System.nanoTime();
+		if (this.start < 0)
+		{
+			this.start = now;
+		}
+		final double progress = Math.min(1., (double) (now - this.start) / this.duration);
+
+		// platform animators that keep their own time signal the last step
+		final Integer suggestedIndex = params == null || params.length == 0 ? null : (Integer) params[0];
+		final boolean last = progress >= 1. || suggestedIndex != null && suggestedIndex >= getSteps() - 1;
+
+		// drop frame if previous one has not been painted yet
+		if (!last && this.view.getFrameCount() == this.appliedFrameCount)
+		{
+			this.droppedFrames++;
+			return true;
+		}
+
+		// frame
+		this.view.applyTransform(this.path.transformAt(last ? 1. : progress));
+		this.view.repaint();
+		this.appliedFrameCount = this.view.getFrameCount();
+		this.frames++;
+		this.elapsed = now - this.start;
+		return !last;
+	}
+
+	/**
+	 * Get frames applied so far
+	 *
+	 * @return number of frames
+	 */
+	public int getFrames()
+	{
+		return this.frames;
+	}
+
+	/**
+	 * Get frames dropped so far
+	 *
+	 * @return number of dropped frames
+	 */
+	public int getDroppedFrames()
+	{
+		return this.droppedFrames;
+	}
+
+	/**
+	 * Get achieved frame rate
+	 *
+	 * @return frames per second, 0 if not enough frames
+	 */
+	public float getFps()
+	{
+		if (this.frames < 2 || this.elapsed <= 0)
+		{
+			return 0F;
+		}
+		return (this.frames - 1) * 1000000000F / this.elapsed;
+	}
+}
@@ -4,12 +4,18 @@
 
 package treebolic.view;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
 import treebolic.annotations.NonNull;
 import treebolic.annotations.Nullable;
 import treebolic.control.Controller;
 import treebolic.control.EventListenerAdapter;
-import treebolic.control.Finder;
 import treebolic.core.AbstractLayerOut;
+import treebolic.core.SpatialIndex;
 import treebolic.core.Transformer;
 import treebolic.core.location.Complex;
 import treebolic.core.transform.HyperRotation;
@@ -55,6 +61,13 @@ public class View extends Surface
 	@NonNull
 	private final Transformer transformer;
 
+	/**
+	 * Spatial index for hit-testing
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@NonNull
+	private final SpatialIndex index;
+
 	/**
 	 * Animator
 	 */
@@ -81,6 +94,12 @@ public class View extends Surface
 	 */
 	private boolean invalidatePainterGraphics;
 
+	/**
+	 * Static layer (background, edges, nodes) redraw flag. The static layer is held in the drawing cache and is only regenerated when the transform, size,
+	 * model or painting parameters change, overlay-only repaints transfer it as is.
+	 */
+	private boolean invalidateStaticLayer;
+
 	/**
 	 * View width
 	 */
@@ -98,6 +117,13 @@ public class View extends Surface
 	@Nullable
 	private GraphicsCache cache;
 
+	/**
+	 * Background renderer, null if rendering on UI thread
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@Nullable
+	private Renderer renderer;
+
 	// R E F E R E N C E . N O D E S
 
 	/**
@@ -113,6 +139,33 @@ public class View extends Surface
 	 */
 	private boolean focusOnHover;
 
+	/**
+	 * Target frame rate of time-based animations, 0 for step animations
+	 */
+	private int animationFps;
+
+	// A N I M A T I O N
+
+	/**
+	 * Frames painted, or handed over by background renderer
+	 */
+	private final AtomicLong frameCount = new AtomicLong();
+
+	/**
+	 * Last time-based animation
+	 */
+	@SuppressWarnings("InstanceVariableOfConcreteClass")
+	@Nullable
+	private TimedAnimation timedAnimation;
+
+	// M O U N T
+
+	/**
+	 * Nodes whose mount is in progress
+	 */
+	@NonNull
+	private final Set<INode> mountingNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
 	// C O N S T R U C T O R
 
 	/**
@@ -131,6 +184,10 @@ public class View extends Surface
 		// transformer
 		this.transformer = new Transformer();
 
+		// spatial index, invalidated by transformer
+		this.index = new SpatialIndex();
+		this.transformer.connect(this.index);
+
 		// animator
 		this.animator = new Animator();
 
@@ -139,12 +196,14 @@ public class View extends Surface
 		this.height = 0;
 		this.cache = null;
 		this.invalidatePainterGraphics = true;
+		this.invalidateStaticLayer = true;
 
 		// reference nodes
 		this.focusNode = null;
 
 		// behaviour flags
 		this.focusOnHover = true;
+		this.animationFps = 0;
 	}
 
 	// C O N N E C T
@@ -169,6 +228,9 @@ public class View extends Surface
 	public void connect(final Model model)
 	{
 		this.model = model;
+		this.index.invalidate();
+		this.painter.invalidateEdges();
+		this.invalidateStaticLayer = true;
 	}
 
 	/**
@@ -207,6 +269,15 @@ public class View extends Surface
 		{
 			this.listenerAdapter.resetHotNode();
 		}
+		this.invalidateStaticLayer = true;
+		super.repaint();
+	}
+
+	/**
+	 * Repaint overlay (hot node, mounts in progress) only, the static layer is transferred from cache
+	 */
+	public void repaintOverlay()
+	{
 		super.repaint();
 	}
 
@@ -217,6 +288,28 @@ public class View extends Surface
 		if (this.listenerAdapter.drag())
 		{
 			this.invalidatePainterGraphics = true;
+			this.invalidateStaticLayer = true;
+		}
+
+		// background rendering
+		if (this.renderer != null)
+		{
+			final int width = getWidth();
+			final int height = getHeight();
+			if (this.invalidateStaticLayer || width != this.width || height != this.height)
+			{
+				this.invalidateStaticLayer = false;
+				this.width = width;
+				this.height = height;
+				this.renderer.request(screenGraphics, width, height, this.model.tree.getRoot(), this.model.tree.getEdges());
+			}
+
+			// transfer latest finished frame on screen
+			this.renderer.put(screenGraphics);
+
+			// overlay
+			this.renderer.paintOverlay(screenGraphics, this.listenerAdapter.getHotNode(), this.mountingNodes);
+			return;
 		}
 
 		// create a cached image the first time or when size changes
@@ -226,6 +319,7 @@ public class View extends Surface
 		{
 			// invalidate old cache
 			this.invalidatePainterGraphics = true;
+			this.invalidateStaticLayer = true;
 
 			// size
 			this.width = width;
@@ -235,24 +329,34 @@ public class View extends Surface
 			this.cache = new GraphicsCache(this, screenGraphics, this.width, this.height);
 		}
 
-		// setup painter cached graphics and size
-		if (this.invalidatePainterGraphics)
+		// static layer
+		if (this.invalidateStaticLayer)
 		{
-			// cached graphics context
-			@NonNull final Graphics cacheGraphics = this.cache.getGraphics();
+			this.invalidateStaticLayer = false;
 
-			// tell painter
-			this.painter.setup(cacheGraphics, this.width, this.height);
-		}
+			// setup painter cached graphics and size
+			if (this.invalidatePainterGraphics)
+			{
+				// cached graphics context
+				@NonNull final Graphics cacheGraphics = this.cache.getGraphics();
 
-		// paint background
-		this.painter.paintBackground();
+				// tell painter
+				this.painter.setup(cacheGraphics, this.width, this.height);
+			}
 
-		// paint tree
-		this.painter.paint(this.model.tree.getRoot(), this.model.tree.getEdges());
+			// paint background
+			this.painter.paintBackground();
+
+			// paint tree
+			this.painter.paint(this.model.tree.getRoot(), this.model.tree.getEdges());
+			this.frameCount.incrementAndGet();
+		}
 
 		// transfer cache on screen
 		this.cache.put(screenGraphics);
+
+		// overlay
+		this.painter.paintOverlay(screenGraphics, this.listenerAdapter.getHotNode(), this.mountingNodes);
 	}
 
 	/**
@@ -296,6 +400,31 @@ public class View extends Surface
 
 	// M O U N T . N O T I F I C A T I O N
 
+	/**
+	 * Mark node as having its mount in progress, or no longer
+	 *
+	 * @param mountingNode mounting node
+	 * @param flag         whether mount is in progress
+	 */
+	public void setMounting(@NonNull final INode mountingNode, final boolean flag)
+	{
+		if (flag ? this.mountingNodes.add(mountingNode) : this.mountingNodes.remove(mountingNode))
+		{
+			repaintOverlay();
+		}
+	}
+
+	/**
+	 * Whether node has its mount in progress
+	 *
+	 * @param mountingNode mounting node
+	 * @return true if mount is in progress
+	 */
+	public boolean isMounting(@NonNull final INode mountingNode)
+	{
+		return this.mountingNodes.contains(mountingNode);
+	}
+
 	/**
 	 * Mount notification hook
 	 *
@@ -304,6 +433,22 @@ public class View extends Surface
 	public void mount(@NonNull final INode mountedRoot)
 	{
 		this.transformer.transform(mountedRoot);
+		this.painter.invalidateEdges();
+		repaint();
+	}
+
+	/**
+	 * Update notification hook, branches are transformed and repainted once
+	 *
+	 * @param branches updated branch nodes
+	 */
+	public void update(@NonNull final Collection<INode> branches)
+	{
+		for (@NonNull final INode branch : branches)
+		{
+			this.transformer.transform(branch);
+		}
+		this.painter.invalidateEdges();
 		repaint();
 	}
 
@@ -315,6 +460,7 @@ public class View extends Surface
 	public void umount(@NonNull final INode mountingRoot)
 	{
 		this.transformer.transform(mountingRoot);
+		this.painter.invalidateEdges();
 		repaint();
 	}
 
@@ -333,6 +479,37 @@ public class View extends Surface
 		setFireHover(this.focusOnHover);
 	}
 
+	// R E N D E R I N G
+
+	/**
+	 * Control whether frames are rendered on a background thread, the UI thread only transferring finished frames on screen
+	 *
+	 * @param flag whether frames are rendered on a background thread (null toggles value)
+	 */
+	@SuppressWarnings({"WeakerAccess"})
+	public void setBackgroundRendering(@Nullable final Boolean flag)
+	{
+		final boolean background = flag != null ? flag : this.renderer == null;
+		if (background == (this.renderer != null))
+		{
+			return;
+		}
+		if (background)
+		{
+			this.renderer = new Renderer(this, this.painter, Painter::new, () -> {
+				this.frameCount.incrementAndGet();
+				super.repaint();
+			});
+		}
+		else
+		{
+			this.renderer.stop();
+			this.renderer = null;
+			this.cache = null;
+		}
+		repaint();
+	}
+
 	// O R I E N T A T I O N
 
 	/**
@@ -467,6 +644,15 @@ public class View extends Surface
 		{
 			setPreserveOrientation(settings.preserveOrientationFlag);
 		}
+		this.transformer.setParallel(settings.parallelFlag, settings.parallelThreshold);
+		if (settings.backgroundRenderingFlag != null)
+		{
+			setBackgroundRendering(settings.backgroundRenderingFlag);
+		}
+		if (settings.animationFps != null)
+		{
+			setAnimationFps(settings.animationFps);
+		}
 		if (settings.xShift != null)
 		{
 			setXShift(settings.xShift, false);
@@ -486,6 +672,7 @@ public class View extends Surface
 		this.painter.setLabelExtraLineFactor(settings.labelExtraLineFactor);
 		this.painter.setArcEdges(settings.edgesAsArcsFlag);
 		this.painter.setEdgeStyles(settings.treeEdgeStyle, settings.edgeStyle);
+		this.painter.setEdgeLimit(settings.edgeLimit);
 	}
 
 	/**
@@ -663,6 +850,18 @@ public class View extends Surface
 	 */
 	private synchronized void animate(@NonNull final Complex from, @NonNull final Complex to, final boolean now)
 	{
+		if (this.animationFps > 0)
+		{
+			@Nullable final TimedAnimation animation = TimedAnimation.make(from, to, this.transformer, this.layerOut.getOrientation(), this.animationFps, this);
+			if (animation == null)
+			{
+				return;
+			}
+			this.timedAnimation = animation;
+			this.animator.run(animation, animation.getSteps(), now ? 0 : Animation.ANIMATION_START_DELAY, animation.getTimeSlice());
+			return;
+		}
+
 		@NonNull final AnimationTransforms transforms = AnimationTransforms.make(from, to, this.transformer, this.layerOut.getOrientation(), 0);
 		if (transforms.transforms == null)
 		{
@@ -682,6 +881,38 @@ public class View extends Surface
 		return this.animator.isRunning();
 	}
 
+	/**
+	 * Set target frame rate of animations
+	 *
+	 * @param fps target frame rate of time-based animations, null or 0 for step animations
+	 */
+	@SuppressWarnings({"WeakerAccess"})
+	public void setAnimationFps(@Nullable final Integer fps)
+	{
+		this.animationFps = fps == null || fps < 0 ? 0 : fps;
+	}
+
+	/**
+	 * Get achieved frame rate of last time-based animation
+	 *
+	 * @return frames per second, 0 if none
+	 */
+	public float getAnimationFps()
+	{
+		@Nullable final TimedAnimation animation = this.timedAnimation;
+		return animation == null ? 0F : animation.getFps();
+	}
+
+	/**
+	 * Get number of frames painted so far, or handed over by background renderer
+	 *
+	 * @return frame count
+	 */
+	public long getFrameCount()
+	{
+		return this.frameCount.get();
+	}
+
 	// S E A R C H I N G
 
 	/**
@@ -694,8 +925,8 @@ public class View extends Surface
 	@Nullable
 	public INode findNode(final int vx, final int vy)
 	{
-		@NonNull final Complex euclideanLocation = this.painter.viewToUnitCircle(vx, vy, this.width, this.height);
-		return Finder.findNodeAt(this.model.tree.getRoot(), euclideanLocation, getFinderDistanceEpsilonFactor());
+		@NonNull final Complex euclideanLocation = viewToUnitCircle(vx, vy);
+		return this.index.findNodeAt(this.model.tree.getRoot(), euclideanLocation, getFinderDistanceEpsilonFactor());
 	}
 
 	/**
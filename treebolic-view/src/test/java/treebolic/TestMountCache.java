@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Properties;
+
+import treebolic.model.Model;
+import treebolic.model.Node;
+import treebolic.model.Tree;
+import treebolic.provider.IProvider;
+import treebolic.provider.IProviderContext;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test mounted tree cache
+ */
+public class TestMountCache
+{
+	static private class NullProvider implements IProvider
+	{
+		@Override
+		public void setLocator(final ILocator locator)
+		{
+		}
+
+		@Override
+		public void setContext(final IProviderContext providerContext)
+		{
+		}
+
+		@Override
+		public void setHandle(final Object handle)
+		{
+		}
+
+		@Override
+		public Model makeModel(final String source, final URL base, final Properties parameters)
+		{
+			return null;
+		}
+
+		@Override
+		public Tree makeTree(final String source, final URL base, final Properties parameters, final boolean checkRecursion)
+		{
+			return null;
+		}
+	}
+
+	private static Tree makeTree(final String id)
+	{
+		return new Tree(new Node(null, id), new ArrayList<>());
+	}
+
+	@Test
+	public void testMountCache()
+	{
+		final IProvider provider = new NullProvider();
+		final IProvider otherProvider = new NullProvider();
+		final MountCache cache = new MountCache(2);
+
+		// mounted trees are not available until unmounted
+		final Tree a = makeTree("a");
+		cache.mounted(provider, "a", a);
+		assertNull(cache.take(provider, "a"));
+		cache.unmounted(a.getRoot());
+		assertNull(cache.take(otherProvider, "a"));
+		assertSame(a, cache.take(provider, "a"));
+		assertNull(cache.take(provider, "a"));
+
+		// least recently used is evicted
+		final Tree b = makeTree("b");
+		final Tree c = makeTree("c");
+		cache.put(provider, "a", a);
+		cache.put(provider, "b", b);
+		cache.put(provider, "c", c);
+		assertNull(cache.take(provider, "a"));
+		assertSame(b, cache.take(provider, "b"));
+		assertSame(c, cache.take(provider, "c"));
+
+		// disabled
+		final MountCache noCache = new MountCache(0);
+		noCache.mounted(provider, "a", a);
+		noCache.unmounted(a.getRoot());
+		assertNull(noCache.take(provider, "a"));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import treebolic.model.INode;
+import treebolic.model.Node;
+import treebolic.model.Types.MatchMode;
+import treebolic.model.Types.MatchScope;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test search index against traversal matching
+ */
+public class TestSearchIndex
+{
+	private static final int SIZE = 2000;
+
+	private static class TestNode extends Node
+	{
+		private String label;
+
+		private String content;
+
+		TestNode(final INode parent, final String id)
+		{
+			super(parent, id);
+		}
+
+		@Override
+		public String getLabel()
+		{
+			return this.label;
+		}
+
+		@Override
+		public String getContent()
+		{
+			return this.content;
+		}
+	}
+
+	private static final String[] WORDS = {"Alpha", "beta", "GAMMA", "delta", "alphabet", "Bet", "gam", "al"};
+
+	@Test
+	public void testSearchIndex() throws InterruptedException
+	{
+		final Random random = new Random(11);
+		final List<INode> nodes = new ArrayList<>();
+		nodes.add(new TestNode(null, "root"));
+		for (int i = 1; i < SIZE; i++)
+		{
+			final TestNode node = new TestNode(nodes.get(random.nextInt(nodes.size())), "id" + i);
+			node.label = WORDS[random.nextInt(WORDS.length)] + ' ' + WORDS[random.nextInt(WORDS.length)];
+			if (random.nextBoolean())
+			{
+				node.content = WORDS[random.nextInt(WORDS.length)];
+			}
+			nodes.add(node);
+		}
+
+		final SearchIndex index = new SearchIndex(nodes.get(0));
+		final String[] targets = {"al", "alpha", "ALPHA beta", "bet", "a", "gamma gam", "zz", "id1", "d"};
+		for (final MatchScope scope : MatchScope.values())
+		{
+			for (final MatchMode mode : MatchMode.values())
+			{
+				for (final String target : targets)
+				{
+					for (final INode start : new INode[]{nodes.get(0), nodes.get(1), nodes.get(SIZE / 2)})
+					{
+						final List<INode> expected = new ArrayList<>();
+						final Traverser traverser = new Traverser(new Traverser.NoCaseMatcher(target, scope, mode), start);
+						try
+						{
+							for (final INode node : traverser)
+							{
+								expected.add(node);
+							}
+						}
+						finally
+						{
+							traverser.close();
+						}
+						final List<INode> actual = new ArrayList<>();
+						index.search(target, scope, mode, start).forEachRemaining(actual::add);
+						assertEquals(expected, actual, scope + " " + mode + " " + target);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import treebolic.core.location.HyperCircle;
+import treebolic.model.INode;
+import treebolic.model.Node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test branch layout against whole tree layout
+ */
+public class TestLayoutBranch
+{
+	private static final int SIZE = 2000;
+
+	@Test
+	public void testLayoutBranch()
+	{
+		final List<INode> nodes = makeTree();
+		final INode root = nodes.get(0);
+		final Weigher weigher = new Weigher();
+		final LayerOut layerOut = new LayerOut();
+		weigher.weigh(root);
+		layerOut.layout(root);
+		final Map<INode, HyperCircle> layout = snapshot(nodes);
+
+		// unchanged branches are laid out as they were
+		for (int i = 0; i < SIZE; i += 97)
+		{
+			assertTrue(layerOut.layoutBranch(nodes.get(i)));
+		}
+		assertLaidOut(nodes, layout, null);
+
+		// changed branch is laid out again, the rest of the tree is left as it was
+		final INode branch = nodes.get(5);
+		for (int i = 0; i < 20; i++)
+		{
+			nodes.add(new Node(branch, "new" + i));
+		}
+		final double weight = branch.getWeight();
+		weigher.weigh(branch);
+		branch.setWeight(weight);
+		assertTrue(layerOut.layoutBranch(branch));
+		assertLaidOut(nodes.subList(0, SIZE), layout, branch);
+		for (final INode node : nodes.subList(SIZE, nodes.size()))
+		{
+			assertTrue(node.getLocation().hyper.center0.abs2() < 1.);
+		}
+	}
+
+	private static List<INode> makeTree()
+	{
+		final Random random = new Random(11);
+		final List<INode> nodes = new ArrayList<>();
+		nodes.add(new Node(null, "0"));
+		for (int i = 1; i < SIZE; i++)
+		{
+			nodes.add(new Node(nodes.get(random.nextInt(nodes.size())), Integer.toString(i)));
+		}
+		return nodes;
+	}
+
+	private static Map<INode, HyperCircle> snapshot(final List<INode> nodes)
+	{
+		final Map<INode, HyperCircle> layout = new IdentityHashMap<>();
+		for (final INode node : nodes)
+		{
+			final HyperCircle hyper = new HyperCircle();
+			hyper.clone(node.getLocation().hyper);
+			layout.put(node, hyper);
+		}
+		return layout;
+	}
+
+	private static void assertLaidOut(final List<INode> nodes, final Map<INode, HyperCircle> layout, final INode changedBranch)
+	{
+		for (final INode node : nodes)
+		{
+			if (changedBranch != null && isUnder(node, changedBranch))
+			{
+				continue;
+			}
+			final HyperCircle expected = layout.get(node);
+			final HyperCircle actual = node.getLocation().hyper;
+			assertEquals(expected.center0.re, actual.center0.re, 0.);
+			assertEquals(expected.center0.im, actual.center0.im, 0.);
+			assertEquals(expected.radius, actual.radius, 0.);
+		}
+	}
+
+	private static boolean isUnder(final INode node, final INode branch)
+	{
+		for (INode ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent())
+		{
+			if (ancestor == branch)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
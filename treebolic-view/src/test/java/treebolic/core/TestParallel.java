@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import treebolic.core.location.Complex;
+import treebolic.core.math.MapperToEuclidean;
+import treebolic.model.INode;
+import treebolic.model.Location;
+import treebolic.model.Node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test parallel weighing, layout and transform against sequential execution (both defer mapping to euclidean space to painting)
+ */
+public class TestParallel
+{
+	private static final int SIZE = 50000;
+
+	@Test
+	public void testParallel()
+	{
+		final List<INode> sequential = makeTree();
+		final List<INode> parallel = makeTree();
+		run(sequential.get(0), false);
+		run(parallel.get(0), true);
+
+		for (int i = 0; i < SIZE; i++)
+		{
+			final INode node1 = sequential.get(i);
+			final INode node2 = parallel.get(i);
+			assertEquals(node1.getWeight(), node2.getWeight(), 0.);
+			assertEquals(node1.getChildrenWeight(), node2.getChildrenWeight(), 0.);
+			final Location location1 = node1.getLocation();
+			final Location location2 = node2.getLocation();
+			assertEquals(location1.hyper.isDirty, location2.hyper.isDirty);
+			assertEquals(location1.subtreeSize, location2.subtreeSize);
+			if (location1.hyper.isDirty)
+			{
+				MapperToEuclidean.mapToEuclidean(location1);
+				MapperToEuclidean.mapToEuclidean(location2);
+			}
+			assertEquals(location1.hyper.center0.re, location2.hyper.center0.re, 0.);
+			assertEquals(location1.hyper.center0.im, location2.hyper.center0.im, 0.);
+			assertEquals(location1.hyper.center.re, location2.hyper.center.re, 0.);
+			assertEquals(location1.hyper.center.im, location2.hyper.center.im, 0.);
+			assertEquals(location1.hyper.isBorder, location2.hyper.isBorder);
+			assertEquals(location1.euclidean.center.re, location2.euclidean.center.re, 0.);
+			assertEquals(location1.euclidean.center.im, location2.euclidean.center.im, 0.);
+			assertEquals(location1.euclidean.radius, location2.euclidean.radius, 0.);
+		}
+	}
+
+	private static List<INode> makeTree()
+	{
+		final Random random = new Random(7);
+		final List<INode> nodes = new ArrayList<>();
+		nodes.add(new Node(null, "0"));
+		for (int i = 1; i < SIZE; i++)
+		{
+			nodes.add(new Node(nodes.get(random.nextInt(nodes.size())), Integer.toString(i)));
+		}
+		return nodes;
+	}
+
+	private static void run(final INode root, final boolean parallel)
+	{
+		final Weigher weigher = new Weigher();
+		final LayerOut layerOut = new LayerOut();
+		final Transformer transformer = new Transformer();
+		weigher.setParallel(parallel, 100);
+		layerOut.setParallel(parallel, 100);
+		transformer.setParallel(parallel, 100);
+
+		weigher.weigh(root);
+		layerOut.layout(root);
+		transformer.setTransform(transformer.makeTransform(new Complex(.4, .1), Complex.ZERO, Complex.ZERO));
+		transformer.transform(root);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import treebolic.core.location.Complex;
+import treebolic.core.math.MapperToEuclidean;
+import treebolic.model.INode;
+import treebolic.model.Location;
+import treebolic.model.Node;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test spatial index against exhaustive search
+ */
+public class TestSpatialIndex
+{
+	private static final float EPSILON_FACTOR = 1.5F;
+
+	@Test
+	public void testIndex()
+	{
+		// tree
+		final Random random = new Random(1);
+		final List<INode> nodes = new ArrayList<>();
+		final Node root = new Node(null, "0");
+		nodes.add(root);
+		for (int i = 1; i < 2000; i++)
+		{
+			nodes.add(new Node(nodes.get(random.nextInt(nodes.size())), Integer.toString(i)));
+		}
+
+		// layout and transform
+		new Weigher().weigh(root);
+		new LayerOut().layout(root);
+		final Transformer transformer = new Transformer();
+		final SpatialIndex index = new SpatialIndex();
+		transformer.connect(index);
+		transformer.setTransform(transformer.makeTransform(new Complex(.3, -.2), Complex.ZERO, Complex.ZERO));
+		transformer.transform(root);
+
+		// probe
+		for (int i = 0; i < 5000; i++)
+		{
+			final Complex point = Complex.makeFromArgAbs(random.nextDouble() * 2 * Math.PI, random.nextDouble());
+			assertSame(findNodeAt(nodes, point), index.findNodeAt(root, point, EPSILON_FACTOR));
+		}
+	}
+
+	private static INode findNodeAt(final List<INode> nodes, final Complex point)
+	{
+		INode result = null;
+		double distance = Double.MAX_VALUE;
+		for (final INode node : nodes)
+		{
+			final Location location = node.getLocation();
+			if (location.hyper.isBorder)
+			{
+				continue;
+			}
+			if (location.hyper.isDirty)
+			{
+				MapperToEuclidean.mapToEuclidean(location);
+			}
+			final double dx = location.euclidean.center.re - point.re;
+			final double dy = location.euclidean.center.im - point.im;
+			final double distance2 = dx * dx + dy * dy;
+			if (distance2 < distance && distance2 < location.euclidean.radius * location.euclidean.radius * EPSILON_FACTOR)
+			{
+				result = node;
+				distance = distance2;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import org.junit.jupiter.api.Test;
+
+import treebolic.core.Transformer;
+import treebolic.core.location.Complex;
+import treebolic.core.math.Distance;
+import treebolic.core.transform.HyperTransform;
+import treebolic.core.transform.HyperTranslation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test on-demand interpolation of animation transforms
+ */
+public class TestAnimationPath
+{
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	public void testAnimationPath()
+	{
+		for (final Complex orientation : new Complex[]{Complex.ZERO, new Complex(1., 0.)})
+		{
+			testAnimationPath(orientation);
+		}
+	}
+
+	private void testAnimationPath(final Complex orientation)
+	{
+		final Transformer transformer = new Transformer();
+		final Complex from = new Complex(.6, -.3);
+		final Complex to = new Complex(Complex.ZERO);
+
+		final AnimationPath path = AnimationPath.make(from, to, transformer, orientation);
+		assertNotNull(path);
+		assertNull(AnimationPath.make(from, new Complex(from), transformer, orientation));
+
+		// end of path takes source to target
+		final Complex end = path.transformAt(1.).map(new Complex(from));
+		assertEquals(to.re, end.re, EPSILON);
+		assertEquals(to.im, end.im, EPSILON);
+
+		// source gets closer to target as progress increases
+		double previous = Double.MAX_VALUE;
+		for (int i = 1; i <= 100; i++)
+		{
+			final Complex z = path.transformAt(i / 100.).map(new Complex(from));
+			final double distance = Distance.getHyperDistance(z, to);
+			assertTrue(distance < previous, "step " + i);
+			previous = distance;
+		}
+
+		// step animation samples the same path, even once the animation has changed the current transform
+		final AnimationTransforms transforms = AnimationTransforms.make(from, to, transformer, orientation, 10);
+		assertEquals(10, transforms.transforms.size());
+		transformer.setTransform(new HyperTransform(new HyperTranslation(.2, .1)));
+		for (int i = 1; i <= 10; i++)
+		{
+			final Complex expected = transforms.transforms.get(i - 1).map(new Complex(from));
+			final Complex actual = path.transformAt(i / 10.).map(new Complex(from));
+			assertEquals(expected.re, actual.re, EPSILON);
+			assertEquals(expected.im, actual.im, EPSILON);
+		}
+	}
+}
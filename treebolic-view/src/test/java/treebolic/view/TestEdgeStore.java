@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import treebolic.model.Edge;
+import treebolic.model.IEdge;
+import treebolic.model.Node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test edge store endpoint resolution and selection of edges nearest to focus
+ */
+public class TestEdgeStore
+{
+	@Test
+	public void testEdgeStore()
+	{
+		final Node root = new Node(null, "root");
+		final List<Node> nodes = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+		{
+			nodes.add(new Node(root, "n" + i));
+		}
+		final List<IEdge> edges = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+		{
+			edges.add(new Edge(nodes.get(i % 10), nodes.get((i + 1) % 10)));
+		}
+		edges.add(new Edge(root, null));
+
+		// edges with a missing endpoint are dropped
+		final EdgeStore store = new EdgeStore();
+		store.update(edges);
+		assertEquals(100, store.size());
+		assertSame(nodes.get(3), store.getFrom(3));
+		assertSame(nodes.get(4), store.getTo(3));
+
+		// selection keeps the lowest priorities, in edge list order
+		final Random random = new Random(7);
+		final double[] priorities = new double[store.size()];
+		store.clearCandidates();
+		for (int i = 0; i < store.size(); i++)
+		{
+			priorities[i] = random.nextInt(20);
+			store.addCandidate(i, priorities[i]);
+		}
+		final double[] sorted = priorities.clone();
+		Arrays.sort(sorted);
+		final int limit = 25;
+		assertEquals(limit, store.select(limit));
+		int previous = -1;
+		for (int j = 0; j < limit; j++)
+		{
+			final int i = store.getSelected(j);
+			assertTrue(i > previous);
+			assertTrue(priorities[i] <= sorted[limit - 1]);
+			previous = i;
+		}
+
+		// no limit
+		store.clearCandidates();
+		for (int i = 0; i < store.size(); i++)
+		{
+			store.addCandidate(i, priorities[i]);
+		}
+		assertEquals(store.size(), store.select(0));
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023. Bernard Bou
+ */
+
+package treebolic.view;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import treebolic.model.Edge;
+import treebolic.model.IEdge;
+import treebolic.model.INode;
+import treebolic.model.MountPoint;
+import treebolic.model.Node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test that a snapshot is unaffected by changes to the tree it was taken from
+ */
+public class TestSnapshot
+{
+	@Test
+	public void testSnapshot()
+	{
+		final Node root = new Node(null, "root");
+		final Node a = new Node(root, "a");
+		final Node b = new Node(root, "b");
+		final Node a1 = new Node(a, "a1");
+		a1.getLocation().hyper.radius = .25;
+		final List<IEdge> edges = new ArrayList<>();
+		edges.add(new Edge(a1, b));
+
+		final Snapshot snapshot = new Snapshot();
+		snapshot.take(root, edges);
+
+		// structure and locations are copies
+		assertSame(root, snapshot.getRoot());
+		assertEquals(2, snapshot.getChildren(root).size());
+		assertNotSame(root.getChildren(), snapshot.getChildren(root));
+		assertSame(a, snapshot.getParent(a1));
+		assertNull(snapshot.getParent(root));
+		assertNotSame(a1.getLocation(), snapshot.getLocation(a1));
+		assertEquals(.25, snapshot.getLocation(a1).hyper.radius, 0.);
+		assertEquals(1, snapshot.getEdges().size());
+		assertSame(b, snapshot.getEndpoint(b));
+
+		// tree changes do not show in snapshot
+		final Node c = new Node(root, "c");
+		a.getChildren().clear();
+		a1.getLocation().hyper.radius = .5;
+		assertEquals(2, snapshot.getChildren(root).size());
+		assertEquals(1, snapshot.getChildren(a).size());
+		assertEquals(.25, snapshot.getLocation(a1).hyper.radius, 0.);
+
+		// node not in snapshot is an error
+		assertThrows(IllegalStateException.class, () -> snapshot.getLocation(c));
+		assertThrows(IllegalStateException.class, () -> snapshot.getChildren(c));
+		assertNull(snapshot.findLocation(c));
+
+		// next snapshot drops nodes no longer in tree, and edges to them
+		snapshot.take(root, edges);
+		assertEquals(3, snapshot.getChildren(root).size());
+		assertThrows(IllegalStateException.class, () -> snapshot.getParent(a1));
+		assertNull(snapshot.findLocation(a1));
+		assertEquals(0, snapshot.getEdges().size());
+	}
+
+	@Test
+	public void testMountedEndpoint()
+	{
+		final Node root = new Node(null, "root");
+		final Node mounting = new Node(root, "mounting");
+		final Node target = new Node(root, "target");
+
+		// mounted tree replaces mounting node
+		final Node mounted = new Node(null, "mounted");
+		final MountPoint.Mounting mountingPoint = new MountPoint.Mounting();
+		mountingPoint.mountedNode = mounted;
+		mounting.setMountPoint(mountingPoint);
+		final MountPoint.Mounted mountedPoint = new MountPoint.Mounted();
+		mountedPoint.mountingNode = mounting;
+		mounted.setMountPoint(mountedPoint);
+		final List<INode> children = root.getChildren();
+		children.set(children.indexOf(mounting), mounted);
+		mounted.setParent(root);
+
+		final List<IEdge> edges = new ArrayList<>();
+		edges.add(new Edge(mounting, target));
+		final Snapshot snapshot = new Snapshot();
+		snapshot.take(root, edges);
+		assertEquals(1, snapshot.getEdges().size());
+		assertSame(mounted, snapshot.getEndpoint(mounting));
+	}
+}